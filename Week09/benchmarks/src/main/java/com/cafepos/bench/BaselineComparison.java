@@ -0,0 +1,267 @@
+package com.cafepos.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Diffs a JMH JSON result file ({@code -rf json}) against a committed baseline.
+ * <p>
+ * Every benchmark/params pair found in both files is printed with its score and, when
+ * run with {@code -prof gc}, its normalized allocation ({@code gc.alloc.rate.norm}).
+ * A result is a regression when its score is worse than the baseline by more than the
+ * threshold (default 10%) and the two 99.9% confidence intervals ({@code score ± scoreError})
+ * do not overlap, so a noisy run cannot fail on its own. The same applies to allocation,
+ * which must also grow by at least 16 bytes per operation. The process exits with
+ * status 1 if anything regressed.
+ * <pre>
+ * java -cp target/benchmarks.jar com.cafepos.bench.BaselineComparison baseline.json target/results.json [percent]
+ * </pre>
+ * Week09/benchmarks and Week10/benchmarks carry identical copies of this class; change
+ * both together ({@code diff} the two files to check).
+ */
+public final class BaselineComparison {
+    private static final String ALLOC = "gc.alloc.rate.norm";
+    private static final double MIN_ALLOC_DELTA = 16;
+
+    /**
+     * One benchmark/params result. Errors are the half-width of the confidence interval,
+     * 0 when JMH could not compute one; {@code alloc} is NaN when the gc profiler was off.
+     */
+    record Result(String key, String mode, double score, double error, String unit, double alloc, double allocError) {
+        boolean higherIsBetter() {
+            return mode.equals("thrpt");
+        }
+    }
+
+    private BaselineComparison() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("usage: BaselineComparison <baseline.json> <results.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length == 3 ? Double.parseDouble(args[2]) / 100 : 0.10;
+        Map<String, Result> baseline = read(Path.of(args[0]));
+        Map<String, Result> current = read(Path.of(args[1]));
+        int regressions = compare(baseline, current, threshold);
+        if (regressions > 0) {
+            System.out.println(regressions + " regression(s) beyond " + Math.round(threshold * 100) + "%");
+            System.exit(1);
+        }
+        System.out.println("No regressions beyond " + Math.round(threshold * 100) + "%");
+    }
+
+    static int compare(Map<String, Result> baseline, Map<String, Result> current, double threshold) {
+        int regressions = 0;
+        System.out.printf("%-60s %20s %20s %8s %12s %12s%n", "benchmark", "baseline", "current", "change", "B/op base", "B/op now");
+        for (Result now : current.values()) {
+            Result base = baseline.get(now.key());
+            if (base == null) {
+                System.out.printf("%-60s %20s %20.3f%n", now.key(), "(new)", now.score());
+                continue;
+            }
+            double change = (now.score() - base.score()) / base.score();
+            boolean slower = now.higherIsBetter()
+                    ? change < -threshold && now.score() + now.error() < base.score() - base.error()
+                    : change > threshold && now.score() - now.error() > base.score() + base.error();
+            double extraAlloc = now.alloc() - base.alloc();
+            boolean allocates = extraAlloc > MIN_ALLOC_DELTA && extraAlloc > base.alloc() * threshold
+                    && now.alloc() - now.allocError() > base.alloc() + base.allocError();
+            String flag = slower || allocates ? "  REGRESSION" : "";
+            if (!flag.isEmpty())
+                regressions++;
+            System.out.printf("%-60s %20s %20s %+7.1f%% %12.1f %12.1f %s%s%n", now.key(),
+                    withError(base.score(), base.error()), withError(now.score(), now.error()),
+                    change * 100, base.alloc(), now.alloc(), now.unit(), flag);
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key))
+                System.out.printf("%-60s %20s%n", key, "(not run)");
+        }
+        return regressions;
+    }
+
+    private static String withError(double score, double error) {
+        return error > 0 ? String.format("%.1f+-%.1f", score, error) : String.format("%.3f", score);
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Result> read(Path file) {
+        String text;
+        try {
+            text = Files.readString(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (Object o : (List<Object>) new Json(text).parse()) {
+            Map<String, Object> run = (Map<String, Object>) o;
+            StringBuilder key = new StringBuilder((String) run.get("benchmark"));
+            Object params = run.get("params");
+            if (params != null) {
+                new TreeMap<>((Map<String, Object>) params).forEach((k, v) -> key.append(' ').append(k).append('=').append(v));
+            }
+            Map<String, Object> primary = (Map<String, Object>) run.get("primaryMetric");
+            Map<String, Object> secondary = (Map<String, Object>) run.getOrDefault("secondaryMetrics", Map.of());
+            Map<String, Object> alloc = (Map<String, Object>) secondary.get(ALLOC);
+            results.put(key.toString(), new Result(key.toString(), (String) run.get("mode"),
+                    number(primary.get("score")), error(primary), (String) primary.get("scoreUnit"),
+                    alloc == null ? Double.NaN : number(alloc.get("score")), alloc == null ? 0 : error(alloc)));
+        }
+        return results;
+    }
+
+    private static double number(Object value) {
+        return value instanceof Double d ? d : Double.NaN;
+    }
+
+    /** A metric's {@code scoreError}; JMH writes "NaN" (a string) for a single iteration. */
+    private static double error(Map<String, Object> metric) {
+        double e = number(metric.get("scoreError"));
+        return Double.isNaN(e) ? 0 : e;
+    }
+
+    /** Just enough of a JSON reader for JMH result files; numbers are read as doubles. */
+    static final class Json {
+        private final String s;
+        private int pos;
+
+        Json(String s) {
+            this.s = s;
+        }
+
+        Object parse() {
+            Object value = value();
+            skipWhitespace();
+            if (pos != s.length())
+                throw error("trailing content");
+            return value;
+        }
+
+        private Object value() {
+            skipWhitespace();
+            if (pos >= s.length())
+                throw error("unexpected end");
+            char c = s.charAt(pos);
+            switch (c) {
+                case '{': return object();
+                case '[': return array();
+                case '"': return string();
+                case 't': return literal("true", Boolean.TRUE);
+                case 'f': return literal("false", Boolean.FALSE);
+                case 'n': return literal("null", null);
+                default: return number();
+            }
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return map;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                map.put(key, value());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect('}');
+                    return map;
+                }
+            }
+        }
+
+        private List<Object> array() {
+            List<Object> list = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return list;
+            }
+            while (true) {
+                list.add(value());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect(']');
+                    return list;
+                }
+            }
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = s.charAt(pos++);
+                if (c == '"')
+                    return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = s.charAt(pos++);
+                switch (e) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: sb.append(e);
+                }
+            }
+        }
+
+        private Double number() {
+            int start = pos;
+            while (pos < s.length() && "+-0123456789.eE".indexOf(s.charAt(pos)) >= 0)
+                pos++;
+            if (start == pos)
+                throw error("unexpected character '" + s.charAt(pos) + "'");
+            return Double.parseDouble(s.substring(start, pos));
+        }
+
+        private Object literal(String word, Object value) {
+            if (!s.startsWith(word, pos))
+                throw error("expected " + word);
+            pos += word.length();
+            return value;
+        }
+
+        private void expect(char c) {
+            if (peek() != c)
+                throw error("expected '" + c + "'");
+            pos++;
+        }
+
+        private char peek() {
+            return pos < s.length() ? s.charAt(pos) : '\0';
+        }
+
+        private void skipWhitespace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos)))
+                pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at offset " + pos);
+        }
+    }
+}
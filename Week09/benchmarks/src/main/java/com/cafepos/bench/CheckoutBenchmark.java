@@ -0,0 +1,97 @@
+package com.cafepos.bench;
+
+import com.cafepos.checkout.CheckoutService;
+import com.cafepos.common.Money;
+import com.cafepos.factory.ProductFactory;
+import com.cafepos.order.LineItem;
+import com.cafepos.order.Order;
+import com.cafepos.pricing.FixedRateTaxPolicy;
+import com.cafepos.pricing.LoyaltyPercentDiscount;
+import com.cafepos.pricing.PricingService;
+import com.cafepos.pricing.ReceiptPrinter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each stage of the Week 9 checkout path on an order of {@code lines} line items, plus
+ * {@link CheckoutService#checkout} for every line. Order observers stand in for the
+ * event bus Week 10 adds. Run with {@code -prof gc} and compare against
+ * {@code baseline.json} with {@link BaselineComparison}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class CheckoutBenchmark {
+    private static final String[] RECIPES = {"ESP", "LAT+L", "CAP+SHOT+OAT", "AME+SHOT", "LAT+OAT+L"};
+    private static final int TAX_PERCENT = 10;
+
+    @Param({"1", "10", "100"})
+    int lines;
+
+    private ProductFactory factory;
+    private Order order;
+    private Money subtotal;
+    private PricingService pricing;
+    private PricingService.PricingResult priced;
+    private ReceiptPrinter printer;
+    private CheckoutService checkout;
+
+    @Setup
+    public void setUp(Blackhole bh) {
+        factory = new ProductFactory();
+        order = new Order(4201L);
+        for (int i = 0; i < lines; i++) {
+            order.addItem(new LineItem(factory.create(RECIPES[i % RECIPES.length]), 1 + i % 3));
+        }
+        order.register((o, event) -> bh.consume(event));
+        order.register((o, event) -> bh.consume(o));
+
+        pricing = new PricingService(new LoyaltyPercentDiscount(5), new FixedRateTaxPolicy(TAX_PERCENT));
+        subtotal = order.subtotal();
+        priced = pricing.price(subtotal);
+        printer = new ReceiptPrinter();
+        checkout = new CheckoutService(factory, pricing, printer, bh::consume, TAX_PERCENT);
+    }
+
+    /** Resolves the recipe of every line, as the order is taken. */
+    @Benchmark
+    public void productFactoryCreate(Blackhole bh) {
+        for (int i = 0; i < lines; i++) {
+            bh.consume(factory.create(RECIPES[i % RECIPES.length]));
+        }
+    }
+
+    @Benchmark
+    public Money orderSubtotal() {
+        return order.subtotal();
+    }
+
+    @Benchmark
+    public PricingService.PricingResult pricingPrice() {
+        return pricing.price(subtotal);
+    }
+
+    @Benchmark
+    public String receiptFormat() {
+        return printer.format(RECIPES[0], lines, priced, TAX_PERCENT);
+    }
+
+    @Benchmark
+    public void observersNotify() {
+        order.markPaid();
+        order.markReady();
+    }
+
+    /** Week 9 checks out one recipe at a time, so an order of {@code lines} is that many checkouts. */
+    @Benchmark
+    public void checkout(Blackhole bh) {
+        for (int i = 0; i < lines; i++) {
+            bh.consume(checkout.checkout(RECIPES[i % RECIPES.length], 1 + i % 3));
+        }
+    }
+}
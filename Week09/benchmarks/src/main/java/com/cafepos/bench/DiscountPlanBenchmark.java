@@ -0,0 +1,111 @@
+package com.cafepos.bench;
+
+import com.cafepos.catalog.SimpleProduct;
+import com.cafepos.common.Money;
+import com.cafepos.order.LineItem;
+import com.cafepos.pricing.DiscountPlan;
+import com.cafepos.pricing.DiscountRule;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discount for a five-line order with {@code rules} active promotions: the compiled
+ * {@link DiscountPlan} vs. interpreting every rule in turn with {@code Money}
+ * arithmetic, as a chain of individual {@code DiscountPolicy} objects would.
+ * The mix is 40% line percentages over 200 products, 30% order percentages and 20%
+ * order amounts at various minimum subtotals, and 10% best-of and capped pairs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DiscountPlanBenchmark {
+    @Param({"10", "100", "1000"})
+    int rules;
+
+    private List<DiscountRule> ruleList;
+    private DiscountPlan plan;
+    private List<LineItem> order;
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(3);
+        ruleList = new ArrayList<>();
+        for (int i = 0; i < rules; i++) {
+            int kind = i % 20;
+            Money floor = Money.of(rnd.nextInt(40));
+            if (kind < 8) {
+                ruleList.add(DiscountRule.linePercent("P-" + rnd.nextInt(200), 1));
+            } else if (kind < 14) {
+                ruleList.add(DiscountRule.orderPercent(rnd.nextInt(2), floor));
+            } else if (kind < 18) {
+                ruleList.add(DiscountRule.orderAmount(Money.of(0.01), floor));
+            } else if (kind == 18) {
+                ruleList.add(DiscountRule.bestOf(DiscountRule.orderPercent(1, floor),
+                        DiscountRule.orderAmount(Money.of(0.05))));
+            } else {
+                ruleList.add(DiscountRule.capped(Money.of(0.10), DiscountRule.orderPercent(1),
+                        DiscountRule.linePercent("P-" + rnd.nextInt(200), 2)));
+            }
+        }
+        plan = DiscountPlan.compile(ruleList);
+        order = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            order.add(new LineItem(new SimpleProduct("P-" + i * 7, "Item " + i, Money.of(2.5 + i)), 1 + i % 2));
+    }
+
+    @Benchmark
+    public Money compiledPlan() {
+        return plan.discountOf(order);
+    }
+
+    @Benchmark
+    public Money interpretEachRule() {
+        Money subtotal = Money.zero();
+        for (LineItem li : order)
+            subtotal = subtotal.add(li.lineTotal());
+        BigDecimal d = BigDecimal.ZERO;
+        for (DiscountRule r : ruleList)
+            d = d.add(interpret(r, subtotal));
+        return Money.of(d.min(subtotal.asBigDecimal()));
+    }
+
+    private BigDecimal interpret(DiscountRule rule, Money subtotal) {
+        if (rule instanceof DiscountRule.LinePercent r) {
+            BigDecimal d = BigDecimal.ZERO;
+            for (LineItem li : order) {
+                if (li.product().id().equals(r.productId()))
+                    d = d.add(percent(li.lineTotal(), r.percent()));
+            }
+            return d;
+        } else if (rule instanceof DiscountRule.OrderPercent r) {
+            return subtotal.compareTo(r.minSubtotal()) >= 0 ? percent(subtotal, r.percent()) : BigDecimal.ZERO;
+        } else if (rule instanceof DiscountRule.OrderAmount r) {
+            return subtotal.compareTo(r.minSubtotal()) >= 0 ? r.amount().asBigDecimal() : BigDecimal.ZERO;
+        } else if (rule instanceof DiscountRule.BestOf r) {
+            BigDecimal best = BigDecimal.ZERO;
+            for (DiscountRule option : r.rules())
+                best = best.max(interpret(option, subtotal));
+            return best;
+        } else {
+            DiscountRule.Capped r = (DiscountRule.Capped) rule;
+            BigDecimal d = BigDecimal.ZERO;
+            for (DiscountRule inner : r.rules())
+                d = d.add(interpret(inner, subtotal));
+            return d.min(r.cap().asBigDecimal());
+        }
+    }
+
+    private static BigDecimal percent(Money m, int percent) {
+        return m.asBigDecimal().multiply(BigDecimal.valueOf(percent)).divide(BigDecimal.valueOf(100))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+}
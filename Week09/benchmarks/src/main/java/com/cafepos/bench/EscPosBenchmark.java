@@ -0,0 +1,54 @@
+package com.cafepos.bench;
+
+import com.cafepos.common.Money;
+import com.cafepos.pricing.*;
+import com.cafepos.printing.*;
+import org.openjdk.jmh.annotations.*;
+import vendor.legacy.LegacyThermalPrinter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Printer bytes per receipt: the text path ({@link ReceiptPrinter} then
+ * {@link LegacyPrinterAdapter}'s UTF-8 encode) vs. {@link EscPosPrinter} encoding
+ * {@link ReceiptData} into pooled direct buffers. Both write to a sink that only counts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EscPosBenchmark {
+    private final ReceiptPrinter formatter = new ReceiptPrinter();
+    private Printer legacy;
+    private Printer escPos;
+    private PricingService.PricingResult priced;
+
+    @Setup
+    public void setUp() {
+        priced = new PricingService(new LoyaltyPercentDiscount(5), new FixedRateTaxPolicy(10))
+                .price(Money.of(4.20).multiply(2));
+        legacy = new LegacyPrinterAdapter(new LegacyThermalPrinter() {
+            @Override
+            public void legacyPrint(byte[] payload) {
+            }
+        });
+        escPos = new EscPosPrinter(new FakePrinterSink(false));
+    }
+
+    @Benchmark
+    public void textThroughLegacyAdapter() {
+        legacy.print(formatter.format("LAT+L", 2, priced, 10));
+    }
+
+    @Benchmark
+    public ReceiptData receiptDataOnly() {
+        return ReceiptData.of("LAT+L", 2, priced, 10);
+    }
+
+    @Benchmark
+    public void escPosFromReceiptData() {
+        escPos.print(ReceiptData.of("LAT+L", 2, priced, 10));
+    }
+}
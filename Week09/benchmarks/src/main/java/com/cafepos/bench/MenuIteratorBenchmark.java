@@ -0,0 +1,94 @@
+package com.cafepos.bench;
+
+import com.cafepos.common.Money;
+import com.cafepos.menu.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full walk of a synthetic menu of about 100,000 nodes, counting vegetarian items:
+ * the original recursive {@code Stack} iterator vs. the array-deque
+ * {@link CompositeIterator}, and sequential vs. parallel streams over its spliterator.
+ * {@code wide} is 10 sections x 100 sub-menus x 100 items; {@code deep} is 1,000 chains
+ * of 100 nested menus, each ending in an item.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MenuIteratorBenchmark {
+    @Param({"wide", "deep"})
+    String shape;
+
+    private Menu root;
+
+    @Setup
+    public void setUp() {
+        root = new Menu("Root");
+        int n = 0;
+        if (shape.equals("wide")) {
+            for (int s = 0; s < 10; s++) {
+                Menu section = new Menu("Section " + s);
+                for (int m = 0; m < 100; m++) {
+                    Menu sub = new Menu("Menu " + s + "." + m);
+                    for (int i = 0; i < 100; i++) {
+                        sub.add(new MenuItem("Item " + n, Money.of(1 + n % 7), n++ % 3 == 0));
+                    }
+                    section.add(sub);
+                }
+                root.add(section);
+            }
+        } else {
+            for (int c = 0; c < 1_000; c++) {
+                Menu top = new Menu("Chain " + c);
+                Menu current = top;
+                for (int d = 1; d < 100; d++) {
+                    Menu next = new Menu("Level " + c + "." + d);
+                    current.add(next);
+                    current = next;
+                }
+                current.add(new MenuItem("Item " + n, Money.of(1 + n % 7), n++ % 3 == 0));
+                root.add(top);
+            }
+        }
+    }
+
+    private static boolean isVegetarian(MenuComponent c) {
+        return c instanceof MenuItem item && item.vegetarian();
+    }
+
+    @Benchmark
+    public int stackIterator() {
+        int veg = 0;
+        Iterator<MenuComponent> it = new StackCompositeIterator(root.childrenIterator());
+        while (it.hasNext()) {
+            if (isVegetarian(it.next()))
+                veg++;
+        }
+        return veg;
+    }
+
+    @Benchmark
+    public int compositeIterator() {
+        int veg = 0;
+        for (MenuComponent c : root) {
+            if (isVegetarian(c))
+                veg++;
+        }
+        return veg;
+    }
+
+    @Benchmark
+    public long stream() {
+        return root.stream().filter(MenuIteratorBenchmark::isVegetarian).count();
+    }
+
+    @Benchmark
+    public long parallelStream() {
+        return root.parallelStream().filter(MenuIteratorBenchmark::isVegetarian).count();
+    }
+}
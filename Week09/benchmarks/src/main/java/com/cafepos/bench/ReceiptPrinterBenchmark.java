@@ -0,0 +1,57 @@
+package com.cafepos.bench;
+
+import com.cafepos.common.Money;
+import com.cafepos.pricing.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ReceiptPrinter#format} through the compiled {@link ReceiptTemplate} vs. the
+ * original StringBuilder concatenation, cycling through a till's worth of repeat orders.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReceiptPrinterBenchmark {
+    private static final String[] RECIPES = {"ESP", "LAT+L", "CAP+SHOT+OAT", "AME+SHOT", "LAT+OAT+L"};
+
+    private final ReceiptPrinter printer = new ReceiptPrinter();
+    private PricingService.PricingResult[] priced;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        PricingService pricing = new PricingService(new LoyaltyPercentDiscount(5), new FixedRateTaxPolicy(10));
+        priced = new PricingService.PricingResult[RECIPES.length];
+        for (int i = 0; i < RECIPES.length; i++) {
+            priced[i] = pricing.price(Money.of(2.50 + i * 0.70).multiply(1 + i % 3));
+        }
+    }
+
+    @Benchmark
+    public String template() {
+        int i = next++ % RECIPES.length;
+        return printer.format(RECIPES[i], 1 + i % 3, priced[i], 10);
+    }
+
+    @Benchmark
+    public String stringBuilderConcat() {
+        int i = next++ % RECIPES.length;
+        String recipe = RECIPES[i];
+        int qty = 1 + i % 3;
+        PricingService.PricingResult pr = priced[i];
+        StringBuilder receipt = new StringBuilder();
+        receipt.append("Order (").append(recipe).append(") x").append(qty).append("\n");
+        receipt.append("Subtotal: ").append(pr.subtotal()).append("\n");
+        if (pr.discount().asBigDecimal().signum() > 0) {
+            receipt.append("Discount: -").append(pr.discount()).append("\n");
+        }
+        receipt.append("Tax (").append(10).append("%): ").append(pr.tax()).append("\n");
+        receipt.append("Total: ").append(pr.total());
+        return receipt.toString();
+    }
+}
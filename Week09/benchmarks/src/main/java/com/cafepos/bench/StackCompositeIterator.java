@@ -0,0 +1,43 @@
+package com.cafepos.bench;
+
+import com.cafepos.menu.Menu;
+import com.cafepos.menu.MenuComponent;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Stack;
+
+/** The original recursive, {@link Stack}-based {@code CompositeIterator}, kept as a baseline. */
+final class StackCompositeIterator implements Iterator<MenuComponent> {
+    private final Stack<Iterator<MenuComponent>> stack = new Stack<>();
+
+    StackCompositeIterator(Iterator<MenuComponent> iterator) {
+        stack.push(iterator);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (stack.isEmpty()) {
+            return false;
+        }
+        Iterator<MenuComponent> iterator = stack.peek();
+        if (iterator.hasNext()) {
+            return true;
+        }
+        stack.pop();
+        return hasNext();
+    }
+
+    @Override
+    public MenuComponent next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Iterator<MenuComponent> iterator = stack.peek();
+        MenuComponent component = iterator.next();
+        if (component instanceof Menu menu) {
+            stack.push(menu.childrenIterator());
+        }
+        return component;
+    }
+}
@@ -1,25 +1,53 @@
 package com.cafepos;
 
 import com.cafepos.common.Money;
+import com.cafepos.pricing.DiscountPlan;
 import com.cafepos.pricing.DiscountPolicy;
-import com.cafepos.pricing.FixedCouponDiscount;
-import com.cafepos.pricing.LoyaltyPercentDiscount;
-import com.cafepos.pricing.NoDiscount;
+import com.cafepos.pricing.DiscountRule;
+import com.cafepos.pricing.PromotionCatalog;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Discount codes mapped to compiled {@link DiscountPlan}s. Each code's rules are
+ * compiled once, when registered; unknown codes and {@code null} get no discount.
+ * With a {@link PromotionCatalog} in use, its codes are looked up first, so promotions
+ * edited in the catalog file take effect without a restart.
+ */
 public final class DiscountPolicyFactory {
+    private static final ConcurrentHashMap<String, DiscountPlan> PLANS = new ConcurrentHashMap<>();
+    private static volatile PromotionCatalog catalog;
+
+    static {
+        register("LOYAL5", List.of(DiscountRule.orderPercent(5)));
+        register("COUPON1", List.of(DiscountRule.orderAmount(Money.of(1.00))));
+        register("NONE", List.of());
+    }
+
     public static DiscountPolicy createDiscountPolicy(String discountCode) {
         if (discountCode == null) {
-            return new NoDiscount();
+            return DiscountPlan.none();
         }
-        
-        switch (discountCode.toUpperCase()) {
-            case "LOYAL5":
-                return new LoyaltyPercentDiscount(5);
-            case "COUPON1":
-                return new FixedCouponDiscount(Money.of(1.00));
-            case "NONE":
-            default:
-                return new NoDiscount();
+        String code = discountCode.toUpperCase(Locale.ROOT);
+        PromotionCatalog c = catalog;
+        if (c != null) {
+            DiscountPlan plan = c.planFor(code);
+            if (plan != null)
+                return plan;
         }
+        return PLANS.getOrDefault(code, DiscountPlan.none());
+    }
+
+    /** Consults {@code promotions} before the registered codes; {@code null} stops using it. */
+    public static void useCatalog(PromotionCatalog promotions) {
+        catalog = promotions;
+    }
+
+    /** Adds or replaces the promotion behind {@code discountCode} (case-insensitive). */
+    public static void register(String discountCode, List<DiscountRule> rules) {
+        if (discountCode == null || discountCode.isBlank())
+            throw new IllegalArgumentException("discount code required");
+        PLANS.put(discountCode.toUpperCase(Locale.ROOT), DiscountPlan.compile(rules));
     }
 }
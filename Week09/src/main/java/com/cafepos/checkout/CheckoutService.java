@@ -1,10 +1,13 @@
 package com.cafepos.checkout;
 
-import com.cafepos.common.Money;
 import com.cafepos.factory.ProductFactory;
+import com.cafepos.order.LineItem;
 import com.cafepos.pricing.PricingService;
 import com.cafepos.pricing.ReceiptPrinter;
+import com.cafepos.printing.Printer;
+import com.cafepos.printing.ReceiptData;
 import com.cafepos.strategy.PaymentStrategy;
+import java.util.List;
 
 public final class CheckoutService {
     private final ProductFactory factory;
@@ -12,34 +15,39 @@ public final class CheckoutService {
     private final ReceiptPrinter printer;
     private final PaymentStrategy payment;
     private final int taxPercent;
+    private final Printer receiptOut;
 
     public CheckoutService(ProductFactory factory, PricingService pricing,
                            ReceiptPrinter printer, PaymentStrategy payment,
                            int taxPercent) {
+        this(factory, pricing, printer, payment, taxPercent, null);
+    }
+
+    /**
+     * Also sends each receipt to {@code receiptOut}. Wrap the device in a
+     * {@link com.cafepos.printing.PrintSpooler} so checkout does not wait for it.
+     */
+    public CheckoutService(ProductFactory factory, PricingService pricing,
+                           ReceiptPrinter printer, PaymentStrategy payment,
+                           int taxPercent, Printer receiptOut) {
         this.factory = factory;
         this.pricing = pricing;
         this.printer = printer;
         this.payment = payment;
         this.taxPercent = taxPercent;
+        this.receiptOut = receiptOut;
     }
 
     public String checkout(String recipe, int qty) {
         var product = factory.create(recipe);
         if (qty <= 0) qty = 1;
-        
-        // Get unit price - try Priced interface first, fallback to basePrice
-        Money unitPrice;
-        try {
-            var priced = product instanceof com.cafepos.decorator.Priced p ? p.price() : product.basePrice();
-            unitPrice = priced;
-        } catch (Exception e) {
-            unitPrice = product.basePrice();
-        }
-        
-        Money subtotal = unitPrice.multiply(qty);
-        PricingService.PricingResult pr = pricing.price(subtotal);
+
+        // priced as a line, so promotions on this product apply
+        PricingService.PricingResult pr = pricing.price(List.of(new LineItem(product, qty)));
         String receipt = printer.format(recipe, qty, pr, taxPercent);
         payment.pay(pr.total());
+        if (receiptOut != null)
+            receiptOut.print(ReceiptData.of(recipe, qty, pr, taxPercent));
         return receipt;
     }
 }
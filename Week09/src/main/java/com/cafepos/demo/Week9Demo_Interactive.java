@@ -352,7 +352,7 @@ public final class Week9Demo_Interactive {
             var discountPolicy = DiscountPolicyFactory.createDiscountPolicy(discountCode);
             var taxPolicy = new FixedRateTaxPolicy(TAX_PERCENT);
             var pricingService = new PricingService(discountPolicy, taxPolicy);
-            var pricingResult = pricingService.price(subtotal);
+            var pricingResult = pricingService.price(order.items());
 
             if (pricingResult.discount().asBigDecimal().signum() > 0) {
                 System.out.println("Discount: -" + pricingResult.discount() + " (" + discountCode + ")");
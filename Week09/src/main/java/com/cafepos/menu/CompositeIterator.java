@@ -1,42 +1,123 @@
 package com.cafepos.menu;
 
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Stack;
+import java.util.List;
+import java.util.NoSuchElementException;
 
+/**
+ * Depth-first, pre-order walk of a menu tree without recursion. Sub-menus are tracked
+ * on an explicit array-backed stack of (children, position, end) frames, so depth costs
+ * a slot rather than a call frame and entering a sub-menu allocates nothing.
+ * <p>
+ * Children are read by index, so unlike {@code ArrayList}'s iterator a menu changed
+ * mid-walk is not detected.
+ */
 public final class CompositeIterator implements Iterator<MenuComponent> {
-    private final Stack<Iterator<MenuComponent>> stack = new Stack<>();
+    /** The caller's iterator for the first level, or null when walking from a list. */
+    private final Iterator<MenuComponent> top;
+    private List<?>[] lists;
+    private int[] pos;
+    private int[] end;
+    private int depth;
 
     public CompositeIterator(Iterator<MenuComponent> iterator) {
         if (iterator == null)
             throw new IllegalArgumentException("iterator required");
-        stack.push(iterator);
+        this.top = iterator;
+        allocate(8);
+    }
+
+    private CompositeIterator() {
+        this.top = null;
+        allocate(8);
+    }
+
+    /** A list walk at the same point as {@code other}, sharing nothing mutable with it. */
+    private CompositeIterator(CompositeIterator other) {
+        this.top = null;
+        this.lists = Arrays.copyOf(other.lists, other.lists.length);
+        this.pos = Arrays.copyOf(other.pos, other.pos.length);
+        this.end = Arrays.copyOf(other.end, other.end.length);
+        this.depth = other.depth;
+    }
+
+    /** Walks {@code children} and everything below them. */
+    static CompositeIterator over(List<MenuComponent> children) {
+        CompositeIterator it = new CompositeIterator();
+        it.push(children);
+        return it;
+    }
+
+    private void allocate(int frames) {
+        lists = new List<?>[frames];
+        pos = new int[frames];
+        end = new int[frames];
     }
 
     @Override
     public boolean hasNext() {
-        if (stack.isEmpty()) {
-            return false;
-        }
-        Iterator<MenuComponent> iterator = stack.peek();
-        if (iterator.hasNext()) {
-            return true;
+        while (depth > 0) {
+            int d = depth - 1;
+            if (pos[d] < end[d])
+                return true;
+            lists[d] = null;
+            depth = d;
         }
-        stack.pop();
-        return hasNext();
+        return top != null && top.hasNext();
     }
 
     @Override
     public MenuComponent next() {
-        if (!hasNext()) {
-            throw new java.util.NoSuchElementException();
-        }
-        Iterator<MenuComponent> iterator = stack.peek();
-        MenuComponent component = iterator.next();
-        if (component instanceof Menu menu) {
-            stack.push(menu.childrenIterator());
+        if (!hasNext())
+            throw new NoSuchElementException();
+        MenuComponent component;
+        if (depth > 0) {
+            int d = depth - 1;
+            component = (MenuComponent) lists[d].get(pos[d]++);
+        } else {
+            component = top.next();
         }
+        if (component instanceof Menu menu)
+            push(menu.children());
         return component;
     }
-}
 
+    /**
+     * For a walk created by {@link #over}: hands off everything up to the middle of the
+     * remaining top-level children, including any sub-menu being walked, as a new
+     * iterator and keeps the rest. Returns null if too little is left to split.
+     */
+    CompositeIterator splitPrefix() {
+        if (top != null || depth == 0)
+            return null;
+        int from = pos[0];
+        int to = end[0];
+        boolean walkingSubMenu = depth > 1;
+        if (to - from < (walkingSubMenu ? 1 : 2))
+            return null;
+        int mid = from + (to - from) / 2;
+
+        CompositeIterator prefix = new CompositeIterator(this);
+        prefix.end[0] = mid;
+
+        Arrays.fill(lists, 1, depth, null);
+        depth = 1;
+        pos[0] = mid;
+        return prefix;
+    }
 
+    private void push(List<MenuComponent> children) {
+        if (children.isEmpty())
+            return;
+        if (depth == lists.length) {
+            lists = Arrays.copyOf(lists, depth * 2);
+            pos = Arrays.copyOf(pos, depth * 2);
+            end = Arrays.copyOf(end, depth * 2);
+        }
+        lists[depth] = children;
+        pos[depth] = 0;
+        end[depth] = children.size();
+        depth++;
+    }
+}
@@ -1,13 +1,29 @@
 package com.cafepos.menu;
 
 import com.cafepos.common.Money;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * A menu section holding items and sub-menus. The flattened views ({@link #getAllComponents},
+ * {@link #vegetarianItems}, {@link #itemsPricedBetween}, {@link #itemsStartingWith}) are
+ * built on first use into an immutable index and served from it until this menu or
+ * any sub-menu below it changes. The returned lists are read-only.
+ * <p>
+ * Mutation is not thread-safe; reads of a menu that is no longer being edited are.
+ */
 public final class Menu extends MenuComponent implements Iterable<MenuComponent> {
     private final String name;
     private final List<MenuComponent> children = new ArrayList<>();
+    private final List<Menu> parents = new ArrayList<>(1);
+    private volatile MenuIndex index;
+    /** Set while some menu above has built an index covering this one. */
+    boolean indexedAbove;
 
     public Menu(String name) {
         if (name == null || name.isBlank())
@@ -24,12 +40,69 @@ public final class Menu extends MenuComponent implements Iterable<MenuComponent>
     public void add(MenuComponent component) {
         if (component == null)
             throw new IllegalArgumentException("component required");
+        if (component instanceof Menu sub && sub.isAncestorOf(this))
+            throw new IllegalArgumentException("a menu cannot contain itself");
         children.add(component);
+        if (component instanceof Menu sub)
+            sub.parents.add(this);
+        invalidate();
     }
 
     @Override
     public void remove(MenuComponent component) {
-        children.remove(component);
+        if (children.remove(component)) {
+            if (component instanceof Menu sub)
+                sub.parents.remove(this);
+            invalidate();
+        }
+    }
+
+    /** Walks up from {@code menu} iteratively; a menu without children is nobody's ancestor. */
+    private boolean isAncestorOf(Menu menu) {
+        if (menu == this)
+            return true;
+        if (children.isEmpty())
+            return false;
+        ArrayDeque<Menu> pending = new ArrayDeque<>(menu.parents);
+        while (!pending.isEmpty()) {
+            Menu m = pending.pop();
+            if (m == this)
+                return true;
+            pending.addAll(m.parents);
+        }
+        return false;
+    }
+
+    /**
+     * Drops the cached index here and in every menu above that may hold one. Building
+     * an index marks each sub-menu it covers with {@code indexedAbove}, so the walk
+     * stops at the first menu no cached index depends on and a menu under construction
+     * pays O(1) per add.
+     */
+    private void invalidate() {
+        index = null;
+        if (!indexedAbove)
+            return;
+        ArrayDeque<Menu> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            Menu m = pending.pop();
+            m.index = null;
+            if (m.indexedAbove) {
+                m.indexedAbove = false;
+                for (Menu parent : m.parents)
+                    pending.push(parent);
+            }
+        }
+    }
+
+    private MenuIndex index() {
+        MenuIndex i = index;
+        if (i == null) {
+            i = new MenuIndex(this);
+            index = i;
+        }
+        return i;
     }
 
     @Override
@@ -44,9 +117,29 @@ public final class Menu extends MenuComponent implements Iterable<MenuComponent>
         return children.iterator();
     }
 
+    /** Every component below this menu, depth-first in pre-order. */
     @Override
     public Iterator<MenuComponent> iterator() {
-        return new CompositeIterator(children.iterator());
+        return CompositeIterator.over(children);
+    }
+
+    /** Same order as {@link #iterator()}; splits by top-level sections for parallel streams. */
+    @Override
+    public Spliterator<MenuComponent> spliterator() {
+        MenuIndex i = index;
+        return new MenuSpliterator(this, i != null ? i.all.size() : Long.MAX_VALUE);
+    }
+
+    public Stream<MenuComponent> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<MenuComponent> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    List<MenuComponent> children() {
+        return children;
     }
 
     @Override
@@ -58,22 +151,24 @@ public final class Menu extends MenuComponent implements Iterable<MenuComponent>
     }
 
     public List<MenuComponent> getAllComponents() {
-        List<MenuComponent> result = new ArrayList<>();
-        for (MenuComponent component : this) {
-            result.add(component);
-        }
-        return result;
+        return index().all;
     }
 
     public List<MenuItem> vegetarianItems() {
-        List<MenuItem> result = new ArrayList<>();
-        for (MenuComponent component : this) {
-            if (component instanceof MenuItem item && item.vegetarian()) {
-                result.add(item);
-            }
-        }
-        return result;
+        return index().vegetarian;
     }
-}
 
+    /** Items priced from {@code min} to {@code max} inclusive, cheapest first. */
+    public List<MenuItem> itemsPricedBetween(Money min, Money max) {
+        if (min == null || max == null)
+            throw new IllegalArgumentException("price band required");
+        return index().priceBand(min, max);
+    }
 
+    /** Items whose name starts with {@code prefix}, ignoring case, in name order. */
+    public List<MenuItem> itemsStartingWith(String prefix) {
+        if (prefix == null)
+            throw new IllegalArgumentException("prefix required");
+        return index().namePrefix(prefix);
+    }
+}
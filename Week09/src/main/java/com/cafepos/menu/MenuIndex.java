@@ -0,0 +1,106 @@
+package com.cafepos.menu;
+
+import com.cafepos.common.Money;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable flattened views of one menu tree, built in a single walk. Items are also
+ * kept sorted by price and by lower-cased name so band and prefix lookups are two
+ * binary searches returning a slice of a shared list.
+ */
+final class MenuIndex {
+    final List<MenuComponent> all;
+    final List<MenuItem> vegetarian;
+    private final List<MenuItem> byPrice;
+    private final long[] priceCents;
+    private final List<MenuItem> byName;
+    private final String[] names;
+
+    MenuIndex(Menu root) {
+        List<MenuComponent> all = new ArrayList<>();
+        List<MenuItem> items = new ArrayList<>();
+        List<MenuItem> vegetarian = new ArrayList<>();
+        for (MenuComponent c : root) {
+            all.add(c);
+            if (c instanceof Menu sub) {
+                sub.indexedAbove = true;
+            } else if (c instanceof MenuItem item) {
+                items.add(item);
+                if (item.vegetarian())
+                    vegetarian.add(item);
+            }
+        }
+        this.all = Collections.unmodifiableList(all);
+        this.vegetarian = Collections.unmodifiableList(vegetarian);
+
+        MenuItem[] sorted = items.toArray(new MenuItem[0]);
+        Arrays.sort(sorted, Comparator.comparing(MenuItem::price));
+        this.byPrice = List.of(sorted);
+        this.priceCents = new long[sorted.length];
+        for (int i = 0; i < sorted.length; i++)
+            priceCents[i] = cents(sorted[i].price());
+
+        sorted = items.toArray(new MenuItem[0]);
+        Arrays.sort(sorted, Comparator.comparing(item -> key(item.name())));
+        this.byName = List.of(sorted);
+        this.names = new String[sorted.length];
+        for (int i = 0; i < sorted.length; i++)
+            names[i] = key(sorted[i].name());
+    }
+
+    /** Items priced from {@code min} to {@code max} inclusive, cheapest first. */
+    List<MenuItem> priceBand(Money min, Money max) {
+        int from = lowerBound(priceCents, cents(min));
+        int to = lowerBound(priceCents, cents(max) + 1);
+        return from < to ? byPrice.subList(from, to) : List.of();
+    }
+
+    /** Items whose name starts with {@code prefix}, ignoring case, in name order. */
+    List<MenuItem> namePrefix(String prefix) {
+        String p = key(prefix);
+        int from = lowerBound(names, p);
+        int to = from;
+        while (to < names.length && names[to].startsWith(p))
+            to++;
+        return from < to ? byName.subList(from, to) : List.of();
+    }
+
+    private static int lowerBound(long[] a, long v) {
+        int lo = 0, hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < v) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int lowerBound(String[] a, String v) {
+        int lo = 0, hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid].compareTo(v) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static long cents(Money m) {
+        return m.asBigDecimal().movePointRight(2).longValueExact();
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,62 @@
+package com.cafepos.menu;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Pre-order {@link Spliterator} over a menu tree, built on a {@link CompositeIterator}
+ * cursor. A split hands off everything up to the middle of the remaining top-level
+ * children (including any sub-menu being walked) and keeps the rest, so the two halves
+ * stay in encounter order and parallel streams divide the tree by top-level sections.
+ */
+final class MenuSpliterator implements Spliterator<MenuComponent> {
+    private final CompositeIterator cursor;
+    private long estimate;
+
+    MenuSpliterator(Menu root, long estimate) {
+        this(CompositeIterator.over(root.children()), estimate);
+    }
+
+    private MenuSpliterator(CompositeIterator cursor, long estimate) {
+        this.cursor = cursor;
+        this.estimate = estimate;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super MenuComponent> action) {
+        if (action == null)
+            throw new NullPointerException();
+        if (!cursor.hasNext())
+            return false;
+        action.accept(cursor.next());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super MenuComponent> action) {
+        if (action == null)
+            throw new NullPointerException();
+        while (cursor.hasNext())
+            action.accept(cursor.next());
+    }
+
+    @Override
+    public Spliterator<MenuComponent> trySplit() {
+        CompositeIterator prefix = cursor.splitPrefix();
+        if (prefix == null)
+            return null;
+        long half = estimate >>> 1;
+        estimate -= half;
+        return new MenuSpliterator(prefix, half);
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
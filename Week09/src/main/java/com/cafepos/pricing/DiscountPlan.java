@@ -0,0 +1,264 @@
+package com.cafepos.pricing;
+
+import com.cafepos.common.Money;
+import com.cafepos.order.LineItem;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A set of {@link DiscountRule}s compiled once into an evaluation plan.
+ * <p>
+ * Stacked rules are folded together at compile time: line percentages are summed per
+ * product id into one hash lookup per line, and order percentages and amounts are summed
+ * into tiers by minimum subtotal, so an order picks its tier with one binary search.
+ * Only best-of and capped groups are evaluated one by one. Stacked percentages are
+ * applied as one combined rate (at most 100%) and rounded half-up to the cent once,
+ * and evaluation stops as soon as the discount covers the whole subtotal, which is
+ * also the most a plan ever returns.
+ */
+public final class DiscountPlan implements DiscountPolicy {
+    private static final String[] NO_IDS = new String[0];
+    private static final long[] NO_CENTS = new long[0];
+    private static final DiscountPlan NONE = compile(List.of());
+
+    private final Node root;
+    private final int ruleCount;
+    /** Product ids named by any line rule; only those lines need their totals. */
+    private final Set<String> lineIds;
+
+    private DiscountPlan(Node root, int ruleCount, Set<String> lineIds) {
+        this.root = root;
+        this.ruleCount = ruleCount;
+        this.lineIds = lineIds;
+    }
+
+    public static DiscountPlan compile(DiscountRule... rules) {
+        return compile(List.of(rules));
+    }
+
+    public static DiscountPlan compile(List<DiscountRule> rules) {
+        if (rules == null)
+            throw new IllegalArgumentException("rules required");
+        int[] count = new int[1];
+        Set<String> lineIds = new HashSet<>();
+        Node root = stack(rules, count, lineIds);
+        return new DiscountPlan(root, count[0], Set.copyOf(lineIds));
+    }
+
+    /** A plan with no rules; every discount is zero. */
+    public static DiscountPlan none() {
+        return NONE;
+    }
+
+    /** Number of leaf rules compiled into this plan. */
+    public int ruleCount() {
+        return ruleCount;
+    }
+
+    /**
+     * Order-level discount on {@code subtotal} alone. Line rules cannot see any products
+     * here and contribute nothing, so price orders through {@link #discountOf(List, Money)}
+     * or {@link PricingService#price(List)} when the plan may hold them.
+     */
+    @Override
+    public Money discountOf(Money subtotal) {
+        long cents = cents(subtotal);
+        return money(root.discount(NO_IDS, NO_CENTS, 0, cents));
+    }
+
+    /** Discount on an order's lines: line rules per line, order rules on their sum. */
+    public Money discountOf(List<LineItem> lines) {
+        Money subtotal = Money.zero();
+        for (LineItem li : lines) {
+            subtotal = subtotal.add(li.lineTotal());
+        }
+        return discountOf(lines, subtotal);
+    }
+
+    /**
+     * As {@link #discountOf(List)} with the lines' {@code subtotal} already known. Only
+     * lines whose product has a line rule have their total worked out again; a plan
+     * without line rules never looks at the lines.
+     */
+    @Override
+    public Money discountOf(List<LineItem> lines, Money subtotal) {
+        if (lineIds.isEmpty())
+            return discountOf(subtotal);
+        int n = lines.size();
+        String[] ids = new String[n];
+        long[] lineCents = new long[n];
+        for (int i = 0; i < n; i++) {
+            LineItem li = lines.get(i);
+            ids[i] = li.product().id();
+            // other lines' totals are never read: no rule matches their id
+            if (lineIds.contains(ids[i]))
+                lineCents[i] = cents(li.lineTotal());
+        }
+        return money(root.discount(ids, lineCents, n, cents(subtotal)));
+    }
+
+    private abstract static class Node {
+        /** Discount in cents, never more than {@code subtotal}. */
+        abstract long discount(String[] ids, long[] lineCents, int lines, long subtotal);
+    }
+
+    /** Stacked rules with the leaf rules pre-aggregated. */
+    private static final class StackNode extends Node {
+        private final Map<String, Integer> linePercent;
+        private final long[] tierFloor;
+        private final int[] tierPercent;
+        private final long[] tierAmount;
+        private final Node[] groups;
+
+        StackNode(Map<String, Integer> linePercent, long[] tierFloor, int[] tierPercent, long[] tierAmount,
+                  Node[] groups) {
+            this.linePercent = linePercent;
+            this.tierFloor = tierFloor;
+            this.tierPercent = tierPercent;
+            this.tierAmount = tierAmount;
+            this.groups = groups;
+        }
+
+        @Override
+        long discount(String[] ids, long[] lineCents, int lines, long subtotal) {
+            long d = 0;
+            if (!linePercent.isEmpty()) {
+                for (int i = 0; i < lines; i++) {
+                    Integer p = linePercent.get(ids[i]);
+                    if (p != null)
+                        d += percentOf(lineCents[i], p);
+                }
+            }
+            int tier = tier(subtotal);
+            if (tier >= 0)
+                d += percentOf(subtotal, tierPercent[tier]) + tierAmount[tier];
+            for (Node g : groups) {
+                if (d >= subtotal)
+                    return subtotal;
+                d += g.discount(ids, lineCents, lines, subtotal);
+            }
+            return Math.min(d, subtotal);
+        }
+
+        /** Index of the highest tier whose floor is at most {@code subtotal}, or -1. */
+        private int tier(long subtotal) {
+            int lo = 0, hi = tierFloor.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (tierFloor[mid] <= subtotal) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo - 1;
+        }
+    }
+
+    private static final class BestOfNode extends Node {
+        private final Node[] options;
+
+        BestOfNode(Node[] options) {
+            this.options = options;
+        }
+
+        @Override
+        long discount(String[] ids, long[] lineCents, int lines, long subtotal) {
+            long best = 0;
+            for (Node option : options) {
+                best = Math.max(best, option.discount(ids, lineCents, lines, subtotal));
+                if (best >= subtotal)
+                    break;
+            }
+            return best;
+        }
+    }
+
+    private static final class CappedNode extends Node {
+        private final long cap;
+        private final Node rules;
+
+        CappedNode(long cap, Node rules) {
+            this.cap = cap;
+            this.rules = rules;
+        }
+
+        @Override
+        long discount(String[] ids, long[] lineCents, int lines, long subtotal) {
+            return Math.min(cap, rules.discount(ids, lineCents, lines, subtotal));
+        }
+    }
+
+    private static Node stack(List<DiscountRule> rules, int[] count, Set<String> lineIds) {
+        Map<String, Integer> linePercent = new HashMap<>();
+        TreeMap<Long, long[]> tiers = new TreeMap<>();
+        List<Node> groups = new ArrayList<>();
+        for (DiscountRule rule : rules) {
+            if (rule == null)
+                throw new IllegalArgumentException("rule cannot be null");
+            if (rule instanceof DiscountRule.LinePercent r) {
+                linePercent.merge(r.productId(), r.percent(), (a, b) -> Math.min(100, a + b));
+                lineIds.add(r.productId());
+                count[0]++;
+            } else if (rule instanceof DiscountRule.OrderPercent r) {
+                tiers.computeIfAbsent(cents(r.minSubtotal()), k -> new long[2])[0] += r.percent();
+                count[0]++;
+            } else if (rule instanceof DiscountRule.OrderAmount r) {
+                tiers.computeIfAbsent(cents(r.minSubtotal()), k -> new long[2])[1] += cents(r.amount());
+                count[0]++;
+            } else if (rule instanceof DiscountRule.BestOf r) {
+                Node[] options = new Node[r.rules().size()];
+                for (int i = 0; i < options.length; i++)
+                    options[i] = stack(List.of(r.rules().get(i)), count, lineIds);
+                groups.add(new BestOfNode(options));
+            } else if (rule instanceof DiscountRule.Capped r) {
+                groups.add(new CappedNode(cents(r.cap()), stack(r.rules(), count, lineIds)));
+            }
+        }
+        // each tier carries everything from the tiers below it
+        long[] floors = new long[tiers.size()];
+        int[] percents = new int[floors.length];
+        long[] amounts = new long[floors.length];
+        long pct = 0, amt = 0;
+        int i = 0;
+        for (Map.Entry<Long, long[]> e : tiers.entrySet()) {
+            pct += e.getValue()[0];
+            amt = Math.addExact(amt, e.getValue()[1]);
+            floors[i] = e.getKey();
+            percents[i] = (int) Math.min(100, pct);
+            amounts[i] = amt;
+            i++;
+        }
+        return new StackNode(linePercent.isEmpty() ? Map.of() : Map.copyOf(linePercent),
+                floors, percents, amounts, groups.toArray(new Node[0]));
+    }
+
+    private static long percentOf(long cents, int percent) {
+        if (percent == 0)
+            return 0;
+        if (cents > (Long.MAX_VALUE - 50) / percent)
+            return BigDecimal.valueOf(cents).multiply(BigDecimal.valueOf(percent))
+                    .divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP).longValueExact();
+        return (cents * percent + 50) / 100;
+    }
+
+    private static long cents(Money m) {
+        return m.asBigDecimal().movePointRight(2).longValueExact();
+    }
+
+    private static Money money(long cents) {
+        return cents == 0 ? Money.zero() : Money.of(BigDecimal.valueOf(cents, 2));
+    }
+
+    @Override
+    public String toString() {
+        return "DiscountPlan{" + ruleCount + " rules}";
+    }
+}
@@ -1,7 +1,18 @@
 package com.cafepos.pricing;
 
 import com.cafepos.common.Money;
+import com.cafepos.order.LineItem;
+import java.util.List;
 
 public interface DiscountPolicy {
     Money discountOf(Money subtotal);
+
+    /**
+     * Discount on an order's lines, whose totals add up to {@code subtotal}. Policies that
+     * only look at the total use {@code subtotal}; per-product promotions such as a
+     * {@link DiscountPlan} with line rules need this form to see which products were bought.
+     */
+    default Money discountOf(List<LineItem> lines, Money subtotal) {
+        return discountOf(subtotal);
+    }
 }
@@ -0,0 +1,88 @@
+package com.cafepos.pricing;
+
+import com.cafepos.common.Money;
+import java.util.List;
+
+/**
+ * One promotion, as data. Rules are compiled into a {@link DiscountPlan}; inside a plan
+ * (and inside {@link Capped}) they stack, each computed on the undiscounted amounts.
+ */
+public sealed interface DiscountRule {
+
+    /** {@code percent}% off every line whose product id is {@code productId}. */
+    record LinePercent(String productId, int percent) implements DiscountRule {
+        public LinePercent {
+            if (productId == null || productId.isBlank())
+                throw new IllegalArgumentException("product id required");
+            checkPercent(percent);
+        }
+    }
+
+    /** {@code percent}% off orders whose subtotal is at least {@code minSubtotal}. */
+    record OrderPercent(int percent, Money minSubtotal) implements DiscountRule {
+        public OrderPercent {
+            checkPercent(percent);
+            if (minSubtotal == null)
+                throw new IllegalArgumentException("minimum subtotal required");
+        }
+    }
+
+    /** A fixed {@code amount} off orders whose subtotal is at least {@code minSubtotal}. */
+    record OrderAmount(Money amount, Money minSubtotal) implements DiscountRule {
+        public OrderAmount {
+            if (amount == null || minSubtotal == null)
+                throw new IllegalArgumentException("amount and minimum subtotal required");
+        }
+    }
+
+    /** Only the largest of {@code rules} applies. */
+    record BestOf(List<DiscountRule> rules) implements DiscountRule {
+        public BestOf {
+            if (rules == null || rules.isEmpty())
+                throw new IllegalArgumentException("at least one rule required");
+            rules = List.copyOf(rules);
+        }
+    }
+
+    /** {@code rules} stacked, but never more than {@code cap} in total. */
+    record Capped(Money cap, List<DiscountRule> rules) implements DiscountRule {
+        public Capped {
+            if (cap == null || rules == null || rules.isEmpty())
+                throw new IllegalArgumentException("cap and at least one rule required");
+            rules = List.copyOf(rules);
+        }
+    }
+
+    static DiscountRule linePercent(String productId, int percent) {
+        return new LinePercent(productId, percent);
+    }
+
+    static DiscountRule orderPercent(int percent) {
+        return new OrderPercent(percent, Money.zero());
+    }
+
+    static DiscountRule orderPercent(int percent, Money minSubtotal) {
+        return new OrderPercent(percent, minSubtotal);
+    }
+
+    static DiscountRule orderAmount(Money amount) {
+        return new OrderAmount(amount, Money.zero());
+    }
+
+    static DiscountRule orderAmount(Money amount, Money minSubtotal) {
+        return new OrderAmount(amount, minSubtotal);
+    }
+
+    static DiscountRule bestOf(DiscountRule... rules) {
+        return new BestOf(List.of(rules));
+    }
+
+    static DiscountRule capped(Money cap, DiscountRule... rules) {
+        return new Capped(cap, List.of(rules));
+    }
+
+    private static void checkPercent(int percent) {
+        if (percent < 0 || percent > 100)
+            throw new IllegalArgumentException("percent must be between 0 and 100");
+    }
+}
@@ -1,6 +1,8 @@
 package com.cafepos.pricing;
 
 import com.cafepos.common.Money;
+import com.cafepos.order.LineItem;
+import java.util.List;
 
 public final class PricingService {
     private final DiscountPolicy discountPolicy;
@@ -12,7 +14,25 @@ public final class PricingService {
     }
 
     public PricingResult price(Money subtotal) {
-        Money discount = discountPolicy.discountOf(subtotal);
+        return price(subtotal, discountPolicy.discountOf(subtotal));
+    }
+
+    /**
+     * Prices an order from its lines, so per-product promotions apply. Each line total is
+     * worked out once here; the discount policy gets the subtotal rather than redoing it.
+     */
+    public PricingResult price(List<LineItem> lines) {
+        Money subtotal = null;
+        for (LineItem li : lines) {
+            Money total = li.lineTotal();
+            subtotal = subtotal == null ? total : subtotal.add(total);
+        }
+        if (subtotal == null)
+            subtotal = Money.zero();
+        return price(subtotal, discountPolicy.discountOf(lines, subtotal));
+    }
+
+    private PricingResult price(Money subtotal, Money discount) {
         Money discounted = Money.of(subtotal.asBigDecimal().subtract(discount.asBigDecimal()));
         if (discounted.asBigDecimal().signum() < 0) discounted = Money.zero();
         Money tax = taxPolicy.taxOn(discounted);
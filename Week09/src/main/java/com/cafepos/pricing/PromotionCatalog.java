@@ -0,0 +1,269 @@
+package com.cafepos.pricing;
+
+import com.cafepos.common.Money;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Discount codes loaded from a CSV file and reloaded whenever the file changes, so a
+ * new promotion needs no code change. One rule per line, rules with the same code stack:
+ * <pre>
+ * # code,rule,arguments
+ * LOYAL5,order-percent,5
+ * COUPON1,order-amount,1.00
+ * LATTE20,line-percent,P-LAT,20
+ * BIG10,order-percent,10,20.00     (10% off orders of 20.00 or more)
+ * BIG10,cap,3.00                   (BIG10 never takes more than 3.00 off)
+ * </pre>
+ * Each load parses the whole file and compiles every code into a {@link DiscountPlan}
+ * before publishing the result with one reference swap, so lookups never lock, never
+ * wait for a reload and never see a half-built catalog. Line rules only apply when the
+ * order is priced from its lines ({@link PricingService#price(java.util.List)}).
+ * <p>
+ * Replace the file atomically: write the new version next to it and move it into place.
+ * A file edited in place can be read mid-write, and if the part written so far happens
+ * to parse (for example it stops at the end of a line) that partial catalog is published.
+ * A file that fails to parse is counted in {@link #failedReloads()} and the previous
+ * promotions stay live.
+ */
+public final class PromotionCatalog implements AutoCloseable {
+    /** Quiet period after a change event before reloading, so a burst of writes loads once. */
+    private static final long SETTLE_MILLIS = 50;
+
+    private record Snapshot(Map<String, DiscountPlan> plans, long version) {}
+
+    private final Path file;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicLong failedReloads = new AtomicLong();
+    private volatile RuntimeException lastFailure;
+    private WatchService watcher;
+    private Thread worker;
+    private volatile boolean closed;
+
+    /**
+     * Loads {@code file} straight away; call {@link #start()} to follow later changes.
+     *
+     * @throws UncheckedIOException     if the file cannot be read
+     * @throws IllegalArgumentException if it is not a valid catalog
+     */
+    public PromotionCatalog(Path file) {
+        if (file == null)
+            throw new IllegalArgumentException("catalog file required");
+        this.file = file.toAbsolutePath();
+        current.set(new Snapshot(load(this.file), 1));
+    }
+
+    /** Starts watching the file on a background thread; does nothing if already started. */
+    public synchronized void start() {
+        if (closed)
+            throw new IllegalStateException("catalog is closed");
+        if (worker != null)
+            return;
+        try {
+            watcher = file.getFileSystem().newWatchService();
+            file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot watch " + file, e);
+        }
+        worker = new Thread(this::watch, "promotion-catalog");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * The compiled promotion for {@code code} (case-insensitive), or {@code null} if the
+     * catalog has none. One hash probe into the current snapshot.
+     */
+    public DiscountPlan planFor(String code) {
+        if (code == null)
+            return null;
+        return current.get().plans().get(code.toUpperCase(Locale.ROOT));
+    }
+
+    /** Codes in the current snapshot, upper-cased. */
+    public Set<String> codes() {
+        return current.get().plans().keySet();
+    }
+
+    /** Starts at 1 and goes up by one with every successful reload. */
+    public long version() {
+        return current.get().version();
+    }
+
+    /** Reloads that failed and left the previous promotions in place. */
+    public long failedReloads() {
+        return failedReloads.get();
+    }
+
+    /** Why the most recent failed reload was rejected, or empty if none has failed. */
+    public Optional<RuntimeException> lastFailure() {
+        return Optional.ofNullable(lastFailure);
+    }
+
+    /** Reloads the file now, on the calling thread; false if it failed to load. */
+    public boolean reload() {
+        Map<String, DiscountPlan> plans;
+        try {
+            plans = load(file);
+        } catch (RuntimeException e) {
+            lastFailure = e;
+            failedReloads.incrementAndGet();
+            return false;
+        }
+        current.updateAndGet(old -> new Snapshot(plans, old.version() + 1));
+        return true;
+    }
+
+    private void watch() {
+        Path name = file.getFileName();
+        try {
+            while (!closed) {
+                WatchKey key = watcher.take();
+                boolean changed = touches(key, name);
+                // let the writer finish, folding any further events into this reload
+                while ((key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= touches(key, name);
+                }
+                if (changed)
+                    reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // close() shuts the watch service down to stop this thread
+        }
+    }
+
+    private static boolean touches(WatchKey key, Path name) {
+        boolean hit = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context()))
+                hit = true;
+        }
+        key.reset();
+        return hit;
+    }
+
+    /** Stops watching the file; lookups keep answering from the last snapshot. */
+    @Override
+    public void close() {
+        Thread t;
+        synchronized (this) {
+            closed = true;
+            t = worker;
+            if (watcher != null) {
+                try {
+                    watcher.close();
+                } catch (IOException e) {
+                    // nothing left to release
+                }
+            }
+        }
+        if (t != null) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static Map<String, DiscountPlan> load(Path file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read " + file, e);
+        }
+        return parse(lines);
+    }
+
+    static Map<String, DiscountPlan> parse(List<String> lines) {
+        Map<String, List<DiscountRule>> rules = new LinkedHashMap<>();
+        Map<String, Money> caps = new HashMap<>();
+        for (int n = 0; n < lines.size(); n++) {
+            String line = lines.get(n).strip();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            String[] f = line.split("\\s*,\\s*");
+            try {
+                if (f.length < 2 || f[0].isEmpty())
+                    throw new IllegalArgumentException("expected code,rule,arguments");
+                String code = f[0].toUpperCase(Locale.ROOT);
+                List<DiscountRule> forCode = rules.computeIfAbsent(code, k -> new ArrayList<>());
+                switch (f[1].toLowerCase(Locale.ROOT)) {
+                    case "order-percent" -> forCode.add(f.length == 3
+                            ? DiscountRule.orderPercent(percent(f, 2))
+                            : DiscountRule.orderPercent(percent(f, 2), money(f, 3, 4)));
+                    case "order-amount" -> forCode.add(f.length == 3
+                            ? DiscountRule.orderAmount(money(f, 2, 3))
+                            : DiscountRule.orderAmount(money(f, 2, 4), money(f, 3, 4)));
+                    case "line-percent" -> {
+                        arity(f, 4);
+                        forCode.add(DiscountRule.linePercent(f[2], percent(f, 3)));
+                    }
+                    case "cap" -> {
+                        if (caps.put(code, money(f, 2, 3)) != null)
+                            throw new IllegalArgumentException("more than one cap for " + code);
+                    }
+                    default -> throw new IllegalArgumentException("unknown rule '" + f[1] + "'");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("line " + (n + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        Map<String, DiscountPlan> plans = new HashMap<>();
+        rules.forEach((code, list) -> {
+            Money cap = caps.get(code);
+            if (cap != null && list.isEmpty())
+                throw new IllegalArgumentException("cap for " + code + " has no rules");
+            plans.put(code, DiscountPlan.compile(cap == null ? list : List.of(new DiscountRule.Capped(cap, list))));
+        });
+        return Map.copyOf(plans);
+    }
+
+    private static int percent(String[] f, int i) {
+        if (f.length <= i)
+            throw new IllegalArgumentException("wrong number of fields for " + f[1]);
+        try {
+            return Integer.parseInt(f[i]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad percent '" + f[i] + "'");
+        }
+    }
+
+    /** Field {@code i} as money, where the rule takes at most {@code max} fields. */
+    private static Money money(String[] f, int i, int max) {
+        if (f.length <= i || f.length > max)
+            throw new IllegalArgumentException("wrong number of fields for " + f[1]);
+        try {
+            return Money.of(new BigDecimal(f[i]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad amount '" + f[i] + "'");
+        }
+    }
+
+    private static void arity(String[] f, int fields) {
+        if (f.length != fields)
+            throw new IllegalArgumentException("wrong number of fields for " + f[1]);
+    }
+}
@@ -1,15 +1,19 @@
 package com.cafepos.pricing;
 
 public final class ReceiptPrinter {
+    private final ReceiptTemplate template;
+
+    public ReceiptPrinter() {
+        this(ReceiptTemplate.DEFAULT);
+    }
+
+    public ReceiptPrinter(ReceiptTemplate template) {
+        if (template == null)
+            throw new IllegalArgumentException("template required");
+        this.template = template;
+    }
+
     public String format(String recipe, int qty, PricingService.PricingResult pr, int taxPercent) {
-        StringBuilder receipt = new StringBuilder();
-        receipt.append("Order (").append(recipe).append(") x").append(qty).append("\n");
-        receipt.append("Subtotal: ").append(pr.subtotal()).append("\n");
-        if (pr.discount().asBigDecimal().signum() > 0) {
-            receipt.append("Discount: -").append(pr.discount()).append("\n");
-        }
-        receipt.append("Tax (").append(taxPercent).append("%): ").append(pr.tax()).append("\n");
-        receipt.append("Total: ").append(pr.total());
-        return receipt.toString();
+        return template.render(recipe, qty, pr, taxPercent);
     }
 }
@@ -0,0 +1,232 @@
+package com.cafepos.pricing;
+
+import com.cafepos.common.Money;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A receipt layout compiled once into literal text and field slots.
+ * <p>
+ * Each section is one line with {@code {field}} placeholders: the header may use
+ * {@code {recipe}} and {@code {qty}}, the other sections {@code {subtotal} {discount}
+ * {taxPercent} {tax} {total}}. The discount line is left out when there is no discount.
+ * Rendered headers are cached per (recipe, qty) and amount strings per value, both
+ * bounded, so repeat orders are assembled from ready-made pieces.
+ * <p>
+ * {@link #DEFAULT} reproduces the original receipt text exactly.
+ */
+public final class ReceiptTemplate {
+    public static final int DEFAULT_CACHE_CAPACITY = 4096;
+
+    enum Field {
+        RECIPE("recipe"), QTY("qty"),
+        SUBTOTAL("subtotal"), DISCOUNT("discount"), TAX_PERCENT("taxPercent"), TAX("tax"), TOTAL("total");
+
+        final String placeholder;
+
+        Field(String placeholder) {
+            this.placeholder = placeholder;
+        }
+
+        boolean inHeader() {
+            return this == RECIPE || this == QTY;
+        }
+    }
+
+    private record HeaderKey(String recipe, int qty) {}
+
+    public static final ReceiptTemplate DEFAULT = builder().build();
+
+    private final Object[] header;
+    private final Object[] subtotal;
+    private final Object[] discount;
+    private final Object[] tax;
+    private final Object[] total;
+    private final int cacheCapacity;
+    private final ConcurrentHashMap<HeaderKey, String> headers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<BigDecimal, String> amounts = new ConcurrentHashMap<>();
+
+    private ReceiptTemplate(Builder b) {
+        this.header = compile(b.header, true, true);
+        this.subtotal = compile(b.subtotal, false, true);
+        this.discount = compile(b.discount, false, true);
+        this.tax = compile(b.tax, false, true);
+        this.total = compile(b.total, false, false);
+        this.cacheCapacity = b.cacheCapacity;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String render(String recipe, int qty, PricingService.PricingResult pr, int taxPercent) {
+        StringBuilder sb = new StringBuilder(128);
+        render(recipe, qty, pr, taxPercent, sb);
+        return sb.toString();
+    }
+
+    public void render(String recipe, int qty, PricingService.PricingResult pr, int taxPercent, Appendable out) {
+        try {
+            out.append(header(recipe, qty));
+            section(subtotal, pr, taxPercent, out);
+            if (pr.discount().asBigDecimal().signum() > 0)
+                section(discount, pr, taxPercent, out);
+            section(tax, pr, taxPercent, out);
+            section(total, pr, taxPercent, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Number of cached headers plus cached amounts. */
+    public int cacheSize() {
+        return headers.size() + amounts.size();
+    }
+
+    private String header(String recipe, int qty) {
+        HeaderKey key = new HeaderKey(recipe, qty);
+        String cached = headers.get(key);
+        if (cached != null)
+            return cached;
+        StringBuilder sb = new StringBuilder(32);
+        for (Object segment : header) {
+            if (segment instanceof String literal) {
+                sb.append(literal);
+            } else if (segment == Field.RECIPE) {
+                sb.append(recipe);
+            } else {
+                sb.append(qty);
+            }
+        }
+        return remember(headers, key, sb.toString());
+    }
+
+    private void section(Object[] segments, PricingService.PricingResult pr, int taxPercent, Appendable out)
+            throws IOException {
+        for (Object segment : segments) {
+            if (segment instanceof String literal) {
+                out.append(literal);
+                continue;
+            }
+            switch ((Field) segment) {
+                case SUBTOTAL -> out.append(amount(pr.subtotal()));
+                case DISCOUNT -> out.append(amount(pr.discount()));
+                case TAX_PERCENT -> out.append(Integer.toString(taxPercent));
+                case TAX -> out.append(amount(pr.tax()));
+                case TOTAL -> out.append(amount(pr.total()));
+                default -> throw new IllegalStateException("not a totals field: " + segment);
+            }
+        }
+    }
+
+    private String amount(Money m) {
+        BigDecimal value = m.asBigDecimal();
+        String cached = amounts.get(value);
+        return cached != null ? cached : remember(amounts, value, m.toString());
+    }
+
+    private <K> String remember(ConcurrentHashMap<K, String> cache, K key, String value) {
+        if (cache.size() < cacheCapacity) {
+            String raced = cache.putIfAbsent(key, value);
+            if (raced != null)
+                return raced;
+        }
+        return value;
+    }
+
+    private static Object[] compile(String pattern, boolean isHeader, boolean newline) {
+        if (pattern == null)
+            throw new IllegalArgumentException("pattern required");
+        if (pattern.indexOf('\n') >= 0)
+            throw new IllegalArgumentException("a section is a single line: " + pattern);
+        List<Object> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            int open = pattern.indexOf('{', i);
+            if (open < 0) {
+                literal.append(pattern, i, pattern.length());
+                break;
+            }
+            int close = pattern.indexOf('}', open);
+            if (close < 0)
+                throw new IllegalArgumentException("unclosed placeholder in: " + pattern);
+            literal.append(pattern, i, open);
+            Field field = field(pattern.substring(open + 1, close), isHeader, pattern);
+            if (literal.length() > 0) {
+                segments.add(literal.toString());
+                literal.setLength(0);
+            }
+            segments.add(field);
+            i = close + 1;
+        }
+        if (newline)
+            literal.append('\n');
+        if (literal.length() > 0)
+            segments.add(literal.toString());
+        return segments.toArray();
+    }
+
+    private static Field field(String name, boolean isHeader, String pattern) {
+        for (Field f : Field.values()) {
+            if (f.placeholder.equals(name) && f.inHeader() == isHeader)
+                return f;
+        }
+        throw new IllegalArgumentException("unknown placeholder {" + name + "} in: " + pattern);
+    }
+
+    /** Section patterns; defaults produce the original receipt. */
+    public static final class Builder {
+        private String header = "Order ({recipe}) x{qty}";
+        private String subtotal = "Subtotal: {subtotal}";
+        private String discount = "Discount: -{discount}";
+        private String tax = "Tax ({taxPercent}%): {tax}";
+        private String total = "Total: {total}";
+        private int cacheCapacity = DEFAULT_CACHE_CAPACITY;
+
+        private Builder() {
+        }
+
+        public Builder header(String pattern) {
+            this.header = pattern;
+            return this;
+        }
+
+        public Builder subtotal(String pattern) {
+            this.subtotal = pattern;
+            return this;
+        }
+
+        public Builder discount(String pattern) {
+            this.discount = pattern;
+            return this;
+        }
+
+        public Builder tax(String pattern) {
+            this.tax = pattern;
+            return this;
+        }
+
+        public Builder total(String pattern) {
+            this.total = pattern;
+            return this;
+        }
+
+        /** Maximum entries kept in each fragment cache; 0 disables caching. */
+        public Builder cacheCapacity(int capacity) {
+            if (capacity < 0)
+                throw new IllegalArgumentException("cache capacity cannot be negative");
+            this.cacheCapacity = capacity;
+            return this;
+        }
+
+        /** @throws IllegalArgumentException on an unknown or misplaced placeholder */
+        public ReceiptTemplate build() {
+            return new ReceiptTemplate(this);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.cafepos.printing;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * ESC/POS character tables. Each constant maps text to single bytes of its table;
+ * characters the table lacks print as '?'.
+ */
+public enum CodePage {
+    /** USA, standard Europe; the printer's power-on default. */
+    PC437(0, "IBM437"),
+    /** Western Europe with the euro sign. */
+    PC858(19, "IBM00858"),
+    WPC1252(16, "windows-1252");
+
+    private final int selector;
+    private final String charset;
+    private volatile byte[] table;
+
+    CodePage(int selector, String charset) {
+        this.selector = selector;
+        this.charset = charset;
+    }
+
+    /** The {@code n} of {@code ESC t n}. */
+    public int selector() {
+        return selector;
+    }
+
+    /** The byte for {@code c}; control characters and unmapped characters become '?'. */
+    public byte encode(char c) {
+        if (c >= 0x20 && c < 0x7F)
+            return (byte) c;
+        return table()[c];
+    }
+
+    /** Encodes {@code s[from, to)} into {@code dst} at {@code off}; returns the new offset. */
+    int encode(String s, int from, int to, byte[] dst, int off) {
+        byte[] t = null;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c < 0x7F) {
+                dst[off++] = (byte) c;
+            } else {
+                if (t == null)
+                    t = table();
+                dst[off++] = t[c];
+            }
+        }
+        return off;
+    }
+
+    private byte[] table() {
+        byte[] t = table;
+        if (t == null) {
+            t = new byte[Character.MAX_VALUE + 1];
+            Arrays.fill(t, (byte) '?');
+            CharsetDecoder decoder = Charset.forName(charset).newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            for (int b = 0x80; b <= 0xFF; b++) {
+                try {
+                    CharBuffer decoded = decoder.decode(ByteBuffer.wrap(new byte[] {(byte) b}));
+                    if (decoded.length() == 1 && decoded.charAt(0) != '\uFFFD')
+                        t[decoded.charAt(0)] = (byte) b;
+                } catch (CharacterCodingException e) {
+                    // no character at this position of the table
+                }
+            }
+            table = t;
+        }
+        return t;
+    }
+}
@@ -0,0 +1,49 @@
+package com.cafepos.printing;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of equally sized direct buffers. Requests larger than the pool's buffer
+ * size get a one-off buffer that is not kept on release.
+ */
+public final class DirectBufferPool {
+    private final int bufferSize;
+    private final ArrayBlockingQueue<ByteBuffer> free;
+    private final LongAdder allocations = new LongAdder();
+
+    public DirectBufferPool(int bufferSize, int maxPooled) {
+        if (bufferSize <= 0 || maxPooled <= 0)
+            throw new IllegalArgumentException("buffer size and pool size must be > 0");
+        this.bufferSize = bufferSize;
+        this.free = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    /** A cleared buffer with at least {@code minCapacity} bytes of room. */
+    public ByteBuffer acquire(int minCapacity) {
+        if (minCapacity <= bufferSize) {
+            ByteBuffer buf = free.poll();
+            if (buf != null)
+                return buf;
+        }
+        allocations.increment();
+        return ByteBuffer.allocateDirect(Math.max(minCapacity, bufferSize));
+    }
+
+    public void release(ByteBuffer buf) {
+        if (buf.capacity() == bufferSize && buf.isDirect()) {
+            buf.clear();
+            free.offer(buf);
+        }
+    }
+
+    /** Buffers allocated so far; stays flat once the pool is warm. */
+    public long allocations() {
+        return allocations.sum();
+    }
+
+    public int pooled() {
+        return free.size();
+    }
+}
@@ -0,0 +1,129 @@
+package com.cafepos.printing;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Encodes a {@link ReceiptData} as ESC/POS commands: printer reset and code page
+ * selection, a bold centred title, rows with the value right-aligned to the paper
+ * width, a bold total, then feed and partial cut. Text is mapped to the code page one
+ * byte per character, so the encoded size is known before writing. Bytes are staged in
+ * a per-thread array and copied to the target buffer in one bulk put, which is much
+ * cheaper than single-byte puts into a direct buffer.
+ */
+public final class EscPosEncoder {
+    /** Characters per line in font A on 80 mm paper. */
+    public static final int COLUMNS_80MM = 48;
+    /** Characters per line in font A on 58 mm paper. */
+    public static final int COLUMNS_58MM = 32;
+
+    static final byte ESC = 0x1B;
+    static final byte GS = 0x1D;
+    static final byte LF = 0x0A;
+
+    private static final byte[] INIT = {ESC, '@'};
+    private static final byte[] BOLD_ON = {ESC, 'E', 1};
+    private static final byte[] BOLD_OFF = {ESC, 'E', 0};
+    private static final byte[] ALIGN_LEFT = {ESC, 'a', 0};
+    private static final byte[] ALIGN_CENTER = {ESC, 'a', 1};
+    private static final byte[] FEED_AND_CUT = {ESC, 'd', 3, GS, 'V', 1};
+    private static final int FIXED_BYTES = INIT.length + 3 + ALIGN_CENTER.length + BOLD_ON.length
+            + BOLD_OFF.length + ALIGN_LEFT.length + BOLD_ON.length + BOLD_OFF.length + FEED_AND_CUT.length;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /** Growable per-thread staging array. */
+    private static final class Scratch {
+        byte[] bytes = new byte[512];
+        int n;
+
+        Scratch reset(int capacity) {
+            if (bytes.length < capacity)
+                bytes = new byte[Math.max(capacity, bytes.length * 2)];
+            n = 0;
+            return this;
+        }
+
+        Scratch put(byte b) {
+            bytes[n++] = b;
+            return this;
+        }
+
+        Scratch put(byte[] b) {
+            System.arraycopy(b, 0, bytes, n, b.length);
+            n += b.length;
+            return this;
+        }
+    }
+
+    private final CodePage codePage;
+    private final int columns;
+
+    public EscPosEncoder(CodePage codePage, int columns) {
+        if (codePage == null)
+            throw new IllegalArgumentException("code page required");
+        if (columns < 8)
+            throw new IllegalArgumentException("columns must be >= 8");
+        this.codePage = codePage;
+        this.columns = columns;
+    }
+
+    /** Exact number of bytes {@link #encode(ReceiptData, ByteBuffer)} writes for {@code receipt}. */
+    public int encodedSize(ReceiptData receipt) {
+        int rowLines = receipt.rows().size() + 1;
+        return FIXED_BYTES + receipt.title().length() + 1 + rowLines * (columns + 1);
+    }
+
+    /** Writes the receipt at {@code out}'s position and returns the number of bytes written. */
+    public int encode(ReceiptData receipt, ByteBuffer out) {
+        Scratch b = SCRATCH.get().reset(encodedSize(receipt));
+        b.put(INIT).put(ESC).put((byte) 't').put((byte) codePage.selector());
+        b.put(ALIGN_CENTER).put(BOLD_ON);
+        text(receipt.title(), 0, receipt.title().length(), b);
+        b.put(LF).put(BOLD_OFF).put(ALIGN_LEFT);
+        for (ReceiptData.Row row : receipt.rows()) {
+            row(row, b);
+        }
+        b.put(BOLD_ON);
+        row(receipt.total(), b);
+        b.put(BOLD_OFF).put(FEED_AND_CUT);
+        out.put(b.bytes, 0, b.n);
+        return b.n;
+    }
+
+    /** Plain text, line by line, followed by feed and cut; for callers without structured data. */
+    public int encodeText(String text, ByteBuffer out) {
+        Scratch b = SCRATCH.get().reset(encodedTextSize(text));
+        b.put(INIT).put(ESC).put((byte) 't').put((byte) codePage.selector());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            b.put(c == '\n' ? LF : codePage.encode(c));
+        }
+        b.put(LF).put(FEED_AND_CUT);
+        out.put(b.bytes, 0, b.n);
+        return b.n;
+    }
+
+    /** Upper bound for {@link #encodeText}. */
+    public int encodedTextSize(String text) {
+        return INIT.length + 3 + text.length() + 1 + FEED_AND_CUT.length;
+    }
+
+    /** Label left, value right, exactly {@code columns} wide; a long label is cut short. */
+    private void row(ReceiptData.Row row, Scratch b) {
+        String label = row.label();
+        String value = row.value();
+        int valueWidth = Math.min(value.length(), columns);
+        int labelWidth = Math.min(label.length(), Math.max(0, columns - valueWidth - 1));
+        text(label, 0, labelWidth, b);
+        int pad = columns - labelWidth - valueWidth;
+        Arrays.fill(b.bytes, b.n, b.n + pad, (byte) ' ');
+        b.n += pad;
+        text(value, value.length() - valueWidth, value.length(), b);
+        b.put(LF);
+    }
+
+    private void text(String s, int from, int to, Scratch b) {
+        b.n = codePage.encode(s, from, to, b.bytes, b.n);
+    }
+}
@@ -0,0 +1,89 @@
+package com.cafepos.printing;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * {@link Printer} that speaks ESC/POS. Receipts are encoded into a pooled direct buffer
+ * and written to a {@link PrinterSink}; no text is rendered first.
+ */
+public final class EscPosPrinter implements Printer {
+    /**
+     * Pooled buffer size of the default constructor: a full {@link PrintSpooler} batch of
+     * {@link PrintSpooler#DEFAULT_MAX_BATCH} receipts at up to 512 bytes each (a typical
+     * 48-column receipt encodes to about 250), so batched printing stays in the pool.
+     */
+    public static final int DEFAULT_BUFFER_BYTES = PrintSpooler.DEFAULT_MAX_BATCH * 512;
+
+    private final PrinterSink sink;
+    private final EscPosEncoder encoder;
+    private final DirectBufferPool pool;
+
+    public EscPosPrinter(PrinterSink sink) {
+        this(sink, new EscPosEncoder(CodePage.PC858, EscPosEncoder.COLUMNS_80MM), new DirectBufferPool(DEFAULT_BUFFER_BYTES, 8));
+    }
+
+    /**
+     * Size {@code pool}'s buffers for the largest batch {@link #printAll} will be handed,
+     * e.g. a spooler's {@code maxBatch} times the encoded receipt size; a larger batch gets a
+     * one-off direct buffer that the pool does not keep.
+     */
+    public EscPosPrinter(PrinterSink sink, EscPosEncoder encoder, DirectBufferPool pool) {
+        if (sink == null || encoder == null || pool == null)
+            throw new IllegalArgumentException("sink, encoder and pool required");
+        this.sink = sink;
+        this.encoder = encoder;
+        this.pool = pool;
+    }
+
+    @Override
+    public void print(ReceiptData receipt) {
+        ByteBuffer buf = pool.acquire(encoder.encodedSize(receipt));
+        try {
+            encoder.encode(receipt, buf);
+            sink.write(buf.flip());
+        } finally {
+            pool.release(buf);
+        }
+    }
+
+    /** Encodes all receipts, each ending in its own cut, into one buffer and one sink write. */
+    @Override
+    public void printAll(List<ReceiptData> receipts) {
+        int size = 0;
+        for (ReceiptData receipt : receipts) {
+            size += encoder.encodedSize(receipt);
+        }
+        ByteBuffer buf = pool.acquire(size);
+        try {
+            for (ReceiptData receipt : receipts) {
+                encoder.encode(receipt, buf);
+            }
+            sink.write(buf.flip());
+        } finally {
+            pool.release(buf);
+        }
+    }
+
+    DirectBufferPool pool() {
+        return pool;
+    }
+
+    /** The whole batch is encoded before the one sink write, so a failure prints nothing. */
+    @Override
+    public boolean printAllIsAtomic() {
+        return true;
+    }
+
+    /** Prints pre-rendered text as-is, without ESC/POS layout. */
+    @Override
+    public void print(String receiptText) {
+        ByteBuffer buf = pool.acquire(encoder.encodedTextSize(receiptText));
+        try {
+            encoder.encodeText(receiptText, buf);
+            sink.write(buf.flip());
+        } finally {
+            pool.release(buf);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.cafepos.printing;
+
+import java.nio.ByteBuffer;
+
+/** In-memory printer for tests and benchmarks: keeps the last job and counts bytes. */
+public final class FakePrinterSink implements PrinterSink {
+    private final boolean keepBytes;
+    private byte[] last = new byte[0];
+    private long jobs;
+    private long bytes;
+
+    public FakePrinterSink() {
+        this(true);
+    }
+
+    /** @param keepBytes false to only count, so measuring does not allocate */
+    public FakePrinterSink(boolean keepBytes) {
+        this.keepBytes = keepBytes;
+    }
+
+    @Override
+    public synchronized void write(ByteBuffer job) {
+        jobs++;
+        bytes += job.remaining();
+        if (keepBytes) {
+            last = new byte[job.remaining()];
+            job.get(last);
+        } else {
+            job.position(job.limit());
+        }
+    }
+
+    public synchronized byte[] lastJob() {
+        return last.clone();
+    }
+
+    public synchronized long jobs() {
+        return jobs;
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    public synchronized double bytesPerJob() {
+        return jobs == 0 ? 0 : (double) bytes / jobs;
+    }
+}
@@ -1,6 +1,7 @@
 package com.cafepos.printing;
 
 import vendor.legacy.LegacyThermalPrinter;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 public final class LegacyPrinterAdapter implements Printer {
@@ -15,6 +16,12 @@ public final class LegacyPrinterAdapter implements Printer {
         byte[] escpos = receiptText.getBytes(StandardCharsets.UTF_8);
         adaptee.legacyPrint(escpos);
     }
-}
-
 
+    /** Copies the encoded receipt straight into the legacy payload; no String round trip. */
+    @Override
+    public void print(ByteBuffer utf8Receipt) {
+        byte[] escpos = new byte[utf8Receipt.remaining()];
+        utf8Receipt.get(escpos);
+        adaptee.legacyPrint(escpos);
+    }
+}
@@ -0,0 +1,252 @@
+package com.cafepos.printing;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Printer} decorator that queues jobs and prints them on its own thread, so
+ * the caller returns as soon as the job is queued.
+ * <p>
+ * The queue is a bounded ring buffer; {@code print} blocks while it is full. A burst
+ * of consecutive {@link ReceiptData} jobs is handed to the delegate as one
+ * {@link Printer#printAll} call, which an {@link EscPosPrinter} turns into a single
+ * device write (its pooled buffers are sized for {@link #DEFAULT_MAX_BATCH} receipts, so
+ * a larger {@code maxBatch} needs a pool to match). Jobs are only batched when the
+ * delegate's {@code printAll} is {@linkplain Printer#printAllIsAtomic() atomic}, so retrying a batch never prints a
+ * receipt twice; otherwise each job is printed and retried on its own. A failed job (or
+ * batch) is retried up to {@code maxAttempts} times with a growing pause, then counted
+ * as failed and dropped.
+ */
+public final class PrintSpooler implements Printer, AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 256;
+    public static final int DEFAULT_MAX_BATCH = 32;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private static final int LATENCY_SAMPLES = 1024;
+    private static final long RETRY_PAUSE_MILLIS = 50;
+
+    private record Job(Object payload, long enqueuedAt) {}
+
+    private final Printer delegate;
+    private final ArrayBlockingQueue<Job> queue;
+    private final int maxBatch;
+    private final int maxAttempts;
+    private final Thread worker;
+    private volatile boolean closed;
+    /** Callers inside {@code enqueue}; the worker keeps running until they have left. */
+    private final AtomicInteger enqueuing = new AtomicInteger();
+    private volatile RuntimeException lastFailure;
+
+    private final AtomicLong printed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private long latencyCount;
+    private final AtomicLong outstanding = new AtomicLong();
+
+    public PrintSpooler(Printer delegate) {
+        this(delegate, DEFAULT_CAPACITY, DEFAULT_MAX_BATCH, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public PrintSpooler(Printer delegate, int capacity, int maxBatch, int maxAttempts) {
+        if (delegate == null)
+            throw new IllegalArgumentException("delegate printer required");
+        if (capacity <= 0 || maxBatch <= 0 || maxAttempts <= 0)
+            throw new IllegalArgumentException("capacity, batch size and attempts must be > 0");
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = delegate.printAllIsAtomic() ? maxBatch : 1;
+        this.maxAttempts = maxAttempts;
+        this.worker = new Thread(this::run, "print-spooler");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void print(String receiptText) {
+        enqueue(receiptText);
+    }
+
+    /** Copies the remaining bytes, since the caller may reuse the buffer once this returns. */
+    @Override
+    public void print(ByteBuffer utf8Receipt) {
+        ByteBuffer copy = ByteBuffer.allocate(utf8Receipt.remaining());
+        copy.put(utf8Receipt).flip();
+        enqueue(copy);
+    }
+
+    @Override
+    public void print(ReceiptData receipt) {
+        enqueue(receipt);
+    }
+
+    private void enqueue(Object payload) {
+        if (payload == null)
+            throw new IllegalArgumentException("receipt required");
+        // registering before the closed check means the worker cannot exit between the
+        // check and the put, leaving the job unprinted and a full queue's put blocked
+        enqueuing.incrementAndGet();
+        try {
+            if (closed)
+                throw new IllegalStateException("spooler is closed");
+            outstanding.incrementAndGet();
+            try {
+                queue.put(new Job(payload, System.nanoTime()));
+            } catch (InterruptedException e) {
+                outstanding.decrementAndGet();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while queueing a print job", e);
+            }
+        } finally {
+            enqueuing.decrementAndGet();
+        }
+    }
+
+    private void run() {
+        List<Job> batch = new ArrayList<>(maxBatch);
+        while (!closed || enqueuing.get() > 0 || !queue.isEmpty()) {
+            try {
+                Job first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                if (first.payload() instanceof ReceiptData) {
+                    while (batch.size() < maxBatch && queue.peek() != null
+                            && queue.peek().payload() instanceof ReceiptData) {
+                        batch.add(queue.poll());
+                    }
+                }
+                printWithRetry(batch);
+            } catch (InterruptedException e) {
+                // nothing interrupts the worker; close() lets it drain and exit
+            } finally {
+                if (!batch.isEmpty()) {
+                    outstanding.addAndGet(-batch.size());
+                    batch.clear();
+                    synchronized (this) {
+                        notifyAll();
+                    }
+                }
+            }
+        }
+    }
+
+    private void printWithRetry(List<Job> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                printOnce(batch);
+                record(batch);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    lastFailure = e;
+                    failed.addAndGet(batch.size());
+                    return;
+                }
+                retries.incrementAndGet();
+                Thread.sleep(RETRY_PAUSE_MILLIS * attempt);
+            }
+        }
+    }
+
+    private void printOnce(List<Job> batch) {
+        Object payload = batch.get(0).payload();
+        if (batch.size() > 1) {
+            List<ReceiptData> receipts = new ArrayList<>(batch.size());
+            for (Job job : batch) {
+                receipts.add((ReceiptData) job.payload());
+            }
+            delegate.printAll(receipts);
+            batches.incrementAndGet();
+        } else if (payload instanceof ReceiptData receipt) {
+            delegate.print(receipt);
+        } else if (payload instanceof ByteBuffer bytes) {
+            delegate.print(bytes.duplicate());
+        } else {
+            delegate.print((String) payload);
+        }
+    }
+
+    private synchronized void record(List<Job> batch) {
+        long now = System.nanoTime();
+        for (Job job : batch) {
+            latencies[(int) (latencyCount++ % LATENCY_SAMPLES)] = now - job.enqueuedAt();
+        }
+        printed.addAndGet(batch.size());
+    }
+
+    /** Jobs waiting to be printed, excluding the batch being printed right now. */
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    public long printed() {
+        return printed.get();
+    }
+
+    /** Jobs dropped after {@code maxAttempts} failed attempts. */
+    public long failed() {
+        return failed.get();
+    }
+
+    /** The error that made the most recent job give up, or empty if none has failed. */
+    public Optional<RuntimeException> lastFailure() {
+        return Optional.ofNullable(lastFailure);
+    }
+
+    public long retries() {
+        return retries.get();
+    }
+
+    /** Delegate calls that printed more than one receipt at once. */
+    public long batches() {
+        return batches.get();
+    }
+
+    /**
+     * 99th percentile time from queueing to printed over the last 1,024 printed jobs,
+     * in nanoseconds; 0 before anything has printed.
+     */
+    public synchronized long p99LatencyNanos() {
+        int n = (int) Math.min(latencyCount, LATENCY_SAMPLES);
+        if (n == 0)
+            return 0;
+        long[] sorted = Arrays.copyOf(latencies, n);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(n * 0.99) - 1];
+    }
+
+    /** Waits until every job queued so far has been printed or dropped. */
+    public synchronized boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (outstanding.get() > 0) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0)
+                return false;
+            TimeUnit.NANOSECONDS.timedWait(this, left);
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting jobs, prints what is queued (including jobs from callers already
+     * inside {@code print}) and stops the worker.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,7 +1,37 @@
 package com.cafepos.printing;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 public interface Printer {
     void print(String receiptText);
-}
 
+    /**
+     * Prints an already UTF-8 encoded receipt, consuming the buffer's remaining bytes.
+     * Printers that speak bytes should override this to skip the decode.
+     */
+    default void print(ByteBuffer utf8Receipt) {
+        print(StandardCharsets.UTF_8.decode(utf8Receipt).toString());
+    }
+
+    /** Prints structured receipt data; text printers get {@link ReceiptData#toText()}. */
+    default void print(ReceiptData receipt) {
+        print(receipt.toText());
+    }
 
+    /** Prints several receipts; byte-level printers may send them as one device write. */
+    default void printAll(List<ReceiptData> receipts) {
+        for (ReceiptData receipt : receipts) {
+            print(receipt);
+        }
+    }
+
+    /**
+     * Whether {@link #printAll} prints either every receipt or none, so a failed call can
+     * be repeated without printing any receipt twice. The default loop is not.
+     */
+    default boolean printAllIsAtomic() {
+        return false;
+    }
+}
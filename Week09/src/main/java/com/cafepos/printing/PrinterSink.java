@@ -0,0 +1,20 @@
+package com.cafepos.printing;
+
+import java.nio.ByteBuffer;
+import vendor.legacy.LegacyThermalPrinter;
+
+/** Destination for encoded printer bytes, e.g. a serial port or the legacy driver. */
+@FunctionalInterface
+public interface PrinterSink {
+    /** Consumes the buffer's remaining bytes; the buffer is reused after this returns. */
+    void write(ByteBuffer bytes);
+
+    /** Hands the bytes to the legacy driver, which only accepts a byte array. */
+    static PrinterSink legacy(LegacyThermalPrinter printer) {
+        return bytes -> {
+            byte[] payload = new byte[bytes.remaining()];
+            bytes.get(payload);
+            printer.legacyPrint(payload);
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.cafepos.printing;
+
+import com.cafepos.pricing.PricingService;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Printer-neutral content of a receipt: a title, label/value rows and a total row.
+ * Byte-level printers lay it out themselves instead of parsing rendered text.
+ */
+public record ReceiptData(String title, List<Row> rows, Row total) {
+    public record Row(String label, String value) {
+        public Row {
+            if (label == null || value == null)
+                throw new IllegalArgumentException("label and value required");
+        }
+    }
+
+    public ReceiptData {
+        if (title == null || rows == null || total == null)
+            throw new IllegalArgumentException("title, rows and total required");
+        rows = List.copyOf(rows);
+    }
+
+    /** The same content {@link com.cafepos.pricing.ReceiptPrinter} prints by default. */
+    public static ReceiptData of(String recipe, int qty, PricingService.PricingResult pr, int taxPercent) {
+        List<Row> rows = new ArrayList<>(3);
+        rows.add(new Row("Subtotal:", pr.subtotal().toString()));
+        if (pr.discount().asBigDecimal().signum() > 0)
+            rows.add(new Row("Discount:", "-" + pr.discount()));
+        rows.add(new Row("Tax (" + taxPercent + "%):", pr.tax().toString()));
+        return new ReceiptData("Order (" + recipe + ") x" + qty, rows, new Row("Total:", pr.total().toString()));
+    }
+
+    /** Plain text, one row per line as {@code "label value"}; no trailing newline. */
+    public String toText() {
+        StringBuilder sb = new StringBuilder(title);
+        for (Row row : rows) {
+            sb.append('\n').append(row.label()).append(' ').append(row.value());
+        }
+        return sb.append('\n').append(total.label()).append(' ').append(total.value()).toString();
+    }
+}
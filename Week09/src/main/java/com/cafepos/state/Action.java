@@ -0,0 +1,6 @@
+package com.cafepos.state;
+
+/** The events an {@link OrderFSM} responds to. */
+public enum Action {
+    PAY, PREPARE, MARK_READY, DELIVER, CANCEL
+}
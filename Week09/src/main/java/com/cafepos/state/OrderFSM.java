@@ -1,41 +1,62 @@
 package com.cafepos.state;
 
+/**
+ * An order's lifecycle. Holds only the current {@link State} constant and a listener
+ * reference; moves are looked up in the shared {@link TransitionTable}, so stepping
+ * allocates nothing. The default listener prints to the console as before; pass
+ * {@link TransitionListener#NONE} to track orders silently.
+ * <p>
+ * Not thread-safe.
+ */
 public final class OrderFSM {
-    private State currentState;
+    private State state = State.NEW;
+    private final TransitionListener listener;
 
     public OrderFSM() {
-        this.currentState = new NewState();
+        this(TransitionListener.CONSOLE);
+    }
+
+    public OrderFSM(TransitionListener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("listener required");
+        this.listener = listener;
     }
 
     public void pay() {
-        currentState.pay(this);
+        apply(Action.PAY);
     }
 
     public void prepare() {
-        currentState.prepare(this);
+        apply(Action.PREPARE);
     }
 
     public void markReady() {
-        currentState.markReady(this);
+        apply(Action.MARK_READY);
     }
 
     public void deliver() {
-        currentState.deliver(this);
+        apply(Action.DELIVER);
     }
 
     public void cancel() {
-        currentState.cancel(this);
+        apply(Action.CANCEL);
     }
 
-    public String status() {
-        return currentState.name();
+    /** Applies {@code action} and returns whether the table allowed it. */
+    public boolean apply(Action action) {
+        if (action == null)
+            throw new IllegalArgumentException("action required");
+        Transition t = TransitionTable.lookup(state, action);
+        state = t.to();
+        listener.onTransition(this, t);
+        return t.accepted();
     }
 
-    void setState(State state) {
-        if (state == null)
-            throw new IllegalArgumentException("state required");
-        this.currentState = state;
+    public State state() {
+        return state;
     }
-}
-
 
+    public String status() {
+        return state.name();
+    }
+}
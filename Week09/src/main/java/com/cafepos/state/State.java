@@ -1,12 +1,11 @@
 package com.cafepos.state;
 
-public interface State {
-    void pay(OrderFSM context);
-    void prepare(OrderFSM context);
-    void markReady(OrderFSM context);
-    void deliver(OrderFSM context);
-    void cancel(OrderFSM context);
-    String name();
-}
-
+/** Lifecycle states of an order. Each constant is a shared, immutable instance. */
+public enum State {
+    NEW, PREPARING, READY, DELIVERED, CANCELLED;
 
+    /** True once no action can move the order any further. */
+    public boolean isTerminal() {
+        return this == DELIVERED || this == CANCELLED;
+    }
+}
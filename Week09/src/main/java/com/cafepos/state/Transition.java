@@ -0,0 +1,12 @@
+package com.cafepos.state;
+
+/**
+ * One cell of the {@link TransitionTable}: what {@code action} does in state
+ * {@code from}. Rejected actions are cells too, with {@code to == from} and
+ * {@code accepted == false}. Instances are built once and shared, so reporting a
+ * transition allocates nothing.
+ *
+ * @param message the line the console listener prints, e.g. {@code "[NEW] Order cancelled."}
+ */
+public record Transition(State from, Action action, State to, boolean accepted, String message) {
+}
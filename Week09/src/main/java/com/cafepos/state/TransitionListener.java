@@ -0,0 +1,22 @@
+package com.cafepos.state;
+
+/** Observes every action applied to an {@link OrderFSM}, accepted or rejected. */
+@FunctionalInterface
+public interface TransitionListener {
+    /** Prints each transition's message to {@code System.out}, as the original states did. */
+    TransitionListener CONSOLE = (order, t) -> System.out.println(t.message());
+
+    TransitionListener NONE = (order, t) -> {
+    };
+
+    void onTransition(OrderFSM order, Transition transition);
+
+    default TransitionListener andThen(TransitionListener next) {
+        if (next == null)
+            throw new IllegalArgumentException("listener required");
+        return (order, t) -> {
+            onTransition(order, t);
+            next.onTransition(order, t);
+        };
+    }
+}
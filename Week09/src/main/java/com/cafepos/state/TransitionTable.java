@@ -0,0 +1,69 @@
+package com.cafepos.state;
+
+/**
+ * The order lifecycle as a {@code State x Action} table, built once at class load.
+ * Looking up the next state is two array indexes; see {@code state_transition_table.txt}.
+ */
+public final class TransitionTable {
+    private static final Transition[][] CELLS = new Transition[State.values().length][Action.values().length];
+
+    static {
+        allow(State.NEW, Action.PAY, State.PREPARING, "Payment received. Moving to PREPARING.");
+        reject(State.NEW, Action.PREPARE, "Cannot prepare - payment required first.");
+        reject(State.NEW, Action.MARK_READY, "Cannot mark ready - order not prepared yet.");
+        reject(State.NEW, Action.DELIVER, "Cannot deliver - order not ready yet.");
+        allow(State.NEW, Action.CANCEL, State.CANCELLED, "Order cancelled.");
+
+        reject(State.PREPARING, Action.PAY, "Payment already received.");
+        reject(State.PREPARING, Action.PREPARE, "Already preparing.");
+        allow(State.PREPARING, Action.MARK_READY, State.READY, "Order ready. Moving to READY.");
+        reject(State.PREPARING, Action.DELIVER, "Cannot deliver - order not ready yet.");
+        allow(State.PREPARING, Action.CANCEL, State.CANCELLED, "Order cancelled.");
+
+        reject(State.READY, Action.PAY, "Payment already received.");
+        reject(State.READY, Action.PREPARE, "Already prepared.");
+        reject(State.READY, Action.MARK_READY, "Already ready.");
+        allow(State.READY, Action.DELIVER, State.DELIVERED, "Order delivered. Moving to DELIVERED.");
+        allow(State.READY, Action.CANCEL, State.CANCELLED, "Order cancelled.");
+
+        reject(State.DELIVERED, Action.PAY, "Order already delivered. Payment already received.");
+        reject(State.DELIVERED, Action.PREPARE, "Order already delivered.");
+        reject(State.DELIVERED, Action.MARK_READY, "Order already delivered.");
+        reject(State.DELIVERED, Action.DELIVER, "Order already delivered.");
+        reject(State.DELIVERED, Action.CANCEL, "Cannot cancel - order already delivered.");
+
+        reject(State.CANCELLED, Action.PAY, "Cannot pay - order is cancelled.");
+        reject(State.CANCELLED, Action.PREPARE, "Cannot prepare - order is cancelled.");
+        reject(State.CANCELLED, Action.MARK_READY, "Cannot mark ready - order is cancelled.");
+        reject(State.CANCELLED, Action.DELIVER, "Cannot deliver - order is cancelled.");
+        reject(State.CANCELLED, Action.CANCEL, "Order already cancelled.");
+
+        for (State s : State.values()) {
+            for (Action a : Action.values()) {
+                if (CELLS[s.ordinal()][a.ordinal()] == null)
+                    throw new IllegalStateException("no transition for " + s + " x " + a);
+            }
+        }
+    }
+
+    private TransitionTable() {
+    }
+
+    public static Transition lookup(State from, Action action) {
+        return CELLS[from.ordinal()][action.ordinal()];
+    }
+
+    public static State next(State from, Action action) {
+        return CELLS[from.ordinal()][action.ordinal()].to();
+    }
+
+    private static void allow(State from, Action action, State to, String message) {
+        CELLS[from.ordinal()][action.ordinal()] =
+                new Transition(from, action, to, true, "[" + from + "] " + message);
+    }
+
+    private static void reject(State from, Action action, String message) {
+        CELLS[from.ordinal()][action.ordinal()] =
+                new Transition(from, action, from, false, "[" + from + "] " + message);
+    }
+}
@@ -432,6 +432,178 @@ public class MenuTests {
         });
     }
 
+    private Menu sampleMenu() {
+        Menu root = new Menu("CAFÉ MENU");
+        Menu drinks = new Menu("Drinks");
+        Menu coffee = new Menu("Coffee");
+        coffee.add(new MenuItem("Espresso", Money.of(2.50), true));
+        coffee.add(new MenuItem("Latte", Money.of(3.20), true));
+        coffee.add(new MenuItem("Long Black", Money.of(2.80), true));
+        drinks.add(coffee);
+        Menu desserts = new Menu("Desserts");
+        desserts.add(new MenuItem("Cake", Money.of(4.50), true));
+        desserts.add(new MenuItem("Cheesecake", Money.of(4.00), false));
+        root.add(drinks);
+        root.add(desserts);
+        return root;
+    }
+
+    private List<String> names(List<MenuItem> items) {
+        List<String> result = new ArrayList<>();
+        for (MenuItem item : items) {
+            result.add(item.name());
+        }
+        return result;
+    }
+
+    @Test
+    public void menu_flatViews_areCachedUntilChanged() {
+        Menu root = sampleMenu();
+        List<MenuComponent> first = root.getAllComponents();
+        Assertions.assertSame(first, root.getAllComponents());
+        Assertions.assertSame(root.vegetarianItems(), root.vegetarianItems());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> first.add(new Menu("X")));
+    }
+
+    @Test
+    public void menu_changeInNestedMenu_invalidatesAncestors() {
+        Menu root = new Menu("CAFÉ MENU");
+        Menu drinks = new Menu("Drinks");
+        Menu tea = new Menu("Tea");
+        drinks.add(tea);
+        root.add(drinks);
+        Assertions.assertEquals(0, root.vegetarianItems().size());
+
+        MenuItem greenTea = new MenuItem("Green Tea", Money.of(2.20), true);
+        tea.add(greenTea);
+        Assertions.assertEquals(List.of(greenTea), root.vegetarianItems());
+        Assertions.assertEquals(List.of(greenTea), drinks.vegetarianItems());
+
+        root.remove(drinks);
+        Assertions.assertTrue(root.getAllComponents().isEmpty());
+        tea.remove(greenTea);
+        Assertions.assertTrue(drinks.vegetarianItems().isEmpty());
+    }
+
+    @Test
+    public void menu_itemsPricedBetween_isInclusiveAndSortedByPrice() {
+        Menu root = sampleMenu();
+        Assertions.assertEquals(List.of("Espresso", "Long Black", "Latte"),
+                names(root.itemsPricedBetween(Money.of(2.50), Money.of(3.20))));
+        Assertions.assertEquals(List.of("Cheesecake", "Cake"),
+                names(root.itemsPricedBetween(Money.of(4.00), Money.of(100))));
+        Assertions.assertTrue(root.itemsPricedBetween(Money.of(5), Money.of(1)).isEmpty());
+    }
+
+    @Test
+    public void menu_itemsStartingWith_ignoresCase() {
+        Menu root = sampleMenu();
+        Assertions.assertEquals(List.of("Latte", "Long Black"), names(root.itemsStartingWith("l")));
+        Assertions.assertEquals(List.of("Cake", "Cheesecake"), names(root.itemsStartingWith("C")));
+        Assertions.assertEquals(5, root.itemsStartingWith("").size());
+        Assertions.assertTrue(root.itemsStartingWith("Mocha").isEmpty());
+    }
+
+    @Test
+    public void menu_cannotContainItself() {
+        Menu root = new Menu("CAFÉ MENU");
+        Menu drinks = new Menu("Drinks");
+        root.add(drinks);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> root.add(root));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> drinks.add(root));
+    }
+
+    @Test
+    public void menu_deepChainBuildsAndInvalidatesWithoutRecursion() {
+        Menu root = new Menu("Root");
+        Menu current = root;
+        for (int i = 0; i < 50_000; i++) {
+            Menu next = new Menu("Level " + i);
+            current.add(next);
+            current = next;
+        }
+        current.add(new MenuItem("Espresso", Money.of(2.50), true));
+        Assertions.assertEquals(1, current.getAllComponents().size());
+        Menu deepest = current;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> deepest.add(root));
+
+        Menu top = new Menu("Top");
+        Menu middle = new Menu("Middle");
+        Menu leaf = new Menu("Leaf");
+        top.add(middle);
+        middle.add(leaf);
+        Assertions.assertEquals(2, top.getAllComponents().size());
+        leaf.add(new MenuItem("Latte", Money.of(3.20), true));
+        Assertions.assertEquals(3, top.getAllComponents().size());
+        Assertions.assertEquals(1, top.vegetarianItems().size());
+    }
+
+    @Test
+    public void compositeIterator_handlesDeepAndEmptyMenusWithoutRecursion() {
+        Menu root = new Menu("Root");
+        Menu current = root;
+        for (int i = 0; i < 50_000; i++) {
+            Menu next = new Menu("Level " + i);
+            current.add(next);
+            current = next;
+        }
+        for (int i = 0; i < 50_000; i++) {
+            root.add(new Menu("Empty " + i));
+        }
+        root.add(new MenuItem("Espresso", Money.of(2.50), true));
+
+        int count = 0;
+        MenuComponent last = null;
+        for (MenuComponent component : root) {
+            count++;
+            last = component;
+        }
+        Assertions.assertEquals(100_001, count);
+        Assertions.assertEquals("Espresso", last.name());
+    }
+
+    @Test
+    public void menu_stream_matchesIteratorOrder() {
+        Menu root = sampleMenu();
+        List<MenuComponent> expected = new ArrayList<>();
+        for (MenuComponent component : root) {
+            expected.add(component);
+        }
+        Assertions.assertEquals(expected, root.stream().toList());
+        Assertions.assertEquals(expected, root.parallelStream().toList());
+    }
+
+    @Test
+    public void menu_spliterator_splitsIntoOrderedHalves() {
+        Menu root = new Menu("Root");
+        for (int s = 0; s < 10; s++) {
+            Menu section = new Menu("Section " + s);
+            for (int i = 0; i < 10; i++) {
+                section.add(new MenuItem("Item " + s + "." + i, Money.of(1), i % 2 == 0));
+            }
+            root.add(section);
+        }
+        List<MenuComponent> expected = new ArrayList<>();
+        root.forEach(expected::add);
+
+        java.util.Spliterator<MenuComponent> rest = root.spliterator();
+        List<MenuComponent> walked = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            rest.tryAdvance(walked::add);
+        }
+        java.util.Spliterator<MenuComponent> prefix = rest.trySplit();
+        Assertions.assertNotNull(prefix);
+        java.util.Spliterator<MenuComponent> prefixOfRest = rest.trySplit();
+        Assertions.assertNotNull(prefixOfRest);
+        prefix.forEachRemaining(walked::add);
+        prefixOfRest.forEachRemaining(walked::add);
+        rest.forEachRemaining(walked::add);
+
+        Assertions.assertEquals(expected, walked);
+        Assertions.assertEquals(50, root.parallelStream()
+                .filter(c -> c instanceof MenuItem item && item.vegetarian()).count());
+    }
+
     private int countChildren(Menu menu) {
         int count = 0;
         Iterator<MenuComponent> iterator = menu.childrenIterator();
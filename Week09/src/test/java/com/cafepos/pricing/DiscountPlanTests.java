@@ -0,0 +1,109 @@
+package com.cafepos.pricing;
+
+import com.cafepos.DiscountPolicyFactory;
+import com.cafepos.catalog.SimpleProduct;
+import com.cafepos.checkout.CheckoutService;
+import com.cafepos.common.Money;
+import com.cafepos.factory.ProductFactory;
+import com.cafepos.order.LineItem;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DiscountPlanTests {
+
+    private static final SimpleProduct ESPRESSO = new SimpleProduct("P-ESP", "Espresso", Money.of(2.50));
+    private static final SimpleProduct LATTE = new SimpleProduct("P-LAT", "Latte", Money.of(3.20));
+
+    private static final List<LineItem> ORDER = List.of(new LineItem(ESPRESSO, 2), new LineItem(LATTE, 1));
+
+    @Test
+    public void factory_codes_match_original_policies() {
+        for (double s : new double[] {0.0, 0.5, 0.99, 1.0, 3.33, 8.40, 123.45}) {
+            Money subtotal = Money.of(s);
+            Assertions.assertEquals(new LoyaltyPercentDiscount(5).discountOf(subtotal),
+                    DiscountPolicyFactory.createDiscountPolicy("loyal5").discountOf(subtotal));
+            Assertions.assertEquals(new FixedCouponDiscount(Money.of(1.00)).discountOf(subtotal),
+                    DiscountPolicyFactory.createDiscountPolicy("COUPON1").discountOf(subtotal));
+            Assertions.assertEquals(Money.zero(), DiscountPolicyFactory.createDiscountPolicy(null).discountOf(subtotal));
+            Assertions.assertEquals(Money.zero(), DiscountPolicyFactory.createDiscountPolicy("BOGUS").discountOf(subtotal));
+        }
+    }
+
+    @Test
+    public void stacked_rules_add_up() {
+        DiscountPlan plan = DiscountPlan.compile(
+                DiscountRule.linePercent("P-ESP", 10),
+                DiscountRule.linePercent("P-ESP", 10),
+                DiscountRule.orderPercent(5),
+                DiscountRule.orderAmount(Money.of(0.50)));
+        // 20% of 5.00 espresso + 5% of 8.20 (0.41) + 0.50
+        Assertions.assertEquals(Money.of(1.91), plan.discountOf(ORDER));
+        // no lines: only the order rules apply
+        Assertions.assertEquals(Money.of(0.91), plan.discountOf(Money.of(8.20)));
+        Assertions.assertEquals(4, plan.ruleCount());
+    }
+
+    @Test
+    public void line_promotions_reach_pricing_and_checkout() {
+        DiscountPlan plan = DiscountPlan.compile(DiscountRule.linePercent("P-ESP", 20));
+        PricingService pricing = new PricingService(plan, new FixedRateTaxPolicy(10));
+
+        PricingService.PricingResult pr = pricing.price(ORDER);
+        Assertions.assertEquals(Money.of(8.20), pr.subtotal());
+        Assertions.assertEquals(Money.of(1.00), pr.discount());
+        Assertions.assertEquals(Money.of(0.72), pr.tax());
+        Assertions.assertEquals(Money.of(7.92), pr.total());
+        // policies without line rules price the lines by their subtotal
+        Assertions.assertEquals(Money.of(0.41), new LoyaltyPercentDiscount(5).discountOf(ORDER, Money.of(8.20)));
+
+        CheckoutService checkout = new CheckoutService(new ProductFactory(), pricing, new ReceiptPrinter(),
+                total -> { }, 10);
+        Assertions.assertTrue(checkout.checkout("ESP+SHOT", 2).contains("Discount: -1.32"));
+    }
+
+    @Test
+    public void order_rules_apply_from_their_minimum_subtotal() {
+        DiscountPlan plan = DiscountPlan.compile(
+                DiscountRule.orderPercent(10, Money.of(20)),
+                DiscountRule.orderAmount(Money.of(1), Money.of(10)),
+                DiscountRule.orderAmount(Money.of(2), Money.of(20)));
+        Assertions.assertEquals(Money.zero(), plan.discountOf(Money.of(9.99)));
+        Assertions.assertEquals(Money.of(1), plan.discountOf(Money.of(10)));
+        Assertions.assertEquals(Money.of(5), plan.discountOf(Money.of(20)));
+    }
+
+    @Test
+    public void best_of_and_cap_limit_the_discount() {
+        DiscountPlan best = DiscountPlan.compile(DiscountRule.bestOf(
+                DiscountRule.orderPercent(10),
+                DiscountRule.orderAmount(Money.of(1)),
+                DiscountRule.linePercent("P-LAT", 50)));
+        Assertions.assertEquals(Money.of(1.60), best.discountOf(ORDER));
+
+        DiscountPlan capped = DiscountPlan.compile(
+                DiscountRule.capped(Money.of(1), DiscountRule.orderPercent(10), DiscountRule.orderAmount(Money.of(0.50))),
+                DiscountRule.orderAmount(Money.of(0.25)));
+        Assertions.assertEquals(Money.of(1.25), capped.discountOf(ORDER));
+    }
+
+    @Test
+    public void discount_never_exceeds_subtotal() {
+        DiscountPlan plan = DiscountPlan.compile(
+                DiscountRule.orderPercent(80),
+                DiscountRule.orderPercent(80),
+                DiscountRule.orderAmount(Money.of(100)),
+                DiscountRule.bestOf(DiscountRule.orderAmount(Money.of(3))));
+        Assertions.assertEquals(Money.of(8.20), plan.discountOf(ORDER));
+        PricingService.PricingResult pr = new PricingService(plan, new FixedRateTaxPolicy(10)).price(Money.of(8.20));
+        Assertions.assertEquals(Money.zero(), pr.total());
+    }
+
+    @Test
+    public void invalid_rules_are_rejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DiscountRule.orderPercent(101));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DiscountRule.linePercent(" ", 5));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DiscountRule.bestOf());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DiscountPolicyFactory.register("", List.of()));
+    }
+}
@@ -0,0 +1,144 @@
+package com.cafepos.pricing;
+
+import com.cafepos.DiscountPolicyFactory;
+import com.cafepos.catalog.SimpleProduct;
+import com.cafepos.checkout.CheckoutService;
+import com.cafepos.common.Money;
+import com.cafepos.factory.ProductFactory;
+import com.cafepos.order.LineItem;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PromotionCatalogTests {
+
+    @TempDir
+    Path dir;
+
+    private Path write(String name, String... lines) throws IOException {
+        return Files.write(dir.resolve(name), List.of(lines));
+    }
+
+    /** Writes next to {@code target} and moves the file into place, as an editor or deploy would. */
+    private void replace(Path target, String... lines) throws IOException {
+        Path tmp = write(target.getFileName() + ".tmp", lines);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Test
+    public void loads_codes_case_insensitively() throws Exception {
+        Path file = write("promotions.csv",
+                "# code,rule,arguments",
+                "loyal5, order-percent, 5",
+                "",
+                "LATTE20,line-percent,P-LAT,20",
+                "LATTE20,order-amount,0.10");
+        try (PromotionCatalog catalog = new PromotionCatalog(file)) {
+            Assertions.assertEquals(Set.of("LOYAL5", "LATTE20"), catalog.codes());
+            Assertions.assertEquals(1, catalog.version());
+            Assertions.assertEquals(Money.of(0.50), catalog.planFor("Loyal5").discountOf(Money.of(10.00)));
+            List<LineItem> order = List.of(new LineItem(new SimpleProduct("P-LAT", "Latte", Money.of(3.20)), 2));
+            // 20% of 6.40 plus 0.10
+            Assertions.assertEquals(Money.of(1.38), catalog.planFor("latte20").discountOf(order));
+            Assertions.assertNull(catalog.planFor("BOGUS"));
+            Assertions.assertNull(catalog.planFor(null));
+        }
+    }
+
+    @Test
+    public void minimum_subtotal_and_cap() throws Exception {
+        Path file = write("promotions.csv",
+                "BIG10,order-percent,10,20.00",
+                "BIG10,cap,3.00");
+        try (PromotionCatalog catalog = new PromotionCatalog(file)) {
+            DiscountPlan plan = catalog.planFor("BIG10");
+            Assertions.assertEquals(Money.zero(), plan.discountOf(Money.of(19.99)));
+            Assertions.assertEquals(Money.of(2.50), plan.discountOf(Money.of(25.00)));
+            Assertions.assertEquals(Money.of(3.00), plan.discountOf(Money.of(50.00)));
+        }
+    }
+
+    @Test
+    public void invalid_lines_are_reported_with_their_number() {
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> PromotionCatalog.parse(List.of("A,order-percent,5", "B,half-off")));
+        Assertions.assertTrue(e.getMessage().startsWith("line 2:"), e.getMessage());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PromotionCatalog.parse(List.of("A,order-percent,150")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PromotionCatalog.parse(List.of("A,order-amount,x")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PromotionCatalog.parse(List.of("A,line-percent,P-1")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PromotionCatalog.parse(List.of("A,cap,1.00")));
+    }
+
+    @Test
+    public void failed_reload_keeps_the_previous_promotions() throws Exception {
+        Path file = write("promotions.csv", "LOYAL5,order-percent,5");
+        try (PromotionCatalog catalog = new PromotionCatalog(file)) {
+            write("promotions.csv", "LOYAL5,order-percent");
+            Assertions.assertFalse(catalog.reload());
+            Assertions.assertEquals(1, catalog.version());
+            Assertions.assertEquals(1, catalog.failedReloads());
+            Assertions.assertTrue(catalog.lastFailure().orElseThrow().getMessage().startsWith("line 1:"));
+            Assertions.assertEquals(Money.of(0.50), catalog.planFor("LOYAL5").discountOf(Money.of(10.00)));
+
+            write("promotions.csv", "LOYAL5,order-percent,10");
+            Assertions.assertTrue(catalog.reload());
+            Assertions.assertEquals(2, catalog.version());
+            Assertions.assertEquals(Money.of(1.00), catalog.planFor("LOYAL5").discountOf(Money.of(10.00)));
+        }
+    }
+
+    @Test
+    public void watcher_publishes_a_replaced_file() throws Exception {
+        Path file = write("promotions.csv", "LOYAL5,order-percent,5");
+        write("other.csv", "IGNORED,order-percent,5");
+        try (PromotionCatalog catalog = new PromotionCatalog(file)) {
+            catalog.start();
+            write("other.csv", "IGNORED,order-percent,50");
+            replace(file, "LOYAL5,order-percent,5", "HAPPY,order-amount,1.00");
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (catalog.planFor("HAPPY") == null && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            Assertions.assertEquals(Money.of(1.00), catalog.planFor("HAPPY").discountOf(Money.of(4.00)));
+            Assertions.assertEquals(2, catalog.version());
+        }
+    }
+
+    @Test
+    public void factory_prefers_catalog_codes() throws Exception {
+        Path file = write("promotions.csv", "LOYAL5,order-percent,7", "NEWCODE,order-amount,2.00");
+        try (PromotionCatalog catalog = new PromotionCatalog(file)) {
+            DiscountPolicyFactory.useCatalog(catalog);
+            Assertions.assertEquals(Money.of(0.70), DiscountPolicyFactory.createDiscountPolicy("loyal5").discountOf(Money.of(10.00)));
+            Assertions.assertEquals(Money.of(2.00), DiscountPolicyFactory.createDiscountPolicy("NEWCODE").discountOf(Money.of(10.00)));
+            Assertions.assertEquals(Money.of(1.00), DiscountPolicyFactory.createDiscountPolicy("COUPON1").discountOf(Money.of(10.00)));
+        } finally {
+            DiscountPolicyFactory.useCatalog(null);
+        }
+        Assertions.assertEquals(Money.of(0.50), DiscountPolicyFactory.createDiscountPolicy("LOYAL5").discountOf(Money.of(10.00)));
+    }
+
+    @Test
+    public void line_percent_codes_discount_at_checkout() throws Exception {
+        Path file = write("promotions.csv", "LATTE20,line-percent,P-LAT,20");
+        try (PromotionCatalog catalog = new PromotionCatalog(file)) {
+            DiscountPolicyFactory.useCatalog(catalog);
+            PricingService pricing = new PricingService(DiscountPolicyFactory.createDiscountPolicy("latte20"),
+                    new FixedRateTaxPolicy(10));
+            CheckoutService checkout = new CheckoutService(new ProductFactory(), pricing, new ReceiptPrinter(),
+                    total -> { }, 10);
+
+            // 20% of two lattes at 3.20
+            Assertions.assertTrue(checkout.checkout("LAT", 2).contains("Discount: -1.28"));
+            Assertions.assertFalse(checkout.checkout("ESP", 2).contains("Discount"));
+        } finally {
+            DiscountPolicyFactory.useCatalog(null);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.cafepos.pricing;
+
+import com.cafepos.common.Money;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ReceiptTemplateTests {
+
+    private static final PricingService.PricingResult NO_DISCOUNT =
+            new PricingService.PricingResult(Money.of(7.80), Money.zero(), Money.of(0.78), Money.of(8.58));
+    private static final PricingService.PricingResult DISCOUNTED =
+            new PricingService.PricingResult(Money.of(8.40), Money.of(0.42), Money.of(0.80), Money.of(8.78));
+
+    /** The StringBuilder rendering ReceiptPrinter used before templates. */
+    private static String reference(String recipe, int qty, PricingService.PricingResult pr, int taxPercent) {
+        StringBuilder receipt = new StringBuilder();
+        receipt.append("Order (").append(recipe).append(") x").append(qty).append("\n");
+        receipt.append("Subtotal: ").append(pr.subtotal()).append("\n");
+        if (pr.discount().asBigDecimal().signum() > 0) {
+            receipt.append("Discount: -").append(pr.discount()).append("\n");
+        }
+        receipt.append("Tax (").append(taxPercent).append("%): ").append(pr.tax()).append("\n");
+        receipt.append("Total: ").append(pr.total());
+        return receipt.toString();
+    }
+
+    @Test
+    public void default_template_matches_original_receipt() {
+        ReceiptPrinter printer = new ReceiptPrinter();
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(reference("LAT+L", 2, DISCOUNTED, 10), printer.format("LAT+L", 2, DISCOUNTED, 10));
+            Assertions.assertEquals(reference("ESP+SHOT+OAT", 1, NO_DISCOUNT, 0), printer.format("ESP+SHOT+OAT", 1, NO_DISCOUNT, 0));
+        }
+    }
+
+    @Test
+    public void caches_are_bounded() {
+        ReceiptTemplate template = ReceiptTemplate.builder().cacheCapacity(1).build();
+
+        for (int qty = 1; qty <= 5; qty++) {
+            Assertions.assertEquals(reference("CAP", qty, DISCOUNTED, 10), template.render("CAP", qty, DISCOUNTED, 10));
+        }
+
+        Assertions.assertEquals(2, template.cacheSize(), "One header and one amount at most");
+    }
+
+    @Test
+    public void custom_layout_is_rendered() {
+        ReceiptTemplate template = ReceiptTemplate.builder()
+                .header("{qty} x {recipe}")
+                .discount("You saved {discount}")
+                .total("PAY {total}")
+                .build();
+
+        Assertions.assertEquals("2 x LAT+L\nSubtotal: 8.40\nYou saved 0.42\nTax (10%): 0.80\nPAY 8.78",
+                new ReceiptPrinter(template).format("LAT+L", 2, DISCOUNTED, 10));
+    }
+
+    @Test
+    public void misplaced_placeholders_are_rejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ReceiptTemplate.builder().header("Order {total}").build());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ReceiptTemplate.builder().total("Total for {recipe}").build());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ReceiptTemplate.builder().tax("Tax {tax").build());
+    }
+}
@@ -4,6 +4,9 @@ import vendor.legacy.LegacyThermalPrinter;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Assertions;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 public class AdapterTests {
 
     @Test
@@ -38,13 +41,39 @@ public class AdapterTests {
         Assertions.assertTrue(fake.lastLen > 10, "Multi-line text should produce larger byte array");
     }
 
+    @Test
+    public void adapter_passes_encoded_bytes_through_unchanged() {
+        FakeLegacyPrinter fake = new FakeLegacyPrinter();
+        Printer p = new LegacyPrinterAdapter(fake);
+        byte[] receipt = "Order (LAT+L) x2\nCafé total: 8.58".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.allocateDirect(64);
+        buf.put(receipt).flip();
+
+        p.print(buf);
+
+        Assertions.assertArrayEquals(receipt, fake.lastPayload);
+        Assertions.assertFalse(buf.hasRemaining(), "Adapter should consume the buffer");
+    }
+
+    @Test
+    public void default_byte_print_decodes_to_text() {
+        StringBuilder printed = new StringBuilder();
+        Printer p = printed::append;
+
+        p.print(ByteBuffer.wrap("Total: 8.58 €".getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals("Total: 8.58 €", printed.toString());
+    }
+
     // Helper class to capture legacy printer calls
     static class FakeLegacyPrinter extends LegacyThermalPrinter {
         int lastLen = -1;
+        byte[] lastPayload;
         
         @Override
         public void legacyPrint(byte[] payload) {
             lastLen = payload.length;
+            lastPayload = payload;
         }
     }
 }
@@ -0,0 +1,110 @@
+package com.cafepos.printing;
+
+import com.cafepos.common.Money;
+import com.cafepos.pricing.PricingService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class EscPosTests {
+
+    private static final PricingService.PricingResult PRICED =
+            new PricingService.PricingResult(Money.of(8.40), Money.of(0.42), Money.of(0.80), Money.of(8.78));
+
+    private static byte[] bytes(int... values) {
+        byte[] b = new byte[values.length];
+        for (int i = 0; i < values.length; i++)
+            b[i] = (byte) values[i];
+        return b;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void encodes_receipt_byte_for_byte() {
+        FakePrinterSink sink = new FakePrinterSink();
+        Printer printer = new EscPosPrinter(sink, new EscPosEncoder(CodePage.PC858, 20), new DirectBufferPool(256, 2));
+
+        printer.print(ReceiptData.of("LAT+L", 2, PRICED, 10));
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.writeBytes(bytes(0x1B, '@', 0x1B, 't', 19));
+        expected.writeBytes(bytes(0x1B, 'a', 1, 0x1B, 'E', 1));
+        expected.writeBytes(ascii("Order (LAT+L) x2\n"));
+        expected.writeBytes(bytes(0x1B, 'E', 0, 0x1B, 'a', 0));
+        expected.writeBytes(ascii("Subtotal:       8.40\n"));
+        expected.writeBytes(ascii("Discount:      -0.42\n"));
+        expected.writeBytes(ascii("Tax (10%):      0.80\n"));
+        expected.writeBytes(bytes(0x1B, 'E', 1));
+        expected.writeBytes(ascii("Total:          8.78\n"));
+        expected.writeBytes(bytes(0x1B, 'E', 0, 0x1B, 'd', 3, 0x1D, 'V', 1));
+        Assertions.assertArrayEquals(expected.toByteArray(), sink.lastJob());
+    }
+
+    @Test
+    public void encoded_size_is_exact() {
+        EscPosEncoder encoder = new EscPosEncoder(CodePage.PC437, EscPosEncoder.COLUMNS_58MM);
+        ReceiptData receipt = ReceiptData.of("CAP+SHOT+OAT", 3, PRICED, 10);
+        ByteBuffer buf = ByteBuffer.allocate(512);
+
+        int written = encoder.encode(receipt, buf);
+
+        Assertions.assertEquals(encoder.encodedSize(receipt), written);
+        Assertions.assertEquals(written, buf.position());
+    }
+
+    @Test
+    public void long_labels_are_cut_to_keep_values_aligned() {
+        FakePrinterSink sink = new FakePrinterSink();
+        Printer printer = new EscPosPrinter(sink, new EscPosEncoder(CodePage.PC437, 12), new DirectBufferPool(256, 1));
+
+        printer.print(new ReceiptData("T", List.of(new ReceiptData.Row("A very long label", "12.34")),
+                new ReceiptData.Row("Total:", "12.34")));
+
+        String printed = new String(sink.lastJob(), StandardCharsets.ISO_8859_1);
+        Assertions.assertTrue(printed.contains("A very 12.34\n"), printed);
+        Assertions.assertTrue(printed.contains("Total: 12.34\n"), printed);
+    }
+
+    @Test
+    public void maps_text_to_code_page() {
+        Assertions.assertEquals((byte) 0xD5, CodePage.PC858.encode('€'));
+        Assertions.assertEquals((byte) 0x80, CodePage.WPC1252.encode('€'));
+        Assertions.assertEquals((byte) 0x82, CodePage.PC437.encode('é'));
+        Assertions.assertEquals((byte) '?', CodePage.PC437.encode('€'));
+        Assertions.assertEquals((byte) '?', CodePage.PC437.encode('\t'));
+        Assertions.assertEquals((byte) 'A', CodePage.PC437.encode('A'));
+    }
+
+    @Test
+    public void reuses_pooled_buffers() {
+        DirectBufferPool pool = new DirectBufferPool(256, 2);
+        FakePrinterSink sink = new FakePrinterSink(false);
+        Printer printer = new EscPosPrinter(sink, new EscPosEncoder(CodePage.PC858, EscPosEncoder.COLUMNS_80MM), pool);
+        ReceiptData receipt = ReceiptData.of("ESP", 1, PRICED, 10);
+
+        for (int i = 0; i < 100; i++)
+            printer.print(receipt);
+
+        Assertions.assertEquals(1, pool.allocations());
+        Assertions.assertEquals(100, sink.jobs());
+        Assertions.assertEquals(new EscPosEncoder(CodePage.PC858, EscPosEncoder.COLUMNS_80MM).encodedSize(receipt),
+                sink.bytesPerJob(), 0.0);
+    }
+
+    @Test
+    public void text_printers_get_the_original_receipt_text() {
+        StringBuilder printed = new StringBuilder();
+        Printer p = printed::append;
+
+        p.print(ReceiptData.of("LAT+L", 2, PRICED, 10));
+
+        Assertions.assertEquals(new com.cafepos.pricing.ReceiptPrinter().format("LAT+L", 2, PRICED, 10), printed.toString());
+    }
+}
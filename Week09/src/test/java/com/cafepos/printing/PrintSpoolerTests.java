@@ -0,0 +1,308 @@
+package com.cafepos.printing;
+
+import com.cafepos.checkout.CheckoutService;
+import com.cafepos.common.Money;
+import com.cafepos.factory.ProductFactory;
+import com.cafepos.pricing.FixedRateTaxPolicy;
+import com.cafepos.pricing.LoyaltyPercentDiscount;
+import com.cafepos.pricing.NoDiscount;
+import com.cafepos.pricing.PricingService;
+import com.cafepos.pricing.ReceiptPrinter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PrintSpoolerTests {
+
+    private static ReceiptData receipt(int n) {
+        return new ReceiptData("Order #" + n, List.of(), new ReceiptData.Row("Total:", n + ".00"));
+    }
+
+    /** Blocks every print until released, recording what it was handed. */
+    static class GatedPrinter implements Printer {
+        final CountDownLatch gate = new CountDownLatch(1);
+        final List<String> printed = new CopyOnWriteArrayList<>();
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void print(String receiptText) {
+            await();
+            printed.add(receiptText);
+        }
+
+        @Override
+        public void printAll(List<ReceiptData> receipts) {
+            await();
+            batchSizes.add(receipts.size());
+            receipts.forEach(r -> printed.add(r.title()));
+        }
+
+        @Override
+        public void print(ReceiptData receipt) {
+            await();
+            batchSizes.add(1);
+            printed.add(receipt.title());
+        }
+
+        @Override
+        public boolean printAllIsAtomic() {
+            return true;
+        }
+
+        private void await() {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Test
+    public void print_returns_before_the_printer_finishes() throws Exception {
+        GatedPrinter slow = new GatedPrinter();
+        try (PrintSpooler spooler = new PrintSpooler(slow)) {
+            spooler.print("Order (ESP) x1");
+
+            Assertions.assertTrue(slow.printed.isEmpty(), "Job should still be waiting on the printer");
+            slow.gate.countDown();
+            Assertions.assertTrue(spooler.awaitIdle(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(List.of("Order (ESP) x1"), slow.printed);
+            Assertions.assertEquals(1, spooler.printed());
+            Assertions.assertTrue(spooler.p99LatencyNanos() > 0);
+        }
+    }
+
+    @Test
+    public void bursts_are_coalesced_into_batches_in_order() throws Exception {
+        GatedPrinter slow = new GatedPrinter();
+        try (PrintSpooler spooler = new PrintSpooler(slow, 64, 8, 1)) {
+            spooler.print(receipt(0));
+            Thread.sleep(50);
+            for (int i = 1; i <= 20; i++) {
+                spooler.print(receipt(i));
+            }
+            Assertions.assertTrue(spooler.queueDepth() >= 19, "Burst should queue up behind the first job");
+
+            slow.gate.countDown();
+            Assertions.assertTrue(spooler.awaitIdle(5, TimeUnit.SECONDS));
+
+            Assertions.assertEquals(21, slow.printed.size());
+            for (int i = 0; i <= 20; i++) {
+                Assertions.assertEquals("Order #" + i, slow.printed.get(i));
+            }
+            Assertions.assertEquals(21, slow.batchSizes.stream().mapToInt(Integer::intValue).sum());
+            Assertions.assertTrue(slow.batchSizes.stream().allMatch(n -> n <= 8));
+            Assertions.assertTrue(spooler.batches() >= 2);
+        }
+    }
+
+    @Test
+    public void batches_reach_escpos_as_one_device_write() throws Exception {
+        FakePrinterSink sink = new FakePrinterSink();
+        EscPosEncoder encoder = new EscPosEncoder(CodePage.PC858, 32);
+        GatedPrinter gate = new GatedPrinter();
+        EscPosPrinter escPos = new EscPosPrinter(sink, encoder, new DirectBufferPool(4096, 2));
+        Printer gatedEscPos = new Printer() {
+            @Override
+            public void print(String receiptText) {
+                escPos.print(receiptText);
+            }
+
+            @Override
+            public void print(ReceiptData receipt) {
+                gate.await();
+                escPos.print(receipt);
+            }
+
+            @Override
+            public void printAll(List<ReceiptData> receipts) {
+                gate.await();
+                escPos.printAll(receipts);
+            }
+
+            @Override
+            public boolean printAllIsAtomic() {
+                return escPos.printAllIsAtomic();
+            }
+        };
+        try (PrintSpooler spooler = new PrintSpooler(gatedEscPos, 16, 16, 1)) {
+            for (int i = 0; i < 5; i++) {
+                spooler.print(receipt(i));
+            }
+            gate.gate.countDown();
+            Assertions.assertTrue(spooler.awaitIdle(5, TimeUnit.SECONDS));
+        }
+
+        int expected = 0;
+        for (int i = 0; i < 5; i++) {
+            expected += encoder.encodedSize(receipt(i));
+        }
+        // the worker may take the first receipt before the rest are queued
+        Assertions.assertTrue(sink.jobs() <= 2, "Expected at most 2 device writes, got " + sink.jobs());
+        Assertions.assertEquals(expected, sink.bytes());
+    }
+
+    @Test
+    public void full_batches_reuse_the_default_pool_buffers() throws Exception {
+        FakePrinterSink sink = new FakePrinterSink();
+        CountDownLatch[] gate = {new CountDownLatch(1)};
+        EscPosPrinter escPos = new EscPosPrinter(bytes -> {
+            try {
+                gate[0].await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            sink.write(bytes);
+        });
+        PricingService pricing = new PricingService(new LoyaltyPercentDiscount(5), new FixedRateTaxPolicy(10));
+        ReceiptData receipt = ReceiptData.of("CAP+SHOT+OAT", 3, pricing.price(Money.of(14.70)), 10);
+        long warm = -1;
+        try (PrintSpooler spooler = new PrintSpooler(escPos)) {
+            for (int round = 0; round < 5; round++) {
+                gate[0] = new CountDownLatch(1);
+                // the first receipt holds the worker at the gate while the burst queues behind it
+                for (int i = 0; i <= PrintSpooler.DEFAULT_MAX_BATCH; i++) {
+                    spooler.print(receipt);
+                }
+                gate[0].countDown();
+                Assertions.assertTrue(spooler.awaitIdle(5, TimeUnit.SECONDS));
+                if (round == 0)
+                    warm = escPos.pool().allocations();
+            }
+            Assertions.assertTrue(spooler.batches() >= 5, "Expected full batches, got " + spooler.batches());
+        }
+        Assertions.assertEquals(warm, escPos.pool().allocations());
+        Assertions.assertEquals(5L * (PrintSpooler.DEFAULT_MAX_BATCH + 1), sink.bytes() / receiptSize(receipt));
+    }
+
+    private static int receiptSize(ReceiptData receipt) {
+        return new EscPosEncoder(CodePage.PC858, EscPosEncoder.COLUMNS_80MM).encodedSize(receipt);
+    }
+
+    @Test
+    public void failed_jobs_are_retried_then_dropped() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        List<String> printed = new CopyOnWriteArrayList<>();
+        Printer flaky = text -> {
+            if (text.startsWith("bad") || calls.incrementAndGet() == 1)
+                throw new IllegalStateException("paper jam");
+            printed.add(text);
+        };
+        try (PrintSpooler spooler = new PrintSpooler(flaky, 8, 8, 3)) {
+            spooler.print("good");
+            spooler.print("bad");
+            Assertions.assertTrue(spooler.awaitIdle(5, TimeUnit.SECONDS));
+
+            Assertions.assertEquals(List.of("good"), printed);
+            Assertions.assertEquals(1, spooler.printed());
+            Assertions.assertEquals(1, spooler.failed());
+            Assertions.assertEquals(3, spooler.retries());
+            Assertions.assertEquals("paper jam", spooler.lastFailure().orElseThrow().getMessage());
+        }
+    }
+
+    @Test
+    public void a_failed_receipt_is_retried_alone_when_batches_are_not_atomic() throws Exception {
+        GatedPrinter gate = new GatedPrinter();
+        AtomicInteger failures = new AtomicInteger();
+        List<String> printed = new CopyOnWriteArrayList<>();
+        Printer jamsOnce = new Printer() {
+            @Override
+            public void print(String receiptText) {
+                printed.add(receiptText);
+            }
+
+            @Override
+            public void print(ReceiptData receipt) {
+                gate.await();
+                if (receipt.title().equals("Order #2") && failures.getAndIncrement() == 0)
+                    throw new IllegalStateException("paper jam");
+                printed.add(receipt.title());
+            }
+        };
+        try (PrintSpooler spooler = new PrintSpooler(jamsOnce, 16, 16, 3)) {
+            for (int i = 0; i < 5; i++) {
+                spooler.print(receipt(i));
+            }
+            gate.gate.countDown();
+            Assertions.assertTrue(spooler.awaitIdle(5, TimeUnit.SECONDS));
+
+            Assertions.assertEquals(List.of("Order #0", "Order #1", "Order #2", "Order #3", "Order #4"), printed);
+            Assertions.assertEquals(5, spooler.printed());
+            Assertions.assertEquals(1, spooler.retries());
+            Assertions.assertEquals(0, spooler.batches());
+        }
+    }
+
+    @Test
+    public void close_prints_every_job_it_accepted_while_callers_race_it() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            List<String> printed = new CopyOnWriteArrayList<>();
+            PrintSpooler spooler = new PrintSpooler(printed::add, 1, 1, 1);
+            AtomicInteger accepted = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            Thread[] callers = new Thread[4];
+            for (int t = 0; t < callers.length; t++) {
+                callers[t] = new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < 20; i++) {
+                            spooler.print("job");
+                            accepted.incrementAndGet();
+                        }
+                    } catch (IllegalStateException | InterruptedException e) {
+                        // closed underneath us
+                    }
+                });
+                callers[t].start();
+            }
+            start.countDown();
+            spooler.close();
+            for (Thread caller : callers) {
+                caller.join(5000);
+                Assertions.assertFalse(caller.isAlive(), "A caller is stuck in print after close");
+            }
+
+            Assertions.assertEquals(accepted.get(), printed.size());
+            Assertions.assertTrue(spooler.awaitIdle(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void closed_spooler_drains_and_rejects_new_jobs() {
+        List<String> printed = new CopyOnWriteArrayList<>();
+        PrintSpooler spooler = new PrintSpooler(printed::add);
+        for (int i = 0; i < 10; i++) {
+            spooler.print("job " + i);
+        }
+
+        spooler.close();
+
+        Assertions.assertEquals(10, printed.size());
+        Assertions.assertThrows(IllegalStateException.class, () -> spooler.print("late"));
+    }
+
+    @Test
+    public void checkout_queues_the_receipt_and_returns() throws Exception {
+        GatedPrinter slow = new GatedPrinter();
+        try (PrintSpooler spooler = new PrintSpooler(slow)) {
+            CheckoutService checkout = new CheckoutService(new ProductFactory(),
+                    new PricingService(new NoDiscount(), new FixedRateTaxPolicy(10)),
+                    new ReceiptPrinter(), total -> { }, 10, spooler);
+
+            String receipt = checkout.checkout("LAT+L", 2);
+
+            Assertions.assertTrue(receipt.startsWith("Order (LAT+L) x2"));
+            Assertions.assertTrue(slow.printed.isEmpty());
+            slow.gate.countDown();
+            Assertions.assertTrue(spooler.awaitIdle(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(List.of("Order (LAT+L) x2"), slow.printed);
+        }
+    }
+}
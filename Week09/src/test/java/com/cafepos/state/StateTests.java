@@ -4,6 +4,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Assertions;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 
 public class StateTests {
 
@@ -373,4 +375,71 @@ public class StateTests {
         Assertions.assertEquals("PREPARING", order1.status());
         Assertions.assertEquals("READY", order2.status());
     }
+
+    @Test
+    public void listener_receivesAcceptedAndRejectedTransitions() {
+        List<Transition> seen = new ArrayList<>();
+        OrderFSM order = new OrderFSM((o, t) -> seen.add(t));
+
+        order.prepare();
+        order.pay();
+
+        Assertions.assertEquals(2, seen.size());
+        Assertions.assertFalse(seen.get(0).accepted());
+        Assertions.assertEquals(State.NEW, seen.get(0).to());
+        Assertions.assertTrue(seen.get(1).accepted());
+        Assertions.assertEquals(State.NEW, seen.get(1).from());
+        Assertions.assertEquals(State.PREPARING, seen.get(1).to());
+        Assertions.assertEquals("[NEW] Payment received. Moving to PREPARING.", seen.get(1).message());
+    }
+
+    @Test
+    public void silentListener_printsNothing() {
+        OrderFSM order = new OrderFSM(TransitionListener.NONE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(out));
+
+        order.pay();
+        order.markReady();
+        order.deliver();
+
+        System.setOut(originalOut);
+        Assertions.assertEquals("", out.toString());
+        Assertions.assertEquals(State.DELIVERED, order.state());
+    }
+
+    @Test
+    public void apply_reportsWhetherActionWasAllowed() {
+        OrderFSM order = new OrderFSM(TransitionListener.NONE);
+        Assertions.assertFalse(order.apply(Action.DELIVER));
+        Assertions.assertTrue(order.apply(Action.PAY));
+        Assertions.assertTrue(order.apply(Action.CANCEL));
+        Assertions.assertFalse(order.apply(Action.CANCEL));
+    }
+
+    @Test
+    public void transitionTable_sharesOneCellPerStateAndAction() {
+        Transition first = TransitionTable.lookup(State.READY, Action.DELIVER);
+        Assertions.assertSame(first, TransitionTable.lookup(State.READY, Action.DELIVER));
+        for (State s : State.values()) {
+            for (Action a : Action.values()) {
+                Transition t = TransitionTable.lookup(s, a);
+                Assertions.assertEquals(s, t.from());
+                Assertions.assertEquals(a, t.action());
+                Assertions.assertEquals(t.accepted(), t.to() != s);
+                if (s.isTerminal())
+                    Assertions.assertFalse(t.accepted());
+            }
+        }
+    }
+
+    @Test
+    public void listeners_chainInOrder() {
+        StringBuilder calls = new StringBuilder();
+        TransitionListener a = (o, t) -> calls.append('a');
+        OrderFSM order = new OrderFSM(a.andThen((o, t) -> calls.append('b')));
+        order.pay();
+        Assertions.assertEquals("ab", calls.toString());
+    }
 }
@@ -0,0 +1,43 @@
+package com.cafepos.bench;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Copy of the original BigDecimal-backed Money, kept only as a baseline for
+ * {@link MoneyBenchmark}.
+ */
+final class BigDecimalMoney {
+    private final BigDecimal amount;
+
+    static BigDecimalMoney of(double value) {
+        if (value < 0)
+            throw new IllegalArgumentException("amount cannot be negative");
+        return new BigDecimalMoney(BigDecimal.valueOf(value));
+    }
+
+    static BigDecimalMoney zero() {
+        return new BigDecimalMoney(BigDecimal.ZERO);
+    }
+
+    private BigDecimalMoney(BigDecimal a) {
+        this.amount = a.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    BigDecimalMoney add(BigDecimalMoney other) {
+        if (other == null)
+            throw new IllegalArgumentException("other money cannot be null");
+        return new BigDecimalMoney(this.amount.add(other.amount));
+    }
+
+    BigDecimalMoney multiply(int qty) {
+        if (qty < 0)
+            throw new IllegalArgumentException("quantity cannot be negative");
+        return new BigDecimalMoney(this.amount.multiply(BigDecimal.valueOf(qty)));
+    }
+
+    @Override
+    public String toString() {
+        return amount.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package com.cafepos.bench;
+
+import com.cafepos.common.Money;
+import com.cafepos.pricing.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repricing one million subtotals: a loop over {@link PricingService#price} vs.
+ * {@link PricingService#priceAll} into reused primitive arrays, with the built-in
+ * percent policies (integer fast path) and with lambda policies (called through
+ * {@code Money}). Scaling depends on the cores available to the common fork/join pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkPricingBenchmark {
+    private static final int ORDERS = 1_000_000;
+
+    private final PricingService percent = new PricingService(new LoyaltyPercentDiscount(5), new FixedRateTaxPolicy(10));
+    private final PricingService lambdas = new PricingService(
+            s -> Money.ofCents(s.cents() / 20), a -> Money.ofCents(a.cents() / 10));
+    private long[] subtotals;
+    private long[] discounts;
+    private long[] taxes;
+    private long[] totals;
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(1);
+        subtotals = new long[ORDERS];
+        for (int i = 0; i < ORDERS; i++)
+            subtotals[i] = 100 + rnd.nextInt(10_000);
+        discounts = new long[ORDERS];
+        taxes = new long[ORDERS];
+        totals = new long[ORDERS];
+    }
+
+    @Benchmark
+    public long scalarLoop() {
+        long sum = 0;
+        for (long s : subtotals)
+            sum += percent.price(Money.ofCents(s)).total().cents();
+        return sum;
+    }
+
+    @Benchmark
+    public long[] bulkPercentPolicies() {
+        percent.priceAll(subtotals, discounts, taxes, totals);
+        return totals;
+    }
+
+    @Benchmark
+    public long[] bulkLambdaPolicies() {
+        lambdas.priceAll(subtotals, discounts, taxes, totals);
+        return totals;
+    }
+}
@@ -0,0 +1,109 @@
+package com.cafepos.bench;
+
+import com.cafepos.app.CheckoutService;
+import com.cafepos.app.ReceiptFormatter;
+import com.cafepos.app.ReceiptTemplate;
+import com.cafepos.app.events.EventBus;
+import com.cafepos.app.events.OrderCreated;
+import com.cafepos.app.events.OrderEvent;
+import com.cafepos.app.events.OrderPaid;
+import com.cafepos.common.Money;
+import com.cafepos.domain.LineItem;
+import com.cafepos.domain.Order;
+import com.cafepos.factory.ProductFactory;
+import com.cafepos.infra.InMemoryOrderRepository;
+import com.cafepos.pricing.FixedRateTaxPolicy;
+import com.cafepos.pricing.LoyaltyPercentDiscount;
+import com.cafepos.pricing.PricingService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each stage of the checkout hot path on an order of {@code lines} line items, plus
+ * the end-to-end {@link CheckoutService#checkout}, which prices the order every time
+ * (no {@code PricingCache}; {@link PricingCacheBenchmark} measures that). Run with
+ * {@code -prof gc} and compare against {@code baseline.json} with {@link BaselineComparison}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class CheckoutBenchmark {
+    private static final String[] RECIPES = {"ESP", "LAT+L", "CAP+SHOT+OAT", "AME+SHOT", "LAT+OAT+L"};
+    private static final long ORDER_ID = 4201L;
+    private static final int TAX_PERCENT = 10;
+
+    @Param({"1", "10", "100"})
+    int lines;
+
+    private ProductFactory factory;
+    private Order order;
+    private Money subtotal;
+    private PricingService pricing;
+    private PricingService.PricingResult priced;
+    private ReceiptFormatter formatter;
+    private EventBus bus;
+    private CheckoutService checkout;
+    private final OrderCreated created = new OrderCreated(ORDER_ID);
+    private final OrderPaid paid = new OrderPaid(ORDER_ID);
+
+    @Setup
+    public void setUp(Blackhole bh) {
+        factory = new ProductFactory();
+        order = new Order(ORDER_ID);
+        for (int i = 0; i < lines; i++) {
+            order.addItem(new LineItem(factory.create(RECIPES[i % RECIPES.length]), 1 + i % 3));
+        }
+        var repo = new InMemoryOrderRepository();
+        repo.save(order);
+
+        pricing = new PricingService(new LoyaltyPercentDiscount(5), new FixedRateTaxPolicy(TAX_PERCENT));
+        subtotal = order.subtotal();
+        priced = pricing.price(subtotal);
+        formatter = new ReceiptFormatter();
+        checkout = new CheckoutService(repo, pricing, ReceiptTemplate.DEFAULT, null);
+
+        bus = new EventBus();
+        bus.on(OrderCreated.class, bh::consume);
+        bus.on(OrderPaid.class, bh::consume);
+        bus.on(OrderEvent.class, bh::consume);
+    }
+
+    /** Resolves the recipe of every line, as the controller does when the order is taken. */
+    @Benchmark
+    public void productFactoryCreate(Blackhole bh) {
+        for (int i = 0; i < lines; i++) {
+            bh.consume(factory.create(RECIPES[i % RECIPES.length]));
+        }
+    }
+
+    @Benchmark
+    public Money orderSubtotal() {
+        return order.subtotal();
+    }
+
+    @Benchmark
+    public PricingService.PricingResult pricingPrice() {
+        return pricing.price(subtotal);
+    }
+
+    @Benchmark
+    public String receiptFormat() {
+        return formatter.format(ORDER_ID, order.items(), priced, TAX_PERCENT);
+    }
+
+    @Benchmark
+    public void eventBusEmit() {
+        bus.emit(created);
+        bus.emit(paid);
+    }
+
+    @Benchmark
+    public String checkout() {
+        return checkout.checkout(ORDER_ID, TAX_PERCENT);
+    }
+}
@@ -0,0 +1,84 @@
+package com.cafepos.bench;
+
+import com.cafepos.app.CheckoutService;
+import com.cafepos.catalog.SimpleProduct;
+import com.cafepos.common.Money;
+import com.cafepos.domain.LineItem;
+import com.cafepos.domain.Order;
+import com.cafepos.infra.FileOrderRepository;
+import com.cafepos.pricing.FixedRateTaxPolicy;
+import com.cafepos.pricing.LoyaltyPercentDiscount;
+import com.cafepos.pricing.PricingService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time-to-first-checkout: open a {@link FileOrderRepository} holding {@code orders}
+ * orders and print one receipt. {@code source=snapshot} starts from a mapped snapshot,
+ * {@code source=log} replays the full log.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ColdStartBenchmark {
+    private static final SimpleProduct ESPRESSO = new SimpleProduct("P-ESP", "Espresso", Money.of(2.50));
+    private static final SimpleProduct LATTE = new SimpleProduct("P-LAT", "Latte", Money.of(3.20));
+
+    @Param({"100000", "1000000"})
+    int orders;
+
+    @Param({"snapshot", "log"})
+    String source;
+
+    private Path dir;
+    private final PricingService pricing = new PricingService(
+            new LoyaltyPercentDiscount(5), new FixedRateTaxPolicy(10));
+
+    @Setup(Level.Trial)
+    public void populate() throws IOException {
+        dir = Files.createTempDirectory("cold-start-bench");
+        try (var repo = new FileOrderRepository(dir)) {
+            List<Order> batch = new ArrayList<>();
+            for (long id = 0; id < orders; id++) {
+                Order order = new Order(id);
+                order.addItem(new LineItem(ESPRESSO, 1));
+                order.addItem(new LineItem(LATTE, 2));
+                batch.add(order);
+                if (batch.size() == 10_000) {
+                    repo.saveAll(batch);
+                    batch.clear();
+                }
+            }
+            repo.saveAll(batch);
+            if (source.equals("snapshot"))
+                repo.snapshot();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    @Benchmark
+    public String openAndCheckout() {
+        try (var repo = new FileOrderRepository(dir)) {
+            return new CheckoutService(repo, pricing).checkout(orders / 2, 10);
+        }
+    }
+}
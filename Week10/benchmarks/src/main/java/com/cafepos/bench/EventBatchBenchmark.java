@@ -0,0 +1,90 @@
+package com.cafepos.bench;
+
+import com.cafepos.app.events.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishing a burst of {@code events} order events one {@link EventBus#emit} at a time
+ * vs. a single {@link EventBus#emitAll} into batch handlers, on the synchronous bus and
+ * on an async bus (BLOCK policy, so the emitter pays for every queue hand-off).
+ * Scores are per whole burst.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventBatchBenchmark {
+    @Param({"100", "10000"})
+    int events;
+
+    private ExecutorService pool;
+    private EventBus syncBus;
+    private EventBus syncBatchBus;
+    private EventBus asyncBus;
+    private EventBus asyncBatchBus;
+    private List<OrderEvent> burst;
+
+    @Setup
+    public void setUp(Blackhole bh) {
+        pool = Executors.newFixedThreadPool(2);
+        syncBus = perEvent(new EventBus(), bh);
+        syncBatchBus = batched(new EventBus(), bh);
+        asyncBus = perEvent(EventBus.async(pool, 1024, EventBus.OverflowPolicy.BLOCK), bh);
+        asyncBatchBus = batched(EventBus.async(pool, 1024, EventBus.OverflowPolicy.BLOCK), bh);
+
+        burst = new ArrayList<>(events);
+        for (long id = 0; id < events; id++) {
+            burst.add(id % 2 == 0 ? new OrderCreated(id) : new OrderPaid(id));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static EventBus perEvent(EventBus bus, Blackhole bh) {
+        bus.on(OrderEvent.class, bh::consume);
+        bus.on(OrderPaid.class, bh::consume);
+        return bus;
+    }
+
+    private static EventBus batched(EventBus bus, Blackhole bh) {
+        bus.onBatch(OrderEvent.class, bh::consume);
+        bus.onBatch(OrderPaid.class, bh::consume);
+        return bus;
+    }
+
+    @Benchmark
+    public void syncEmitEach() {
+        for (OrderEvent e : burst) {
+            syncBus.emit(e);
+        }
+    }
+
+    @Benchmark
+    public void syncEmitAllBatch() {
+        syncBatchBus.emitAll(burst);
+    }
+
+    @Benchmark
+    public void asyncEmitEach() {
+        for (OrderEvent e : burst) {
+            asyncBus.emit(e);
+        }
+    }
+
+    @Benchmark
+    public void asyncEmitAllBatch() {
+        asyncBatchBus.emitAll(burst);
+    }
+}
@@ -0,0 +1,62 @@
+package com.cafepos.bench;
+
+import com.cafepos.app.events.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link EventBus#emit} with {@code subscribers} handlers. The {@code churn}
+ * group emits on three threads while a fourth keeps subscribing and unsubscribing, so
+ * its {@code emit} score should match {@code emitOnly}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class EventBusBenchmark {
+    @Param({"1", "10", "100"})
+    int subscribers;
+
+    private EventBus bus;
+    private final OrderCreated created = new OrderCreated(42L);
+    private final OrderPaid paid = new OrderPaid(42L);
+
+    @Setup
+    public void setUp(Blackhole bh) {
+        bus = new EventBus();
+        for (int i = 0; i < subscribers; i++) {
+            if (i % 2 == 0) {
+                bus.on(OrderEvent.class, bh::consume);
+            } else {
+                bus.on(OrderCreated.class, bh::consume);
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("emitOnly")
+    public void emit() {
+        bus.emit(created);
+        bus.emit(paid);
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(3)
+    public void emitDuringChurn() {
+        bus.emit(created);
+        bus.emit(paid);
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(1)
+    public void subscribeAndUnsubscribe(Blackhole bh) {
+        Subscription s = bus.on(OrderPaid.class, bh::consume);
+        s.unsubscribe();
+    }
+}
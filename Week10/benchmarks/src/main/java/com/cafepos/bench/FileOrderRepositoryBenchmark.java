@@ -0,0 +1,63 @@
+package com.cafepos.bench;
+
+import com.cafepos.catalog.SimpleProduct;
+import com.cafepos.common.Money;
+import com.cafepos.domain.LineItem;
+import com.cafepos.domain.Order;
+import com.cafepos.infra.FileOrderRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Durable {@code save} throughput of {@link FileOrderRepository}. Each op returns only
+ * after its record is fsync'ed, so more threads means more writers per group commit.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class FileOrderRepositoryBenchmark {
+    private static final SimpleProduct LATTE = new SimpleProduct("P-LAT", "Latte", Money.of(3.20));
+
+    @Param({"1", "5"})
+    int lines;
+
+    private final AtomicLong ids = new AtomicLong();
+    private Path dir;
+    private FileOrderRepository repo;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("order-log-bench");
+        repo = new FileOrderRepository(dir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repo.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    @Benchmark
+    public void save() {
+        Order order = new Order(ids.incrementAndGet());
+        for (int i = 0; i < lines; i++) {
+            order.addItem(new LineItem(LATTE, 1 + i));
+        }
+        repo.save(order);
+    }
+}
@@ -0,0 +1,84 @@
+package com.cafepos.bench;
+
+import com.cafepos.app.CheckoutService;
+import com.cafepos.common.Money;
+import com.cafepos.domain.LineItem;
+import com.cafepos.domain.Order;
+import com.cafepos.factory.ProductFactory;
+import com.cafepos.infra.InMemoryOrderRepository;
+import com.cafepos.pricing.FixedRateTaxPolicy;
+import com.cafepos.pricing.LineDiscountPolicy;
+import com.cafepos.pricing.LoyaltyPercentDiscount;
+import com.cafepos.pricing.PricingService;
+import com.cafepos.pricing.TaxPolicy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of pricing an order line by line ({@link PricingService#priceLines}, with an item
+ * discount and two tax rates) next to the order-level {@link PricingService#price} on the
+ * pre-summed subtotal, and the itemized vs. plain checkout receipt, for 1, 10 and 100 lines.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LinePricingBenchmark {
+    private static final String[] RECIPES = {"ESP", "LAT+L", "CAP+SHOT+OAT", "AME+SHOT", "LAT+OAT+L"};
+    private static final long ORDER_ID = 4201L;
+    private static final int TAX_PERCENT = 10;
+
+    @Param({"1", "10", "100"})
+    int lines;
+
+    private List<LineItem> items;
+    private Money subtotal;
+    private PricingService orderLevel;
+    private PricingService lineLevel;
+    private CheckoutService checkout;
+
+    @Setup
+    public void setUp() {
+        ProductFactory factory = new ProductFactory();
+        Order order = new Order(ORDER_ID);
+        for (int i = 0; i < lines; i++) {
+            order.addItem(new LineItem(factory.create(RECIPES[i % RECIPES.length]), 1 + i % 3));
+        }
+        var repo = new InMemoryOrderRepository();
+        repo.save(order);
+        items = order.items();
+        subtotal = order.subtotal();
+
+        TaxPolicy standard = new FixedRateTaxPolicy(TAX_PERCENT);
+        TaxPolicy reduced = new FixedRateTaxPolicy(5);
+        LineDiscountPolicy espressoDeal = (p, qty, cents) -> p.name().startsWith("Espresso") ? cents / 10 : 0;
+        orderLevel = new PricingService(new LoyaltyPercentDiscount(5), standard);
+        lineLevel = new PricingService(new LoyaltyPercentDiscount(5), standard, espressoDeal,
+                p -> p.name().contains("Oat") ? reduced : standard);
+        checkout = new CheckoutService(repo, lineLevel);
+    }
+
+    @Benchmark
+    public PricingService.PricingResult orderLevelPrice() {
+        return orderLevel.price(subtotal);
+    }
+
+    @Benchmark
+    public PricingService.LinePricing priceLines() {
+        return lineLevel.priceLines(items);
+    }
+
+    @Benchmark
+    public String checkoutPlain() {
+        return checkout.checkout(ORDER_ID, TAX_PERCENT);
+    }
+
+    @Benchmark
+    public String checkoutItemized() {
+        return checkout.checkoutItemized(ORDER_ID, TAX_PERCENT);
+    }
+}
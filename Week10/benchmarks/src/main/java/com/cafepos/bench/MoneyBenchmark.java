@@ -0,0 +1,80 @@
+package com.cafepos.bench;
+
+import com.cafepos.catalog.Product;
+import com.cafepos.catalog.SimpleProduct;
+import com.cafepos.common.Money;
+import com.cafepos.decorator.Priced;
+import com.cafepos.domain.LineItem;
+import com.cafepos.domain.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sums an order's line totals with the long-cents Money and with the original
+ * BigDecimal representation, using the same stream reduction, so only the Money
+ * arithmetic differs. {@link Order#subtotal()} now reads a running total kept by
+ * {@code addItem}; {@code runningSubtotal} shows that O(1) read for reference.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoneyBenchmark {
+    private static final double[] MENU = {2.50, 3.20, 3.00, 2.80};
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    int lines;
+
+    private Order order;
+    private List<LineItem> items;
+    private List<BigDecimalLine> baseline;
+
+    @Setup
+    public void setUp() {
+        order = new Order(1L);
+        items = new ArrayList<>(lines);
+        baseline = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            double price = MENU[i % MENU.length];
+            int qty = 1 + i % 3;
+            var product = new SimpleProduct("P" + i, "Item " + i, Money.of(price));
+            LineItem line = new LineItem(product, qty);
+            order.addItem(line);
+            items.add(line);
+            baseline.add(new BigDecimalLine(product, BigDecimalMoney.of(price), qty));
+        }
+    }
+
+    @Benchmark
+    public Money longCentsSubtotal() {
+        return items.stream()
+                .map(LineItem::lineTotal)
+                .reduce(Money.zero(), Money::add);
+    }
+
+    @Benchmark
+    public Money runningSubtotal() {
+        return order.subtotal();
+    }
+
+    @Benchmark
+    public BigDecimalMoney bigDecimalSubtotal() {
+        return baseline.stream()
+                .map(BigDecimalLine::lineTotal)
+                .reduce(BigDecimalMoney.zero(), BigDecimalMoney::add);
+    }
+
+    /** Mirrors LineItem.lineTotal(), including its Priced check, so only the Money type differs. */
+    record BigDecimalLine(Product product, BigDecimalMoney unit, int quantity) {
+        BigDecimalMoney lineTotal() {
+            if (product instanceof Priced)
+                throw new IllegalStateException("baseline only models undecorated products");
+            return unit.multiply(quantity);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.cafepos.bench;
+
+import com.cafepos.app.OrderLifecycleEngine;
+import com.cafepos.app.events.EventBus;
+import com.cafepos.app.events.OrderStatusChanged;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transitions per second on one shared {@link OrderLifecycleEngine} holding
+ * {@code liveOrders} orders, with a subscriber consuming every event. Each
+ * {@code lifecycle} call registers a fresh order, takes it through pay, markReady and
+ * deliver, and removes it, so the score counts those three transitions and includes
+ * the locked register/remove and the rehashes they trigger. {@code readStatus} is the
+ * lock-free lookup alone. Run with {@code -t <threads>} to check scaling.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderLifecycleBenchmark {
+    @Param({"10000"})
+    int liveOrders;
+
+    private OrderLifecycleEngine engine;
+    private final AtomicLong threadIds = new AtomicLong();
+
+    @State(Scope.Thread)
+    public static class Till {
+        long nextId;
+        long probe;
+
+        @Setup
+        public void setUp(OrderLifecycleBenchmark b) {
+            nextId = (b.threadIds.incrementAndGet()) << 40;
+        }
+    }
+
+    @Setup
+    public void setUp(Blackhole bh) {
+        EventBus bus = new EventBus();
+        bus.on(OrderStatusChanged.class, bh::consume);
+        engine = new OrderLifecycleEngine(bus, liveOrders);
+        for (long id = 0; id < liveOrders; id++) {
+            engine.register(id);
+            engine.pay(id);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(3)
+    public boolean lifecycle(Till till) {
+        long id = till.nextId++;
+        engine.register(id);
+        boolean ok = engine.pay(id) & engine.markReady(id) & engine.deliver(id);
+        engine.remove(id);
+        return ok;
+    }
+
+    @Benchmark
+    public Object readStatus(Till till) {
+        return engine.status(till.probe++ % liveOrders);
+    }
+}
@@ -0,0 +1,54 @@
+package com.cafepos.bench;
+
+import com.cafepos.domain.Order;
+import com.cafepos.domain.OrderRepository;
+import com.cafepos.infra.InMemoryOrderRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mixed save/find throughput on {@link InMemoryOrderRepository}. Run with
+ * {@code -t 1,2,4,8,16,32} (one run per thread count) to check scaling.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderRepositoryBenchmark {
+    @Param({"10000", "1000000"})
+    int orders;
+
+    @Param({"10", "50"})
+    int savePercent;
+
+    private OrderRepository repo;
+
+    @Setup
+    public void setUp() {
+        repo = new InMemoryOrderRepository(orders);
+        for (long id = 0; id < orders; id++) {
+            repo.save(new Order(id));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Till {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Benchmark
+    public Optional<Order> mixedSaveFind(Till till) {
+        long id = till.random.nextInt(orders);
+        if (till.random.nextInt(100) < savePercent) {
+            Order order = new Order(id);
+            repo.save(order);
+            return Optional.of(order);
+        }
+        return repo.findById(id);
+    }
+}
@@ -0,0 +1,75 @@
+package com.cafepos.bench;
+
+import com.cafepos.app.CheckoutService;
+import com.cafepos.app.ReceiptTemplate;
+import com.cafepos.domain.LineItem;
+import com.cafepos.domain.Order;
+import com.cafepos.factory.ProductFactory;
+import com.cafepos.infra.InMemoryOrderRepository;
+import com.cafepos.pricing.FixedRateTaxPolicy;
+import com.cafepos.pricing.LoyaltyPercentDiscount;
+import com.cafepos.pricing.PricingCache;
+import com.cafepos.pricing.PricingService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reprinting the receipt of an unchanged order: pricing it every time vs. reusing the
+ * {@link PricingCache} entry for its version, at the pricing step and end to end.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PricingCacheBenchmark {
+    private static final String[] RECIPES = {"ESP", "LAT+L", "CAP+SHOT+OAT", "AME+SHOT", "LAT+OAT+L"};
+    private static final long ORDER_ID = 4201L;
+    private static final int TAX_PERCENT = 10;
+
+    @Param({"1", "10", "100"})
+    int lines;
+
+    private Order order;
+    private PricingService pricing;
+    private PricingCache cache;
+    private CheckoutService uncached;
+    private CheckoutService cached;
+
+    @Setup
+    public void setUp() {
+        ProductFactory factory = new ProductFactory();
+        order = new Order(ORDER_ID);
+        for (int i = 0; i < lines; i++) {
+            order.addItem(new LineItem(factory.create(RECIPES[i % RECIPES.length]), 1 + i % 3));
+        }
+        var repo = new InMemoryOrderRepository();
+        repo.save(order);
+        pricing = new PricingService(new LoyaltyPercentDiscount(5), new FixedRateTaxPolicy(TAX_PERCENT));
+        cache = new PricingCache();
+        uncached = new CheckoutService(repo, pricing, ReceiptTemplate.DEFAULT, null);
+        cached = new CheckoutService(repo, pricing, ReceiptTemplate.DEFAULT, new PricingCache());
+    }
+
+    @Benchmark
+    public PricingService.PricingResult priceEveryTime() {
+        return pricing.price(order.subtotal());
+    }
+
+    @Benchmark
+    public PricingService.PricingResult priceFromCache() {
+        return cache.price(pricing, order);
+    }
+
+    @Benchmark
+    public String checkoutUncached() {
+        return uncached.checkout(ORDER_ID, TAX_PERCENT);
+    }
+
+    @Benchmark
+    public String checkoutCached() {
+        return cached.checkout(ORDER_ID, TAX_PERCENT);
+    }
+}
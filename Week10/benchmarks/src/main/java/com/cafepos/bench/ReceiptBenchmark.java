@@ -0,0 +1,90 @@
+package com.cafepos.bench;
+
+import com.cafepos.app.ReceiptFormatter;
+import com.cafepos.app.ReceiptWriter;
+import com.cafepos.domain.LineItem;
+import com.cafepos.domain.Order;
+import com.cafepos.factory.ProductFactory;
+import com.cafepos.pricing.FixedRateTaxPolicy;
+import com.cafepos.pricing.LoyaltyPercentDiscount;
+import com.cafepos.pricing.PricingService;
+import com.cafepos.pricing.PricingService.PricingResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receipt rendering: the original StringBuilder concatenation (as a String and encoded
+ * for the printer) vs. the compiled {@link com.cafepos.app.ReceiptTemplate} behind
+ * {@link ReceiptFormatter} and {@link ReceiptWriter}. Items repeat across receipts, so
+ * the template's line cache is warm, as it is at a till. Run with {@code -prof gc} to
+ * see the allocation difference.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReceiptBenchmark {
+    private static final String[] RECIPES = {"ESP", "LAT+L", "CAP+SHOT+OAT", "AME+SHOT", "LAT+OAT+L"};
+
+    @Param({"1", "10", "100"})
+    int lines;
+
+    private List<LineItem> items;
+    private PricingResult priced;
+    private final ReceiptFormatter formatter = new ReceiptFormatter();
+    private final ReceiptWriter writer = new ReceiptWriter();
+
+    @Setup
+    public void setUp() {
+        ProductFactory factory = new ProductFactory();
+        Order order = new Order(4201L);
+        for (int i = 0; i < lines; i++) {
+            order.addItem(new LineItem(factory.create(RECIPES[i % RECIPES.length]), 1 + i % 3));
+        }
+        items = order.items();
+        priced = new PricingService(new LoyaltyPercentDiscount(5), new FixedRateTaxPolicy(10)).price(order.subtotal());
+    }
+
+    @Benchmark
+    public String stringBuilderConcat() {
+        return concat();
+    }
+
+    @Benchmark
+    public byte[] stringBuilderThenEncode() {
+        return concat().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String concat() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Order #").append(4201L).append("\n");
+        for (LineItem li : items) {
+            sb.append(" - ").append(li.product().name())
+              .append(" x").append(li.quantity())
+              .append(" = ").append(li.lineTotal()).append("\n");
+        }
+        sb.append("Subtotal: ").append(priced.subtotal()).append("\n");
+        if (priced.discount().asBigDecimal().signum() > 0) {
+            sb.append("Discount: -").append(priced.discount()).append("\n");
+        }
+        sb.append("Tax (").append(10).append("%): ").append(priced.tax()).append("\n");
+        sb.append("Total: ").append(priced.total());
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String formatterString() {
+        return formatter.format(4201L, items, priced, 10);
+    }
+
+    @Benchmark
+    public ByteBuffer writerThreadBuffer() {
+        return writer.render(4201L, items, priced, 10);
+    }
+}
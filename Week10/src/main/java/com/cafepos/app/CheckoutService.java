@@ -1,22 +1,76 @@
 package com.cafepos.app;
 
 import com.cafepos.domain.*;
+import com.cafepos.pricing.PricingCache;
 import com.cafepos.pricing.PricingService;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 public final class CheckoutService {
     private final OrderRepository orders;
     private final PricingService pricing;
+    private final PricingCache cache;
+    private final ReceiptFormatter formatter;
+    private final ReceiptWriter writer;
 
     public CheckoutService(OrderRepository orders, PricingService pricing) {
+        this(orders, pricing, ReceiptTemplate.DEFAULT);
+    }
+
+    public CheckoutService(OrderRepository orders, PricingService pricing, ReceiptTemplate template) {
+        this(orders, pricing, template, new PricingCache());
+    }
+
+    /** @param cache pricing results reused while an order is unchanged; {@code null} prices every checkout */
+    public CheckoutService(OrderRepository orders, PricingService pricing, ReceiptTemplate template,
+                           PricingCache cache) {
         this.orders = orders;
         this.pricing = pricing;
+        this.cache = cache;
+        this.formatter = new ReceiptFormatter(template);
+        this.writer = new ReceiptWriter(template);
     }
 
     /** Returns a receipt string; does NOT print. */
     public String checkout(long orderId, int taxPercent) {
         Order order = orders.findById(orderId).orElseThrow();
-        var pr = pricing.price(order.subtotal());
-        return new ReceiptFormatter().format(orderId, order.items(), pr, taxPercent);
+        var pr = price(order);
+        return formatter.format(orderId, order.items(), pr, taxPercent);
+    }
+
+    /** The cache behind this service, for its hit and eviction counts; null if disabled. */
+    public PricingCache pricingCache() {
+        return cache;
+    }
+
+    private PricingService.PricingResult price(Order order) {
+        return cache == null ? pricing.price(order.subtotal()) : cache.price(pricing, order);
     }
-}
 
+    /**
+     * Like {@link #checkout(long, int)}, but prices the order line by line and prints
+     * each item's discount and tax under it.
+     */
+    public String checkoutItemized(long orderId, int taxPercent) {
+        Order order = orders.findById(orderId).orElseThrow();
+        List<LineItem> items = order.items();
+        return formatter.format(orderId, items, pricing.priceLines(items), taxPercent);
+    }
+
+    /** Writes the UTF-8 receipt into {@code out} and returns the number of bytes written. */
+    public int checkout(long orderId, int taxPercent, ByteBuffer out) {
+        Order order = orders.findById(orderId).orElseThrow();
+        var pr = price(order);
+        return writer.write(orderId, order.items(), pr, taxPercent, out);
+    }
+
+    /**
+     * Renders the UTF-8 receipt into this thread's reusable buffer, ready to hand to a
+     * printer. The buffer is overwritten by the thread's next call.
+     */
+    public ByteBuffer checkoutBytes(long orderId, int taxPercent) {
+        Order order = orders.findById(orderId).orElseThrow();
+        var pr = price(order);
+        return writer.render(orderId, order.items(), pr, taxPercent);
+    }
+}
@@ -0,0 +1,270 @@
+package com.cafepos.app;
+
+import com.cafepos.app.events.EventBus;
+import com.cafepos.app.events.OrderCreated;
+import com.cafepos.app.events.OrderEvent;
+import com.cafepos.app.events.OrderPaid;
+import com.cafepos.app.events.OrderStatusChanged;
+import com.cafepos.app.events.Subscription;
+import com.cafepos.domain.OrderStatus;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Read-side projection of live orders for the kitchen screens: one queue per open
+ * status (NEW, PREPARING, READY), oldest first, kept up to date from {@link OrderEvent}s
+ * instead of polling every order.
+ * <p>
+ * Each queue is a doubly linked list indexed by order id, so moving an order between
+ * queues is O(1). Delivered and cancelled orders leave the display; the last
+ * {@code finishedCapacity} of them are remembered so that an event arriving after the
+ * terminal one cannot bring the order back as a ghost ticket. Readers copy the
+ * queues under an optimistic {@link StampedLock} stamp and only fall back to a read
+ * lock if writers keep invalidating it, so screens refreshing do not hold up the tills.
+ */
+public final class KitchenDisplay {
+    public static final int DEFAULT_FINISHED_CAPACITY = 10_000;
+
+    /** An order on a screen and how long it has been in its current status. */
+    public record Ticket(long orderId, OrderStatus status, Duration timeInState) {}
+
+    private static final OrderStatus[] OPEN = {OrderStatus.NEW, OrderStatus.PREPARING, OrderStatus.READY};
+    private static final int OPTIMISTIC_ATTEMPTS = 3;
+
+    private static final class Node {
+        final long orderId;
+        OrderStatus status;
+        long enteredAt;
+        Node prev;
+        Node next;
+
+        Node(long orderId) {
+            this.orderId = orderId;
+        }
+    }
+
+    private static final class Queue {
+        Node head;
+        Node tail;
+        int size;
+    }
+
+    private final LongSupplier nanoClock;
+    private final StampedLock lock = new StampedLock();
+    private final Queue[] queues = new Queue[OrderStatus.values().length];
+    private final HashMap<Long, Node> index = new HashMap<>();
+    /** Terminal status of recently finished orders, oldest first; guarded by the write lock. */
+    private final LinkedHashMap<Long, OrderStatus> finished;
+
+    public KitchenDisplay() {
+        this(System::nanoTime);
+    }
+
+    /** @param nanoClock monotonic time source for time-in-state, in nanoseconds */
+    public KitchenDisplay(LongSupplier nanoClock) {
+        this(nanoClock, DEFAULT_FINISHED_CAPACITY);
+    }
+
+    /**
+     * @param nanoClock        monotonic time source for time-in-state, in nanoseconds
+     * @param finishedCapacity how many delivered or cancelled orders to remember; events
+     *                         for older ones show the order again
+     */
+    public KitchenDisplay(LongSupplier nanoClock, int finishedCapacity) {
+        if (nanoClock == null)
+            throw new IllegalArgumentException("clock required");
+        if (finishedCapacity <= 0)
+            throw new IllegalArgumentException("finished capacity must be > 0");
+        this.nanoClock = nanoClock;
+        this.finished = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, OrderStatus> eldest) {
+                return size() > finishedCapacity;
+            }
+        };
+        for (OrderStatus s : OPEN)
+            queues[s.ordinal()] = new Queue();
+    }
+
+    /**
+     * Feeds the display from {@code bus}. Events arrive as batches, so a burst from
+     * {@link EventBus#emitAll} is applied under one lock.
+     */
+    public Subscription attach(EventBus bus) {
+        if (bus == null)
+            throw new IllegalArgumentException("event bus required");
+        return bus.onBatch(OrderEvent.class, this::applyAll);
+    }
+
+    /**
+     * Applies lifecycle events in order. {@link OrderCreated} shows an order as NEW,
+     * {@link OrderPaid} as PREPARING, and {@link OrderStatusChanged} moves it to the new
+     * status.
+     */
+    public void applyAll(List<? extends OrderEvent> events) {
+        long now = nanoClock.getAsLong();
+        long stamp = lock.writeLock();
+        try {
+            for (OrderEvent e : events) {
+                if (e instanceof OrderStatusChanged c) {
+                    move(c.orderId(), c.to(), now);
+                } else if (e instanceof OrderPaid p) {
+                    move(p.orderId(), OrderStatus.PREPARING, now);
+                } else if (e instanceof OrderCreated c) {
+                    move(c.orderId(), OrderStatus.NEW, now);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Moves {@code orderId} to {@code status}, adding it if unseen; terminal statuses remove it. */
+    public void moved(long orderId, OrderStatus status) {
+        if (status == null)
+            throw new IllegalArgumentException("status required");
+        long now = nanoClock.getAsLong();
+        long stamp = lock.writeLock();
+        try {
+            move(orderId, status, now);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Caller holds the write lock. A status earlier in the lifecycle than the one shown
+     * is a late event and is ignored; the same status keeps the order's place and time.
+     * Any event for a recently finished order is late.
+     */
+    private void move(long orderId, OrderStatus to, long now) {
+        Node n = index.get(orderId);
+        if (n != null) {
+            if (to.ordinal() <= n.status.ordinal())
+                return;
+            unlink(n);
+        } else if (finished.containsKey(orderId)) {
+            return;
+        }
+        if (to.isTerminal()) {
+            if (n != null)
+                index.remove(orderId);
+            finished.put(orderId, to);
+            return;
+        }
+        if (n == null) {
+            n = new Node(orderId);
+            index.put(orderId, n);
+        }
+        n.status = to;
+        n.enteredAt = now;
+        Queue q = queues[to.ordinal()];
+        n.prev = q.tail;
+        n.next = null;
+        if (q.tail == null) {
+            q.head = n;
+        } else {
+            q.tail.next = n;
+        }
+        q.tail = n;
+        q.size++;
+    }
+
+    private void unlink(Node n) {
+        Queue q = queues[n.status.ordinal()];
+        if (n.prev == null) {
+            q.head = n.next;
+        } else {
+            n.prev.next = n.next;
+        }
+        if (n.next == null) {
+            q.tail = n.prev;
+        } else {
+            n.next.prev = n.prev;
+        }
+        n.prev = null;
+        n.next = null;
+        q.size--;
+    }
+
+    /** Orders in {@code status}, oldest first; empty for DELIVERED and CANCELLED. */
+    public List<Ticket> queue(OrderStatus status) {
+        if (status == null)
+            throw new IllegalArgumentException("status required");
+        if (status.isTerminal())
+            return List.of();
+        return read(new OrderStatus[] {status}).get(status);
+    }
+
+    /** Every open queue, copied at one consistent instant. */
+    public Map<OrderStatus, List<Ticket>> snapshot() {
+        return read(OPEN);
+    }
+
+    public int count(OrderStatus status) {
+        if (status == null)
+            throw new IllegalArgumentException("status required");
+        if (status.isTerminal())
+            return 0;
+        long stamp = lock.tryOptimisticRead();
+        int n = queues[status.ordinal()].size;
+        if (lock.validate(stamp))
+            return n;
+        stamp = lock.readLock();
+        try {
+            return queues[status.ordinal()].size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Map<OrderStatus, List<Ticket>> read(OrderStatus[] statuses) {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0)
+                continue;
+            Map<OrderStatus, List<Ticket>> copy = copy(statuses);
+            if (copy != null && lock.validate(stamp))
+                return copy;
+        }
+        long stamp = lock.readLock();
+        try {
+            return copy(statuses);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Copies the queues, possibly racing a writer: every read is bounded and null
+     * checked, and the result is discarded (null) or validated by the caller.
+     */
+    private Map<OrderStatus, List<Ticket>> copy(OrderStatus[] statuses) {
+        long now = nanoClock.getAsLong();
+        Map<OrderStatus, List<Ticket>> out = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus s : statuses) {
+            Queue q = queues[s.ordinal()];
+            int size = q.size;
+            if (size < 0)
+                return null;
+            List<Ticket> tickets = new ArrayList<>(Math.min(size, 1024));
+            Node n = q.head;
+            for (int i = 0; i < size; i++) {
+                if (n == null)
+                    return null;
+                tickets.add(new Ticket(n.orderId, s, Duration.ofNanos(Math.max(0, now - n.enteredAt))));
+                n = n.next;
+            }
+            out.put(s, Collections.unmodifiableList(tickets));
+        }
+        return out;
+    }
+}
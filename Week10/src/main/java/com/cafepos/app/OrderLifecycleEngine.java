@@ -0,0 +1,273 @@
+package com.cafepos.app;
+
+import com.cafepos.app.events.EventBus;
+import com.cafepos.app.events.OrderStatusChanged;
+import com.cafepos.domain.OrderStatus;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Optional;
+
+/**
+ * Lifecycle state for many live orders, safe to drive from any number of threads.
+ * <p>
+ * Orders live in 16 open-addressing tables of {@code long} ids with one state byte per
+ * slot. A transition looks the order up without locking and moves it with a single
+ * compare-and-set on that byte, so two tills racing to pay the same order cannot both
+ * succeed. Every accepted transition is published on the {@link EventBus} as an
+ * {@link OrderStatusChanged}; rejected ones return {@code false} and publish nothing.
+ * Only {@code register}, {@code remove} and the occasional rehash lock, and only the
+ * one table they touch.
+ * <p>
+ * The rules match the Week 9 {@code OrderFSM}: pay, then markReady, then deliver;
+ * cancel from any non-terminal state; prepare is never accepted.
+ */
+public final class OrderLifecycleEngine {
+    private static final int PAY = 0, PREPARE = 1, MARK_READY = 2, DELIVER = 3, CANCEL = 4;
+
+    /** Slot states: 0 is an empty slot, 1..5 are {@link OrderStatus} ordinals + 1. */
+    private static final byte FREE = 0, TOMBSTONE = 6, MOVED = 7;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final byte NEW = code(OrderStatus.NEW);
+
+    /** Next state code per (state code, action); 0 where the action is rejected. */
+    private static final byte[][] NEXT = new byte[STATUSES.length + 1][5];
+
+    static {
+        NEXT[NEW][PAY] = code(OrderStatus.PREPARING);
+        NEXT[NEW][CANCEL] = code(OrderStatus.CANCELLED);
+        NEXT[code(OrderStatus.PREPARING)][MARK_READY] = code(OrderStatus.READY);
+        NEXT[code(OrderStatus.PREPARING)][CANCEL] = code(OrderStatus.CANCELLED);
+        NEXT[code(OrderStatus.READY)][DELIVER] = code(OrderStatus.DELIVERED);
+        NEXT[code(OrderStatus.READY)][CANCEL] = code(OrderStatus.CANCELLED);
+    }
+
+    private static final VarHandle STATE = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final int SEGMENT_BITS = 4;
+    private static final int MIN_TABLE = 16;
+
+    private final EventBus bus;
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    public OrderLifecycleEngine(EventBus bus) {
+        this(bus, 1024);
+    }
+
+    /** @param expectedOrders orders tracked at once; the tables grow past it as needed */
+    public OrderLifecycleEngine(EventBus bus, int expectedOrders) {
+        if (bus == null)
+            throw new IllegalArgumentException("event bus required");
+        if (expectedOrders < 0)
+            throw new IllegalArgumentException("expected orders cannot be negative");
+        this.bus = bus;
+        int perSegment = tableSize(2 * (expectedOrders >> SEGMENT_BITS));
+        for (int i = 0; i < segments.length; i++)
+            segments[i] = new Segment(perSegment);
+    }
+
+    /** Starts tracking {@code orderId} in NEW; false if it is already tracked. */
+    public boolean register(long orderId) {
+        long h = hash(orderId);
+        Segment seg = segment(h);
+        synchronized (seg) {
+            Table t = seg.table;
+            if (t.find(orderId, (int) h) >= 0)
+                return false;
+            if (seg.used + 1 > t.keys.length - (t.keys.length >> 2)) {
+                t = seg.rehash();
+            }
+            t.insert(orderId, (int) h, NEW);
+            seg.live++;
+            seg.used++;
+            return true;
+        }
+    }
+
+    /** Stops tracking {@code orderId}; false if it was not tracked. */
+    public boolean remove(long orderId) {
+        long h = hash(orderId);
+        Segment seg = segment(h);
+        synchronized (seg) {
+            Table t = seg.table;
+            int slot = t.find(orderId, (int) h);
+            if (slot < 0)
+                return false;
+            byte s;
+            do {
+                s = (byte) STATE.getAcquire(t.states, slot);
+            } while (!STATE.compareAndSet(t.states, slot, s, TOMBSTONE));
+            seg.live--;
+            return true;
+        }
+    }
+
+    public Optional<OrderStatus> status(long orderId) {
+        long h = hash(orderId);
+        Segment seg = segment(h);
+        while (true) {
+            Table t = seg.table;
+            int slot = t.find(orderId, (int) h);
+            if (slot < 0)
+                return Optional.empty();
+            byte s = (byte) STATE.getAcquire(t.states, slot);
+            if (s == MOVED) {
+                Thread.onSpinWait();
+                continue;
+            }
+            return s == TOMBSTONE ? Optional.empty() : Optional.of(STATUSES[s - 1]);
+        }
+    }
+
+    public boolean pay(long orderId) {
+        return apply(orderId, PAY);
+    }
+
+    public boolean prepare(long orderId) {
+        return apply(orderId, PREPARE);
+    }
+
+    public boolean markReady(long orderId) {
+        return apply(orderId, MARK_READY);
+    }
+
+    public boolean deliver(long orderId) {
+        return apply(orderId, DELIVER);
+    }
+
+    public boolean cancel(long orderId) {
+        return apply(orderId, CANCEL);
+    }
+
+    /** Orders currently tracked. */
+    public int size() {
+        int n = 0;
+        for (Segment seg : segments) {
+            synchronized (seg) {
+                n += seg.live;
+            }
+        }
+        return n;
+    }
+
+    private boolean apply(long orderId, int action) {
+        long h = hash(orderId);
+        Segment seg = segment(h);
+        while (true) {
+            Table t = seg.table;
+            int slot = t.find(orderId, (int) h);
+            if (slot < 0)
+                return false;
+            byte s = (byte) STATE.getAcquire(t.states, slot);
+            if (s == MOVED) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (s == TOMBSTONE)
+                return false;
+            byte next = NEXT[s][action];
+            if (next == FREE)
+                return false;
+            if (STATE.compareAndSet(t.states, slot, s, next)) {
+                bus.emit(new OrderStatusChanged(orderId, STATUSES[s - 1], STATUSES[next - 1]));
+                return true;
+            }
+        }
+    }
+
+    private Segment segment(long h) {
+        return segments[(int) (h >>> (64 - SEGMENT_BITS))];
+    }
+
+    /**
+     * Murmur3's 64-bit finalizer. Segments take the top bits and tables the low bits, so
+     * every bit of the id has to reach both ends; a plain multiply leaves the low bits
+     * depending only on the id's low bits, and stepped ids would share one probe chain.
+     */
+    private static long hash(long id) {
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static byte code(OrderStatus status) {
+        return (byte) (status.ordinal() + 1);
+    }
+
+    private static int tableSize(int slots) {
+        int n = MIN_TABLE;
+        while (n < slots)
+            n <<= 1;
+        return n;
+    }
+
+    /**
+     * One lock-protected shard. {@code used} counts live slots plus tombstones; slots are
+     * never reused, so a stale lookup cannot land on a different order, and tombstones
+     * are only dropped when the table is rebuilt.
+     */
+    private static final class Segment {
+        volatile Table table;
+        int live;
+        int used;
+
+        Segment(int size) {
+            this.table = new Table(size);
+        }
+
+        /**
+         * Copies live orders into a fresh table sized for twice their number. Each old
+         * slot is first switched to MOVED, so a transition racing with the copy either
+         * lands before it (and is copied) or fails and retries against the new table.
+         */
+        Table rehash() {
+            Table old = table;
+            Table fresh = new Table(tableSize(2 * (live + 1)));
+            for (int i = 0; i < old.keys.length; i++) {
+                byte s;
+                do {
+                    s = (byte) STATE.getAcquire(old.states, i);
+                } while (s != FREE && s != TOMBSTONE && !STATE.compareAndSet(old.states, i, s, MOVED));
+                if (s != FREE && s != TOMBSTONE)
+                    fresh.insert(old.keys[i], (int) hash(old.keys[i]), s);
+            }
+            used = live;
+            table = fresh;
+            return fresh;
+        }
+    }
+
+    private static final class Table {
+        final long[] keys;
+        final byte[] states;
+        final int mask;
+
+        Table(int size) {
+            this.keys = new long[size];
+            this.states = new byte[size];
+            this.mask = size - 1;
+        }
+
+        /** Slot holding {@code id} (possibly MOVED), or -1; tombstoned slots are skipped. */
+        int find(long id, int h) {
+            for (int i = h & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                byte s = (byte) STATE.getAcquire(states, i);
+                if (s == FREE)
+                    return -1;
+                if (s != TOMBSTONE && keys[i] == id)
+                    return i;
+            }
+            return -1;
+        }
+
+        /** Caller holds the segment lock; the key is written before the state publishes it. */
+        void insert(long id, int h, byte state) {
+            int i = h & mask;
+            while ((byte) STATE.getAcquire(states, i) != FREE)
+                i = (i + 1) & mask;
+            keys[i] = id;
+            STATE.setRelease(states, i, state);
+        }
+    }
+}
@@ -1,26 +1,43 @@
 package com.cafepos.app;
 
-import com.cafepos.common.Money;
 import com.cafepos.domain.LineItem;
+import com.cafepos.pricing.PricingService.LinePricing;
 import java.util.List;
 
 public final class ReceiptFormatter {
+    private static final int MAX_RETAINED_CHARS = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
+    private final ReceiptWriter writer;
+
+    public ReceiptFormatter() {
+        this(ReceiptTemplate.DEFAULT);
+    }
+
+    public ReceiptFormatter(ReceiptTemplate template) {
+        this.writer = new ReceiptWriter(template);
+    }
+
     public String format(long id, List<LineItem> items,
                         com.cafepos.pricing.PricingService.PricingResult pr, int taxPercent) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Order #").append(id).append("\n");
-        for (LineItem li : items) {
-            sb.append(" - ").append(li.product().name())
-              .append(" x").append(li.quantity())
-              .append(" = ").append(li.lineTotal()).append("\n");
-        }
-        sb.append("Subtotal: ").append(pr.subtotal()).append("\n");
-        if (pr.discount().asBigDecimal().signum() > 0) {
-            sb.append("Discount: -").append(pr.discount()).append("\n");
-        }
-        sb.append("Tax (").append(taxPercent).append("%): ").append(pr.tax()).append("\n");
-        sb.append("Total: ").append(pr.total());
-        return sb.toString();
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        writer.write(id, items, pr, taxPercent, sb);
+        return finish(sb);
+    }
+
+    /** The receipt with each item's discount and tax printed under it. */
+    public String format(long id, List<LineItem> items, LinePricing lp, int taxPercent) {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        writer.write(id, items, lp, taxPercent, sb);
+        return finish(sb);
     }
-}
 
+    private static String finish(StringBuilder sb) {
+        String receipt = sb.toString();
+        if (sb.capacity() > MAX_RETAINED_CHARS)
+            BUFFER.remove();
+        return receipt;
+    }
+}
@@ -0,0 +1,315 @@
+package com.cafepos.app;
+
+import com.cafepos.common.Money;
+import com.cafepos.domain.LineItem;
+import com.cafepos.pricing.PricingService.PricingResult;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A receipt layout compiled once into literal fragments and field slots.
+ * <p>
+ * Each section is one line of text with {@code {field}} placeholders. The item line may
+ * use {@code {name} {qty} {unitPrice} {lineTotal}}; every other section may use
+ * {@code {id} {subtotal} {discount} {taxPercent} {tax} {total}}. The discount line is
+ * left out when there is no discount. Receipts priced line by line also print a breakdown
+ * line under each item, which may use {@code {lineDiscount} {lineTax}}. Rendered item lines are cached per
+ * (name, quantity, line total), and amounts up to 100.00 come from a shared table of
+ * pre-rendered strings, so a repeat line costs one lookup and one bulk copy.
+ * <p>
+ * {@link #DEFAULT} reproduces the original receipt text exactly.
+ */
+public final class ReceiptTemplate {
+    public static final int DEFAULT_LINE_CACHE_CAPACITY = 4096;
+
+    enum Field {
+        ID("id"), NAME("name"), QTY("qty"), UNIT_PRICE("unitPrice"), LINE_TOTAL("lineTotal"),
+        SUBTOTAL("subtotal"), DISCOUNT("discount"), TAX_PERCENT("taxPercent"), TAX("tax"), TOTAL("total"),
+        LINE_DISCOUNT("lineDiscount"), LINE_TAX("lineTax");
+
+        final String placeholder;
+
+        Field(String placeholder) {
+            this.placeholder = placeholder;
+        }
+    }
+
+    private static final Set<Field> LINE_FIELDS = EnumSet.of(Field.NAME, Field.QTY, Field.UNIT_PRICE, Field.LINE_TOTAL);
+    private static final Set<Field> BREAKDOWN_FIELDS = EnumSet.of(Field.LINE_DISCOUNT, Field.LINE_TAX);
+    private static final Set<Field> ORDER_FIELDS =
+            EnumSet.complementOf(EnumSet.of(Field.NAME, Field.QTY, Field.UNIT_PRICE, Field.LINE_TOTAL,
+                    Field.LINE_DISCOUNT, Field.LINE_TAX));
+
+    /** Immutable pre-rendered text together with its UTF-8 bytes. */
+    static final class Fragment {
+        final String text;
+        final byte[] utf8;
+
+        Fragment(String text) {
+            this.text = text;
+            this.utf8 = text.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private record LineKey(String name, int qty, long totalCents) {}
+
+    private record Totals(long id, PricingResult pr, int taxPercent) {}
+
+    private static final Fragment[] AMOUNTS = new Fragment[10_001];
+
+    /** The original receipt layout; declared after the tables {@code compile} relies on. */
+    public static final ReceiptTemplate DEFAULT = builder().build();
+
+    private final Object[] header;
+    private final Object[] line;
+    private final Object[] breakdown;
+    private final Object[] subtotal;
+    private final Object[] discount;
+    private final Object[] tax;
+    private final Object[] total;
+    private final ConcurrentHashMap<LineKey, Fragment> lines = new ConcurrentHashMap<>();
+    private final int lineCacheCapacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private ReceiptTemplate(Builder b) {
+        this.header = compile(b.header, ORDER_FIELDS, true);
+        this.line = compile(b.line, LINE_FIELDS, true);
+        this.breakdown = compile(b.breakdown, BREAKDOWN_FIELDS, true);
+        this.subtotal = compile(b.subtotal, ORDER_FIELDS, true);
+        this.discount = compile(b.discount, ORDER_FIELDS, true);
+        this.tax = compile(b.tax, ORDER_FIELDS, true);
+        this.total = compile(b.total, ORDER_FIELDS, false);
+        this.lineCacheCapacity = b.lineCacheCapacity;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public long lineCacheHits() {
+        return hits.sum();
+    }
+
+    public long lineCacheMisses() {
+        return misses.sum();
+    }
+
+    public int lineCacheSize() {
+        return lines.size();
+    }
+
+    void render(long id, List<LineItem> items, PricingResult pr, int taxPercent, ReceiptWriter.Sink out)
+            throws IOException {
+        render(id, items, pr, null, null, taxPercent, out);
+    }
+
+    /** As above, with a breakdown line under each item when the per-line columns are given. */
+    void render(long id, List<LineItem> items, PricingResult pr, long[] lineDiscounts, long[] lineTaxes,
+                int taxPercent, ReceiptWriter.Sink out) throws IOException {
+        Totals totals = new Totals(id, pr, taxPercent);
+        section(header, totals, out);
+        for (int i = 0, n = items.size(); i < n; i++) {
+            out.fragment(line(items.get(i)));
+            if (lineDiscounts != null)
+                breakdown(lineDiscounts[i], lineTaxes[i], out);
+        }
+        section(subtotal, totals, out);
+        if (pr.discount().cents() > 0)
+            section(discount, totals, out);
+        section(tax, totals, out);
+        section(total, totals, out);
+    }
+
+    private Fragment line(LineItem li) {
+        Money lineTotal = li.lineTotal();
+        LineKey key = new LineKey(li.product().name(), li.quantity(), lineTotal.cents());
+        Fragment f = lines.get(key);
+        if (f != null) {
+            hits.increment();
+            return f;
+        }
+        misses.increment();
+        StringBuilder sb = new StringBuilder(64);
+        ReceiptWriter.Sink sink = new ReceiptWriter.CharSink(sb);
+        try {
+            for (Object segment : line) {
+                if (segment instanceof Fragment literal) {
+                    sink.fragment(literal);
+                } else {
+                    switch ((Field) segment) {
+                        case NAME -> sink.text(key.name());
+                        case QTY -> sink.number(key.qty());
+                        case UNIT_PRICE -> sink.money(key.totalCents() / key.qty());
+                        case LINE_TOTAL -> sink.money(key.totalCents());
+                        default -> throw new IllegalStateException("not a line field: " + segment);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        f = new Fragment(sb.toString());
+        if (lines.size() < lineCacheCapacity) {
+            Fragment raced = lines.putIfAbsent(key, f);
+            if (raced != null)
+                return raced;
+        }
+        return f;
+    }
+
+    private void breakdown(long discountCents, long taxCents, ReceiptWriter.Sink out) throws IOException {
+        for (Object segment : breakdown) {
+            if (segment instanceof Fragment literal) {
+                out.fragment(literal);
+            } else if (segment == Field.LINE_DISCOUNT) {
+                out.money(discountCents);
+            } else {
+                out.money(taxCents);
+            }
+        }
+    }
+
+    private static void section(Object[] segments, Totals totals, ReceiptWriter.Sink out) throws IOException {
+        for (Object segment : segments) {
+            if (segment instanceof Fragment literal) {
+                out.fragment(literal);
+                continue;
+            }
+            switch ((Field) segment) {
+                case ID -> out.number(totals.id());
+                case SUBTOTAL -> out.money(totals.pr().subtotal().cents());
+                case DISCOUNT -> out.money(totals.pr().discount().cents());
+                case TAX_PERCENT -> out.number(totals.taxPercent());
+                case TAX -> out.money(totals.pr().tax().cents());
+                case TOTAL -> out.money(totals.pr().total().cents());
+                default -> throw new IllegalStateException("not an order field: " + segment);
+            }
+        }
+    }
+
+    /** The shared pre-rendered text of {@code cents}, or null above 100.00. */
+    static Fragment amount(long cents) {
+        if (cents < 0 || cents >= AMOUNTS.length)
+            return null;
+        Fragment f = AMOUNTS[(int) cents];
+        if (f == null) {
+            f = new Fragment(Money.ofCents(cents).toString());
+            AMOUNTS[(int) cents] = f;
+        }
+        return f;
+    }
+
+    /** Splits {@code pattern} into literal fragments and fields from {@code allowed}. */
+    private static Object[] compile(String pattern, Set<Field> allowed, boolean newline) {
+        if (pattern == null)
+            throw new IllegalArgumentException("pattern required");
+        if (pattern.indexOf('\n') >= 0)
+            throw new IllegalArgumentException("a section is a single line: " + pattern);
+        List<Object> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            int open = pattern.indexOf('{', i);
+            if (open < 0) {
+                literal.append(pattern, i, pattern.length());
+                break;
+            }
+            int close = pattern.indexOf('}', open);
+            if (close < 0)
+                throw new IllegalArgumentException("unclosed placeholder in: " + pattern);
+            literal.append(pattern, i, open);
+            Field field = field(pattern.substring(open + 1, close), allowed, pattern);
+            if (literal.length() > 0) {
+                segments.add(new Fragment(literal.toString()));
+                literal.setLength(0);
+            }
+            segments.add(field);
+            i = close + 1;
+        }
+        if (newline)
+            literal.append('\n');
+        if (literal.length() > 0)
+            segments.add(new Fragment(literal.toString()));
+        return segments.toArray();
+    }
+
+    private static Field field(String name, Set<Field> allowed, String pattern) {
+        for (Field f : allowed) {
+            if (f.placeholder.equals(name))
+                return f;
+        }
+        throw new IllegalArgumentException("unknown placeholder {" + name + "} in: " + pattern);
+    }
+
+    /** Section patterns; defaults produce the original receipt. */
+    public static final class Builder {
+        private String header = "Order #{id}";
+        private String line = " - {name} x{qty} = {lineTotal}";
+        private String breakdown = "     discount -{lineDiscount}, tax {lineTax}";
+        private String subtotal = "Subtotal: {subtotal}";
+        private String discount = "Discount: -{discount}";
+        private String tax = "Tax ({taxPercent}%): {tax}";
+        private String total = "Total: {total}";
+        private int lineCacheCapacity = DEFAULT_LINE_CACHE_CAPACITY;
+
+        private Builder() {
+        }
+
+        public Builder header(String pattern) {
+            this.header = pattern;
+            return this;
+        }
+
+        public Builder line(String pattern) {
+            this.line = pattern;
+            return this;
+        }
+
+        /** Line under each item on receipts priced line by line. */
+        public Builder breakdown(String pattern) {
+            this.breakdown = pattern;
+            return this;
+        }
+
+        public Builder subtotal(String pattern) {
+            this.subtotal = pattern;
+            return this;
+        }
+
+        public Builder discount(String pattern) {
+            this.discount = pattern;
+            return this;
+        }
+
+        public Builder tax(String pattern) {
+            this.tax = pattern;
+            return this;
+        }
+
+        public Builder total(String pattern) {
+            this.total = pattern;
+            return this;
+        }
+
+        /** Maximum number of distinct item lines kept; 0 disables the cache. */
+        public Builder lineCacheCapacity(int capacity) {
+            if (capacity < 0)
+                throw new IllegalArgumentException("cache capacity cannot be negative");
+            this.lineCacheCapacity = capacity;
+            return this;
+        }
+
+        /** @throws IllegalArgumentException on an unknown or misplaced placeholder */
+        public ReceiptTemplate build() {
+            return new ReceiptTemplate(this);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.cafepos.app;
+
+import com.cafepos.common.Money;
+import com.cafepos.domain.LineItem;
+import com.cafepos.pricing.PricingService.LinePricing;
+import com.cafepos.pricing.PricingService.PricingResult;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Renders a {@link ReceiptTemplate} straight into a caller's {@link Appendable} or
+ * {@link ByteBuffer}. Numbers and amounts are written digit by digit (or copied from
+ * the template's pre-rendered fragments) and product names are UTF-8 encoded in place,
+ * so no intermediate Strings are built; the bytes equal
+ * {@code format(...).getBytes(UTF_8)}.
+ */
+public final class ReceiptWriter {
+    private static final int INITIAL_BUFFER = 1024;
+
+    private static final ThreadLocal<ByteBuffer> BYTES =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(INITIAL_BUFFER));
+
+    private final ReceiptTemplate template;
+
+    public ReceiptWriter() {
+        this(ReceiptTemplate.DEFAULT);
+    }
+
+    public ReceiptWriter(ReceiptTemplate template) {
+        if (template == null)
+            throw new IllegalArgumentException("template required");
+        this.template = template;
+    }
+
+    /** Appends the receipt to {@code out}. */
+    public void write(long id, List<LineItem> items, PricingResult pr, int taxPercent, Appendable out) {
+        try {
+            template.render(id, items, pr, taxPercent, new CharSink(out));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Appends the receipt with each item's share of the discount and tax under it. */
+    public void write(long id, List<LineItem> items, LinePricing lp, int taxPercent, Appendable out) {
+        if (lp.lineCents().length != items.size())
+            throw new IllegalArgumentException("pricing does not match the items");
+        try {
+            template.render(id, items, lp.totals(), lp.discountCents(), lp.taxCents(), taxPercent, new CharSink(out));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the receipt as UTF-8 at {@code out}'s position and returns the number of
+     * bytes written.
+     *
+     * @throws BufferOverflowException if {@code out} has too little room; its position is then unspecified
+     */
+    public int write(long id, List<LineItem> items, PricingResult pr, int taxPercent, ByteBuffer out) {
+        int start = out.position();
+        try {
+            template.render(id, items, pr, taxPercent, new ByteSink(out));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.position() - start;
+    }
+
+    /**
+     * Renders into this thread's reusable direct buffer, growing it as needed, and returns
+     * it flipped for reading. The contents stay valid until the thread's next call.
+     */
+    public ByteBuffer render(long id, List<LineItem> items, PricingResult pr, int taxPercent) {
+        ByteBuffer buf = BYTES.get();
+        while (true) {
+            buf.clear();
+            try {
+                write(id, items, pr, taxPercent, buf);
+                return buf.flip();
+            } catch (BufferOverflowException e) {
+                buf = ByteBuffer.allocateDirect(buf.capacity() * 2);
+                BYTES.set(buf);
+            }
+        }
+    }
+
+    /** The handful of primitives a receipt template needs. */
+    abstract static class Sink {
+        private final byte[] digits = new byte[20];
+
+        abstract Sink ascii(char c) throws IOException;
+
+        abstract Sink text(String s) throws IOException;
+
+        abstract Sink fragment(ReceiptTemplate.Fragment f) throws IOException;
+
+        Sink ascii(String s) throws IOException {
+            for (int i = 0, n = s.length(); i < n; i++)
+                ascii(s.charAt(i));
+            return this;
+        }
+
+        Sink number(long v) throws IOException {
+            if (v < 0) {
+                ascii('-');
+                if (v == Long.MIN_VALUE)
+                    return ascii("9223372036854775808");
+                v = -v;
+            }
+            int n = digits.length;
+            do {
+                digits[--n] = (byte) ('0' + v % 10);
+                v /= 10;
+            } while (v != 0);
+            for (; n < digits.length; n++)
+                ascii((char) digits[n]);
+            return this;
+        }
+
+        /** Same text as {@link Money#toString()}. */
+        Sink money(long cents) throws IOException {
+            ReceiptTemplate.Fragment cached = ReceiptTemplate.amount(cents);
+            if (cached != null)
+                return fragment(cached);
+            long fraction = cents % 100;
+            number(cents / 100).ascii('.');
+            return ascii((char) ('0' + fraction / 10)).ascii((char) ('0' + fraction % 10));
+        }
+    }
+
+    static final class CharSink extends Sink {
+        private final Appendable out;
+
+        CharSink(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        Sink ascii(char c) throws IOException {
+            out.append(c);
+            return this;
+        }
+
+        @Override
+        Sink text(String s) throws IOException {
+            out.append(s);
+            return this;
+        }
+
+        @Override
+        Sink fragment(ReceiptTemplate.Fragment f) throws IOException {
+            out.append(f.text);
+            return this;
+        }
+    }
+
+    private static final class ByteSink extends Sink {
+        private final ByteBuffer out;
+
+        ByteSink(ByteBuffer out) {
+            this.out = out;
+        }
+
+        @Override
+        Sink ascii(char c) {
+            out.put((byte) c);
+            return this;
+        }
+
+        @Override
+        Sink fragment(ReceiptTemplate.Fragment f) {
+            out.put(f.utf8);
+            return this;
+        }
+
+        /** UTF-8, with unpaired surrogates replaced by '?' as {@code String.getBytes} does. */
+        @Override
+        Sink text(String s) {
+            for (int i = 0, n = s.length(); i < n; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    out.put((byte) c);
+                } else if (c < 0x800) {
+                    out.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    out.put((byte) (0xF0 | cp >> 18))
+                       .put((byte) (0x80 | cp >> 12 & 0x3F))
+                       .put((byte) (0x80 | cp >> 6 & 0x3F))
+                       .put((byte) (0x80 | cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    out.put((byte) '?');
+                } else {
+                    out.put((byte) (0xE0 | c >> 12))
+                       .put((byte) (0x80 | c >> 6 & 0x3F))
+                       .put((byte) (0x80 | c & 0x3F));
+                }
+            }
+            return this;
+        }
+    }
+}
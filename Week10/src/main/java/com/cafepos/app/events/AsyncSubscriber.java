@@ -0,0 +1,96 @@
+package com.cafepos.app.events;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Subscriber with its own bounded queue. At most one drain task per subscriber is
+ * queued on the executor at a time, so a handler sees its events in emit order and
+ * is never run concurrently with itself.
+ */
+final class AsyncSubscriber<T> extends Subscriber<T> {
+    private record Envelope<T>(T event, long enqueuedAt) {}
+
+    private final ArrayBlockingQueue<Envelope<T>> queue;
+    private final Executor executor;
+    private final EventBus.OverflowPolicy policy;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAccumulator maxLag = new LongAccumulator(Math::max, 0);
+    private volatile long lastLag;
+
+    AsyncSubscriber(Class<T> type, Consumer<T> handler, Executor executor,
+                    int capacity, EventBus.OverflowPolicy policy) {
+        super(type, handler);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.executor = executor;
+        this.policy = policy;
+    }
+
+    @Override
+    void deliver(T event) {
+        var envelope = new Envelope<>(event, System.nanoTime());
+        switch (policy) {
+            case BLOCK -> {
+                while (!queue.offer(envelope)) {
+                    schedule();
+                    try {
+                        queue.put(envelope);
+                        break;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        dropped.increment();
+                        return;
+                    }
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(envelope)) {
+                    if (queue.poll() != null)
+                        dropped.increment();
+                }
+            }
+            case DROP_NEWEST -> {
+                if (!queue.offer(envelope)) {
+                    dropped.increment();
+                    return;
+                }
+            }
+        }
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true))
+            executor.execute(this::drain);
+    }
+
+    private void drain() {
+        do {
+            Envelope<T> next;
+            while ((next = queue.poll()) != null) {
+                long lag = System.nanoTime() - next.enqueuedAt();
+                lastLag = lag;
+                maxLag.accumulate(lag);
+                try {
+                    handler.accept(next.event());
+                    delivered.increment();
+                } catch (RuntimeException e) {
+                    failed.increment();
+                }
+            }
+            scheduled.set(false);
+        } while (!queue.isEmpty() && scheduled.compareAndSet(false, true));
+    }
+
+    @Override
+    SubscriberMetrics metrics() {
+        return new SubscriberMetrics(type, queue.size(), delivered.sum(), dropped.sum(),
+                failed.sum(), lastLag, maxLag.get());
+    }
+}
@@ -0,0 +1,42 @@
+package com.cafepos.app.events;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Subscriber whose handler takes a {@code List<T>}. Single events arrive as a one-element
+ * list; {@link EventBus#emitAll} passes all matching events of the call as one list.
+ * Delivery (sync or async) is delegated to {@code sink}, so batches queue as one item.
+ */
+final class BatchSubscriber<T> extends Subscriber<T> {
+    private final Subscriber<List<T>> sink;
+
+    BatchSubscriber(Class<T> type, Subscriber<List<T>> sink) {
+        super(type, event -> sink.deliver(List.of(event)));
+        this.sink = sink;
+    }
+
+    @Override
+    void deliver(T event) {
+        sink.deliver(List.of(event));
+    }
+
+    @Override
+    boolean batching() {
+        return true;
+    }
+
+    /** {@code events} must not be touched by the caller afterwards; it is handed over, not copied. */
+    @Override
+    void deliverAll(List<T> events) {
+        if (!events.isEmpty())
+            sink.deliver(Collections.unmodifiableList(events));
+    }
+
+    @Override
+    SubscriberMetrics metrics() {
+        SubscriberMetrics m = sink.metrics();
+        return new SubscriberMetrics(type, m.queueDepth(), m.delivered(), m.dropped(),
+                m.failed(), m.lastLagNanos(), m.maxLagNanos());
+    }
+}
@@ -1,21 +1,231 @@
 package com.cafepos.app.events;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
+/**
+ * Type-keyed publish/subscribe connector. By default handlers run synchronously on
+ * the emitting thread; {@link #async} gives every subscriber a bounded queue drained
+ * on an executor so a slow handler cannot stall the emitter.
+ * <p>
+ * A handler registered for a type also receives events of its subtypes, so a handler
+ * for {@link OrderEvent} sees both {@link OrderCreated} and {@link OrderPaid}.
+ * Registration is thread-safe: {@code on} and {@code unsubscribe} publish a new
+ * immutable snapshot of the handler list, and {@code emit} reads the current snapshot
+ * without locking.
+ */
 public final class EventBus {
-    private final Map<Class<?>, List<Consumer<?>>> handlers = new HashMap<>();
+    /** What {@code emit} does when an async subscriber's queue is full. */
+    public enum OverflowPolicy {
+        /** Wait for space; applies backpressure to the emitter. */
+        BLOCK,
+        /** Discard the oldest queued event to make room. */
+        DROP_OLDEST,
+        /** Discard the event being emitted. */
+        DROP_NEWEST
+    }
+
+    /**
+     * Handlers matching one event class, with each handler's position in
+     * {@link Registry#all} so {@code emitAll} can index its batch chunks by slot.
+     */
+    private record Route(Subscriber<?>[] matches, int[] slots) {
+        static Route of(Subscriber<?>[] all, Subscriber<?>[] matches) {
+            int[] slots = new int[matches.length];
+            for (int i = 0, j = 0; i < matches.length; i++) {
+                while (all[j] != matches[i])
+                    j++;
+                slots[i] = j;
+            }
+            return new Route(matches, slots);
+        }
+    }
+
+    /**
+     * Immutable handler list plus an event class -> matching handlers cache. A new
+     * registry carries the previous cache forward, patched for the added or removed
+     * handler, so registration does not force emitters to re-resolve.
+     */
+    private static final class Registry {
+        static final Registry EMPTY = new Registry(new Subscriber<?>[0], new ConcurrentHashMap<>());
+
+        final Subscriber<?>[] all;
+        final ConcurrentHashMap<Class<?>, Route> resolved;
+
+        private Registry(Subscriber<?>[] all, ConcurrentHashMap<Class<?>, Route> resolved) {
+            this.all = all;
+            this.resolved = resolved;
+        }
+
+        Registry with(Subscriber<?> added) {
+            Subscriber<?>[] next = Arrays.copyOf(all, all.length + 1);
+            next[all.length] = added;
+            var cache = new ConcurrentHashMap<Class<?>, Route>();
+            resolved.forEach((type, route) -> {
+                if (added.type.isAssignableFrom(type)) {
+                    Subscriber<?>[] matches = Arrays.copyOf(route.matches, route.matches.length + 1);
+                    matches[matches.length - 1] = added;
+                    int[] slots = Arrays.copyOf(route.slots, route.slots.length + 1);
+                    slots[slots.length - 1] = all.length;
+                    route = new Route(matches, slots);
+                }
+                cache.put(type, route);
+            });
+            return new Registry(next, cache);
+        }
+
+        Registry without(Subscriber<?> removed) {
+            Subscriber<?>[] next = exclude(all, removed);
+            var cache = new ConcurrentHashMap<Class<?>, Route>();
+            resolved.forEach((type, route) -> cache.put(type, Route.of(next, exclude(route.matches, removed))));
+            return new Registry(next, cache);
+        }
+
+        Route resolve(Class<?> eventType) {
+            Route route = resolved.get(eventType);
+            if (route == null) {
+                Subscriber<?>[] matches = Arrays.stream(all)
+                        .filter(s -> s.type.isAssignableFrom(eventType))
+                        .toArray(Subscriber<?>[]::new);
+                route = Route.of(all, matches);
+                resolved.putIfAbsent(eventType, route);
+            }
+            return route;
+        }
+
+        private static Subscriber<?>[] exclude(Subscriber<?>[] from, Subscriber<?> s) {
+            return Arrays.stream(from).filter(x -> x != s).toArray(Subscriber<?>[]::new);
+        }
+    }
+
+    private final Object registrationLock = new Object();
+    private volatile Registry registry = Registry.EMPTY;
+    private final Executor executor;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+
+    public EventBus() {
+        this(null, 0, OverflowPolicy.BLOCK);
+    }
+
+    private EventBus(Executor executor, int queueCapacity, OverflowPolicy overflowPolicy) {
+        this.executor = executor;
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Creates a bus whose subscribers each get a queue of {@code queueCapacity} events,
+     * drained on {@code executor}. Handler exceptions are counted, not rethrown.
+     */
+    public static EventBus async(Executor executor, int queueCapacity, OverflowPolicy overflowPolicy) {
+        if (executor == null)
+            throw new IllegalArgumentException("executor required");
+        if (queueCapacity <= 0)
+            throw new IllegalArgumentException("queue capacity must be > 0");
+        if (overflowPolicy == null)
+            throw new IllegalArgumentException("overflow policy required");
+        return new EventBus(executor, queueCapacity, overflowPolicy);
+    }
 
-    public <T> void on(Class<T> type, Consumer<T> h) {
-        handlers.computeIfAbsent(type, k -> new ArrayList<>()).add(h);
+    /** Registers {@code h} for {@code type} and its subtypes; safe to call while others emit. */
+    public <T> Subscription on(Class<T> type, Consumer<T> h) {
+        if (type == null || h == null)
+            throw new IllegalArgumentException("type and handler required");
+        Subscriber<T> s = executor == null
+                ? new Subscriber<>(type, h)
+                : new AsyncSubscriber<>(type, h, executor, queueCapacity, overflowPolicy);
+        return register(s);
+    }
+
+    /**
+     * Registers a handler that receives events in chunks: one list per
+     * {@link #emitAll} call (and a one-element list per {@link #emit}).
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> Subscription onBatch(Class<T> type, Consumer<List<T>> h) {
+        if (type == null || h == null)
+            throw new IllegalArgumentException("type and handler required");
+        Class<List<T>> listType = (Class) List.class;
+        Subscriber<List<T>> sink = executor == null
+                ? new Subscriber<>(listType, h)
+                : new AsyncSubscriber<>(listType, h, executor, queueCapacity, overflowPolicy);
+        return register(new BatchSubscriber<>(type, sink));
+    }
+
+    private Subscription register(Subscriber<?> s) {
+        synchronized (registrationLock) {
+            registry = registry.with(s);
+        }
+        return () -> remove(s);
+    }
+
+    private void remove(Subscriber<?> s) {
+        synchronized (registrationLock) {
+            if (Arrays.asList(registry.all).contains(s))
+                registry = registry.without(s);
+        }
     }
 
     @SuppressWarnings("unchecked")
     public <T> void emit(T event) {
-        var list = handlers.getOrDefault(event.getClass(), List.of());
-        for (var h : list) {
-            ((Consumer<T>) h).accept(event);
+        for (var s : registry.resolve(event.getClass()).matches) {
+            ((Subscriber<T>) s).deliver(event);
+        }
+    }
+
+    /**
+     * Emits a batch against one handler snapshot. Per-event handlers see each event in
+     * order; afterwards each batch handler gets a single list of the events it matches.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void emitAll(Collection<?> events) {
+        if (events == null)
+            throw new IllegalArgumentException("events required");
+        Registry reg = registry;
+        List<Object>[] chunks = null;
+        Class<?> lastType = null;
+        Route route = null;
+        for (Object event : events) {
+            if (event.getClass() != lastType) {
+                lastType = event.getClass();
+                route = reg.resolve(lastType);
+            }
+            Subscriber[] matches = route.matches;
+            for (int i = 0; i < matches.length; i++) {
+                Subscriber s = matches[i];
+                if (!s.batching()) {
+                    s.deliver(event);
+                    continue;
+                }
+                if (chunks == null)
+                    chunks = new List[reg.all.length];
+                int slot = route.slots[i];
+                if (chunks[slot] == null)
+                    chunks[slot] = new ArrayList<>(events.size());
+                chunks[slot].add(event);
+            }
+        }
+        if (chunks == null)
+            return;
+        for (int slot = 0; slot < chunks.length; slot++) {
+            if (chunks[slot] != null)
+                ((Subscriber) reg.all[slot]).deliverAll(chunks[slot]);
         }
     }
-}
 
+    public boolean isAsync() {
+        return executor != null;
+    }
+
+    /** Current counters for every live subscription, in registration order. */
+    public List<SubscriberMetrics> metrics() {
+        List<SubscriberMetrics> result = new ArrayList<>();
+        for (var s : registry.all) {
+            result.add(s.metrics());
+        }
+        return result;
+    }
+}
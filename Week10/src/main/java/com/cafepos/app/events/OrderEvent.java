@@ -1,4 +1,3 @@
 package com.cafepos.app.events;
 
-public sealed interface OrderEvent permits OrderCreated, OrderPaid {}
-
+public sealed interface OrderEvent permits OrderCreated, OrderPaid, OrderStatusChanged {}
@@ -0,0 +1,5 @@
+package com.cafepos.app.events;
+
+import com.cafepos.domain.OrderStatus;
+
+public record OrderStatusChanged(long orderId, OrderStatus from, OrderStatus to) implements OrderEvent {}
@@ -0,0 +1,37 @@
+package com.cafepos.app.events;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/** A handler registered for one event type; delivers on the emitting thread. */
+class Subscriber<T> {
+    final Class<T> type;
+    final Consumer<T> handler;
+    final LongAdder delivered = new LongAdder();
+
+    Subscriber(Class<T> type, Consumer<T> handler) {
+        this.type = type;
+        this.handler = handler;
+    }
+
+    void deliver(T event) {
+        handler.accept(event);
+        delivered.increment();
+    }
+
+    /** Whether {@link EventBus#emitAll} should hand this subscriber one list per call. */
+    boolean batching() {
+        return false;
+    }
+
+    void deliverAll(List<T> events) {
+        for (T event : events) {
+            deliver(event);
+        }
+    }
+
+    SubscriberMetrics metrics() {
+        return new SubscriberMetrics(type, 0, delivered.sum(), 0, 0, 0, 0);
+    }
+}
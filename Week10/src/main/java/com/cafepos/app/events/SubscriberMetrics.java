@@ -0,0 +1,8 @@
+package com.cafepos.app.events;
+
+/**
+ * Point-in-time counters for one subscription. Queue depth and lag are always zero
+ * for synchronous subscribers, which run on the emitting thread.
+ */
+public record SubscriberMetrics(Class<?> eventType, int queueDepth, long delivered, long dropped,
+                                long failed, long lastLagNanos, long maxLagNanos) {}
@@ -0,0 +1,11 @@
+package com.cafepos.app.events;
+
+/** Handle returned by {@link EventBus#on}; closing it removes the handler. */
+public interface Subscription extends AutoCloseable {
+    void unsubscribe();
+
+    @Override
+    default void close() {
+        unsubscribe();
+    }
+}
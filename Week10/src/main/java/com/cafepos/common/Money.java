@@ -3,49 +3,95 @@ package com.cafepos.common;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 
+/**
+ * Non-negative amount with two decimal places, stored as a {@code long} of cents.
+ * Rounding matches {@code BigDecimal.setScale(2, HALF_UP)}; arithmetic that would
+ * overflow a {@code long} throws {@link ArithmeticException}.
+ */
 public final class Money implements Comparable<Money> {
-    private final BigDecimal amount;
+    private static final int CACHE_LIMIT = 10_000;
+    private static final Money[] CACHE = new Money[CACHE_LIMIT + 1];
+    private static final Money ZERO = new Money(0);
+    private static final long MAX_EXACT_CENTS = 1L << 50;
+
+    static {
+        CACHE[0] = ZERO;
+    }
+
+    private final long cents;
+    private BigDecimal decimal;
 
     public static Money of(double value) {
         if (value < 0)
             throw new IllegalArgumentException("amount cannot be negative");
-        return new Money(BigDecimal.valueOf(value));
+        long c = Math.round(value * 100);
+        if (c < MAX_EXACT_CENTS && c / 100.0 == value)
+            return ofCents(c);
+        return of(BigDecimal.valueOf(value));
     }
 
     public static Money of(BigDecimal value) {
         if (value == null)
             throw new IllegalArgumentException("amount is required");
-        if (value.compareTo(BigDecimal.ZERO) < 0)
+        if (value.signum() < 0)
             throw new IllegalArgumentException("amount cannot be negative");
-        return new Money(value.setScale(2, RoundingMode.HALF_UP));
+        return ofCents(value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public static Money ofCents(long cents) {
+        if (cents < 0)
+            throw new IllegalArgumentException("amount cannot be negative");
+        if (cents > CACHE_LIMIT)
+            return new Money(cents);
+        Money m = CACHE[(int) cents];
+        if (m == null) {
+            m = new Money(cents);
+            CACHE[(int) cents] = m;
+        }
+        return m;
     }
 
     public static Money zero() {
-        return new Money(BigDecimal.ZERO);
+        return ZERO;
     }
 
-    private Money(BigDecimal a) {
-        this.amount = a.setScale(2, RoundingMode.HALF_UP);
+    private Money(long cents) {
+        this.cents = cents;
     }
 
     public Money add(Money other) {
         if (other == null)
             throw new IllegalArgumentException("other money cannot be null");
-        return new Money(this.amount.add(other.amount));
+        if (other.cents == 0)
+            return this;
+        if (cents == 0)
+            return other;
+        return ofCents(Math.addExact(cents, other.cents));
     }
 
     public Money multiply(int qty) {
         if (qty < 0)
             throw new IllegalArgumentException("quantity cannot be negative");
-        return new Money(this.amount.multiply(BigDecimal.valueOf(qty)));
+        if (qty == 1)
+            return this;
+        return ofCents(Math.multiplyExact(cents, (long) qty));
+    }
+
+    public long cents() {
+        return cents;
     }
 
     public BigDecimal asBigDecimal() {
-        return amount;
+        BigDecimal d = decimal;
+        if (d == null) {
+            d = BigDecimal.valueOf(cents, 2);
+            decimal = d;
+        }
+        return d;
     }
 
     public BigDecimal getAmount() {
-        return amount;
+        return asBigDecimal();
     }
 
     @Override
@@ -55,24 +101,24 @@ public final class Money implements Comparable<Money> {
         if (obj == null || getClass() != obj.getClass())
             return false;
         Money money = (Money) obj;
-        return amount.equals(money.amount);
+        return cents == money.cents;
     }
 
     @Override
     public int hashCode() {
-        return amount.hashCode();
+        return Long.hashCode(cents);
     }
 
     @Override
     public String toString() {
-        return amount.toString();
+        long fraction = cents % 100;
+        return (cents / 100) + (fraction < 10 ? ".0" : ".") + fraction;
     }
 
     @Override
     public int compareTo(Money other) {
         if (other == null)
             throw new IllegalArgumentException("other money cannot be null");
-        return this.amount.compareTo(other.amount);
+        return Long.compare(cents, other.cents);
     }
 }
-
@@ -0,0 +1,92 @@
+package com.cafepos.decorator;
+
+import com.cafepos.catalog.Product;
+import com.cafepos.common.Money;
+
+/**
+ * Immutable, flattened form of a {@link ProductDecorator} chain. The unit price and
+ * display name are evaluated once from the chain, so {@code price()} and {@code name()}
+ * no longer walk the wrapped products on every call.
+ */
+public final class CompiledProduct implements Product, Priced {
+    public static final int EXTRA_SHOT = 1;
+    public static final int OAT_MILK = 1 << 1;
+    public static final int SIZE_LARGE = 1 << 2;
+
+    private final String id;
+    private final String name;
+    private final Money basePrice;
+    private final Money price;
+    private final int addOns;
+
+    private CompiledProduct(String id, String name, Money basePrice, Money price, int addOns) {
+        this.id = id;
+        this.name = name;
+        this.basePrice = basePrice;
+        this.price = price;
+        this.addOns = addOns;
+    }
+
+    /**
+     * Collapses a decorator chain into a single product. Undecorated products and
+     * already compiled products are returned unchanged.
+     */
+    public static Product compile(Product product) {
+        if (!(product instanceof ProductDecorator chain))
+            return product;
+        int addOns = 0;
+        Product p = chain;
+        while (p instanceof ProductDecorator d) {
+            addOns |= addOnOf(d);
+            p = d.product;
+        }
+        return new CompiledProduct(chain.id(), chain.name(), chain.basePrice(), chain.price(), addOns);
+    }
+
+    /** Restores a flattened product from previously captured values, e.g. when reading an order log. */
+    public static CompiledProduct of(String id, String name, Money basePrice, Money price, int addOns) {
+        if (id == null || name == null || basePrice == null || price == null)
+            throw new IllegalArgumentException("id, name and prices are required");
+        return new CompiledProduct(id, name, basePrice, price, addOns);
+    }
+
+    private static int addOnOf(ProductDecorator d) {
+        if (d instanceof ExtraShot) return EXTRA_SHOT;
+        if (d instanceof OatMilk) return OAT_MILK;
+        if (d instanceof SizeLarge) return SIZE_LARGE;
+        return 0;
+    }
+
+    @Override
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Money basePrice() {
+        return basePrice;
+    }
+
+    @Override
+    public Money price() {
+        return price;
+    }
+
+    public int addOns() {
+        return addOns;
+    }
+
+    public boolean hasAddOn(int addOn) {
+        return (addOns & addOn) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
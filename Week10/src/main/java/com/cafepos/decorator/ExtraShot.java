@@ -4,13 +4,15 @@ import com.cafepos.catalog.Product;
 import com.cafepos.common.Money;
 
 public final class ExtraShot extends ProductDecorator {
+    private static final Money SURCHARGE = Money.of(0.80);
+
     public ExtraShot(Product product) {
         super(product);
     }
 
     @Override
     public Money price() {
-        return basePrice().add(Money.of(0.80));
+        return basePrice().add(SURCHARGE);
     }
 
     @Override
@@ -5,17 +5,66 @@ import java.math.BigDecimal;
 import com.cafepos.common.Money;
 
 public final class Order {
+    /** Set {@code -Dcafepos.order.verifySubtotal=true} to cross-check the running subtotal. */
+    private static final boolean VERIFY_BY_DEFAULT = Boolean.getBoolean("cafepos.order.verifySubtotal");
+
     private final long id;
     private final List<LineItem> items = new ArrayList<>();
+    private final boolean verifySubtotal;
+    private long subtotalCents;
+    private long version;
 
     public Order(long id) {
+        this(id, VERIFY_BY_DEFAULT);
+    }
+
+    /**
+     * @param verifySubtotal when true, every {@link #subtotal()} call recomputes the
+     *                       sum from the line items and fails if the running total drifted
+     */
+    public Order(long id, boolean verifySubtotal) {
         this.id = id;
+        this.verifySubtotal = verifySubtotal;
     }
 
     public long id() {
         return id;
     }
 
+    /**
+     * Content version: counts the changes to the items, starting at 0, and carries over
+     * to {@link #copy()}. It is kept per order rather than drawn from a shared counter, so
+     * {@code (id, version)} identifies the content only among an order and its copies;
+     * repositories {@linkplain #restoreVersion continue the count} when a new order
+     * replaces a stored one with the same id.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Moves the version forward to {@code version}, for stores rebuilding a saved order or
+     * replacing one; the items are unchanged.
+     */
+    public void restoreVersion(long version) {
+        if (version < this.version)
+            throw new IllegalArgumentException("version cannot go back from " + this.version + " to " + version);
+        this.version = version;
+    }
+
+    /**
+     * A separate order with the same id, items and {@link #version()}; changing either
+     * one leaves the other as it was. Copies the item list, so unlike {@link #subtotal()}
+     * this is O(lines).
+     */
+    public Order copy() {
+        Order copy = new Order(id, verifySubtotal);
+        copy.items.addAll(items);
+        copy.subtotalCents = subtotalCents;
+        copy.version = version;
+        return copy;
+    }
+
     public List<LineItem> items() {
         return List.copyOf(items);
     }
@@ -25,35 +74,57 @@ public final class Order {
             throw new IllegalArgumentException("line item cannot be null");
         if (li.quantity() <= 0)
             throw new IllegalArgumentException("quantity must be > 0");
+        long updated = Math.addExact(subtotalCents, li.lineTotal().cents());
         items.add(li);
+        subtotalCents = updated;
+        version++;
     }
 
     public void removeLastItem() {
-        if (!items.isEmpty())
-            items.remove(items.size() - 1);
+        if (!items.isEmpty()) {
+            LineItem removed = items.remove(items.size() - 1);
+            subtotalCents = Math.subtractExact(subtotalCents, removed.lineTotal().cents());
+            version++;
+        }
     }
 
     public Money subtotal() {
+        Money subtotal = Money.ofCents(subtotalCents);
+        if (verifySubtotal) {
+            Money recomputed = recomputeSubtotal();
+            if (!recomputed.equals(subtotal))
+                throw new IllegalStateException("running subtotal " + subtotal
+                        + " does not match recomputed " + recomputed + " for order " + id);
+        }
+        return subtotal;
+    }
+
+    private Money recomputeSubtotal() {
         return items.stream()
                 .map(LineItem::lineTotal)
                 .reduce(Money.zero(), Money::add);
     }
 
     public Money taxAtPercent(int percent) {
+        if (percent < 0)
+            throw new IllegalArgumentException("tax percent cannot be negative");
+        return taxOn(subtotal(), percent);
+    }
+
+    public Money totalWithTax(int percent) {
         if (percent < 0)
             throw new IllegalArgumentException("tax percent cannot be negative");
         Money subtotal = subtotal();
+        return subtotal.add(taxOn(subtotal, percent));
+    }
+
+    private static Money taxOn(Money subtotal, int percent) {
         if (subtotal.equals(Money.zero())) {
             return Money.zero();
         }
-        var bd = subtotal().asBigDecimal()
+        var bd = subtotal.asBigDecimal()
                 .multiply(BigDecimal.valueOf(percent))
                 .divide(BigDecimal.valueOf(100));
         return Money.of(bd);
     }
-
-    public Money totalWithTax(int percent) {
-        return subtotal().add(taxAtPercent(percent));
-    }
 }
-
@@ -1,9 +1,22 @@
 package com.cafepos.domain;
 
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface OrderRepository {
+    /** Stores a copy of {@code order}; changing {@code order} afterwards does not change what is stored. */
     void save(Order order);
     Optional<Order> findById(long id);
-}
 
+    /**
+     * Applies {@code mutation} to a copy of the stored order and stores the copy in its
+     * place, holding that order's slot so concurrent updates of the same id are
+     * serialized. Orders already handed out by {@link #findById} never change underneath
+     * their readers. Returns the updated order, or empty if no order exists.
+     * <p>
+     * Each call copies the order's item list, so it costs O(lines) on top of the
+     * O(1) running subtotal; building an n-line order one line per update is O(n²).
+     * Add a round's lines in one mutation instead.
+     */
+    Optional<Order> update(long id, Consumer<? super Order> mutation);
+}
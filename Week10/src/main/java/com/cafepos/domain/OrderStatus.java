@@ -0,0 +1,11 @@
+package com.cafepos.domain;
+
+/** Where an order is in its lifecycle; mirrors the Week 9 order state machine. */
+public enum OrderStatus {
+    NEW, PREPARING, READY, DELIVERED, CANCELLED;
+
+    /** True once no action can move the order any further. */
+    public boolean isTerminal() {
+        return this == DELIVERED || this == CANCELLED;
+    }
+}
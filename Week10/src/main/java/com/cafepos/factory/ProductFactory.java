@@ -4,36 +4,143 @@ import com.cafepos.catalog.Product;
 import com.cafepos.catalog.SimpleProduct;
 import com.cafepos.common.Money;
 import com.cafepos.decorator.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Builds products from recipes such as {@code "LAT+L"}. Results are cached per recipe
+ * string; every cached product is immutable, so one instance can be shared by any
+ * number of orders and threads.
+ * <p>
+ * The cache is a fixed array of slots picked by the recipe's hash, like
+ * {@link com.cafepos.pricing.PricingCache}: it never grows and never locks, and a recipe
+ * landing in an occupied slot replaces what was there, so the cache follows the
+ * recipes currently being ordered.
+ */
 public final class ProductFactory {
+    public static final int DEFAULT_CACHE_CAPACITY = 1024;
+
+    private static final Product ESPRESSO = new SimpleProduct("P-ESP", "Espresso", Money.of(2.50));
+    private static final Product LATTE = new SimpleProduct("P-LAT", "Latte", Money.of(3.20));
+    private static final Product CAPPUCCINO = new SimpleProduct("P-CAP", "Cappuccino", Money.of(3.00));
+    private static final Product AMERICANO = new SimpleProduct("P-AME", "Americano", Money.of(2.80));
+
+    private record Entry(String recipe, Product product) {}
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ProductFactory() {
+        this(DEFAULT_CACHE_CAPACITY);
+    }
+
+    /**
+     * @param cacheCapacity number of cache slots, rounded up to a power of two; 0 disables
+     *                      caching
+     */
+    public ProductFactory(int cacheCapacity) {
+        if (cacheCapacity < 0 || cacheCapacity > 1 << 30)
+            throw new IllegalArgumentException("cache capacity must be between 0 and 2^30");
+        int size = cacheCapacity == 0 ? 0 : Integer.highestOneBit(cacheCapacity);
+        if (size < cacheCapacity)
+            size <<= 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
     public Product create(String recipe) {
         if (recipe == null || recipe.isBlank())
             throw new IllegalArgumentException("recipe required");
-        
-        String[] raw = recipe.split("\\+");
-        String[] parts = java.util.Arrays.stream(raw)
-                .map(String::trim)
-                .map(String::toUpperCase)
-                .toArray(String[]::new);
-        
-        Product p = switch (parts[0]) {
-            case "ESP" -> new SimpleProduct("P-ESP", "Espresso", Money.of(2.50));
-            case "LAT" -> new SimpleProduct("P-LAT", "Latte", Money.of(3.20));
-            case "CAP" -> new SimpleProduct("P-CAP", "Cappuccino", Money.of(3.00));
-            case "AME" -> new SimpleProduct("P-AME", "Americano", Money.of(2.80));
-            default -> throw new IllegalArgumentException("Unknown base: " + parts[0]);
-        };
-        
-        for (int i = 1; i < parts.length; i++) {
-            p = switch (parts[i]) {
-                case "SHOT" -> new ExtraShot(p);
-                case "OAT" -> new OatMilk(p);
-                case "L" -> new SizeLarge(p);
-                default -> throw new IllegalArgumentException("Unknown addon: " + parts[i]);
-            };
+
+        if (mask < 0) {
+            misses.increment();
+            return parse(recipe);
+        }
+        int i = slot(recipe);
+        Entry e = slots.get(i);
+        if (e != null && e.recipe.equals(recipe)) {
+            hits.increment();
+            return e.product;
         }
-        
+        misses.increment();
+        Product p = parse(recipe);
+        slots.set(i, new Entry(recipe, p));
         return p;
     }
-}
 
+    private int slot(String recipe) {
+        int h = recipe.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    public long cacheHits() {
+        return hits.sum();
+    }
+
+    public long cacheMisses() {
+        return misses.sum();
+    }
+
+    public int cacheCapacity() {
+        return slots.length();
+    }
+
+    /** Number of recipes currently cached; walks every slot. */
+    public int cacheSize() {
+        int n = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) != null)
+                n++;
+        }
+        return n;
+    }
+
+    /**
+     * Single pass over the recipe: tokens are separated by '+', trimmed and matched
+     * case-insensitively in place. Trailing empty tokens are ignored, as
+     * {@code String.split} did.
+     */
+    private static Product parse(String recipe) {
+        int end = recipe.length();
+        while (end > 0 && recipe.charAt(end - 1) == '+')
+            end--;
+
+        int start = 0;
+        Product p = null;
+        while (start <= end) {
+            int sep = recipe.indexOf('+', start);
+            if (sep < 0 || sep > end)
+                sep = end;
+            int from = start;
+            int to = sep;
+            while (from < to && recipe.charAt(from) <= ' ')
+                from++;
+            while (to > from && recipe.charAt(to - 1) <= ' ')
+                to--;
+            p = (p == null) ? base(recipe, from, to) : addOn(p, recipe, from, to);
+            start = sep + 1;
+        }
+        return CompiledProduct.compile(p);
+    }
+
+    private static Product base(String s, int from, int to) {
+        if (matches(s, from, to, "ESP")) return ESPRESSO;
+        if (matches(s, from, to, "LAT")) return LATTE;
+        if (matches(s, from, to, "CAP")) return CAPPUCCINO;
+        if (matches(s, from, to, "AME")) return AMERICANO;
+        throw new IllegalArgumentException("Unknown base: " + s.substring(from, to).toUpperCase());
+    }
+
+    private static Product addOn(Product p, String s, int from, int to) {
+        if (matches(s, from, to, "SHOT")) return new ExtraShot(p);
+        if (matches(s, from, to, "OAT")) return new OatMilk(p);
+        if (matches(s, from, to, "L")) return new SizeLarge(p);
+        throw new IllegalArgumentException("Unknown addon: " + s.substring(from, to).toUpperCase());
+    }
+
+    private static boolean matches(String s, int from, int to, String token) {
+        return to - from == token.length() && s.regionMatches(true, from, token, 0, token.length());
+    }
+}
@@ -0,0 +1,586 @@
+package com.cafepos.infra;
+
+import com.cafepos.domain.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable {@link OrderRepository} backed by an append-only log of order snapshots.
+ * <p>
+ * Every {@code save}/{@code update} appends a {@code [length][crc32c][payload]} record
+ * to the active segment and returns once the record is on disk. A single flusher
+ * thread issues the {@code fsync}, so all writers that arrived while the previous
+ * flush was running share the next one (group commit). Segments roll at
+ * {@code segmentBytes}; a background task rewrites sealed segments so only the latest
+ * record per order survives.
+ * <p>
+ * On open the log is replayed into an in-memory index. A torn or corrupt record at
+ * the end of the last segment (a crash mid-write) is truncated away.
+ * <p>
+ * Periodic {@link #snapshot() snapshots} checkpoint the whole repository into a
+ * memory-mapped {@link OrderSnapshot}. After a restart only the segments written since
+ * the snapshot are replayed; other orders are served from the mapping and decoded into
+ * the heap index the first time they are read or updated.
+ */
+public final class FileOrderRepository implements OrderRepository, AutoCloseable {
+    public static final long DEFAULT_SEGMENT_BYTES = 8L << 20;
+    public static final Duration DEFAULT_COMPACTION_INTERVAL = Duration.ofMinutes(1);
+    public static final Duration DEFAULT_SNAPSHOT_INTERVAL = Duration.ofMinutes(5);
+
+    private static final String SEGMENT_PREFIX = "orders-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String COMPACT_SUFFIX = ".compact";
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int MIN_PAYLOAD_BYTES = Long.BYTES + Integer.BYTES;
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final ConcurrentHashMap<Long, Order> index = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pending = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private final Object compactionMonitor = new Object();
+    /** Held shared across append and index publish, exclusively by {@link #snapshot()}. */
+    private final ReentrantReadWriteLock publishing = new ReentrantReadWriteLock();
+    private final Thread flusher;
+    private final ScheduledExecutorService maintenance;
+    private final AtomicLong maintenanceFailures = new AtomicLong();
+    private volatile OrderSnapshot snapshot;
+    private volatile RuntimeException lastMaintenanceFailure;
+
+    // guarded by lock
+    private FileChannel active;
+    private long activeNumber;
+    private long activeSize;
+    private long written;
+    private long durable;
+    private IOException failure;
+    private boolean closed;
+
+    public FileOrderRepository(Path dir) {
+        this(dir, DEFAULT_SEGMENT_BYTES, DEFAULT_COMPACTION_INTERVAL, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    public FileOrderRepository(Path dir, long segmentBytes, Duration compactionInterval) {
+        this(dir, segmentBytes, compactionInterval, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    public FileOrderRepository(Path dir, long segmentBytes, Duration compactionInterval,
+                               Duration snapshotInterval) {
+        if (dir == null)
+            throw new IllegalArgumentException("directory required");
+        if (segmentBytes <= HEADER_BYTES)
+            throw new IllegalArgumentException("segment size too small");
+        if (compactionInterval == null || compactionInterval.isNegative() || compactionInterval.isZero())
+            throw new IllegalArgumentException("compaction interval must be positive");
+        if (snapshotInterval == null || snapshotInterval.isNegative() || snapshotInterval.isZero())
+            throw new IllegalArgumentException("snapshot interval must be positive");
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(dir);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        flusher = new Thread(this::flushLoop, "order-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-log-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        long millis = compactionInterval.toMillis();
+        maintenance.scheduleWithFixedDelay(() -> runQuietly(this::compact),
+                millis, millis, TimeUnit.MILLISECONDS);
+        millis = snapshotInterval.toMillis();
+        maintenance.scheduleWithFixedDelay(() -> runQuietly(this::snapshot),
+                millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void save(Order order) {
+        if (order == null)
+            throw new IllegalArgumentException("order cannot be null");
+        long seq = publish(order);
+        awaitDurable(seq);
+    }
+
+    /** Appends all orders and waits for a single fsync covering them. */
+    public void saveAll(Collection<Order> orders) {
+        if (orders == null)
+            throw new IllegalArgumentException("orders cannot be null");
+        long last = 0;
+        for (Order order : orders) {
+            if (order == null)
+                throw new IllegalArgumentException("order cannot be null");
+            last = publish(order);
+        }
+        awaitDurable(last);
+    }
+
+    /**
+     * Appends {@code order} and indexes a copy of it, so later changes to the caller's
+     * order reach neither readers nor the log; returns the record's sequence number.
+     */
+    private long publish(Order order) {
+        Order copy = order.copy();
+        long[] seq = new long[1];
+        publishing.readLock().lock();
+        try {
+            index.compute(order.id(), (id, previous) -> {
+                // a replacement continues the stored version, so cached prices for it go stale
+                if (previous != null && previous.version() >= copy.version())
+                    copy.restoreVersion(previous.version() + 1);
+                seq[0] = append(OrderCodec.encode(copy));
+                return copy;
+            });
+        } finally {
+            publishing.readLock().unlock();
+        }
+        return seq[0];
+    }
+
+    @Override
+    public Optional<Order> findById(long id) {
+        Order order = index.get(id);
+        return Optional.ofNullable(order != null ? order : loadFromSnapshot(id));
+    }
+
+    private Order loadFromSnapshot(long id) {
+        OrderSnapshot snap = snapshot;
+        ByteBuffer payload = snap == null ? null : snap.payload(id);
+        if (payload == null)
+            return null;
+        Order loaded = OrderCodec.decode(payload);
+        Order raced = index.putIfAbsent(id, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    @Override
+    public Optional<Order> update(long id, Consumer<? super Order> mutation) {
+        if (mutation == null)
+            throw new IllegalArgumentException("mutation cannot be null");
+        if (!index.containsKey(id))
+            loadFromSnapshot(id);
+        long[] seq = new long[1];
+        Order updated;
+        publishing.readLock().lock();
+        try {
+            updated = index.computeIfPresent(id, (k, order) -> {
+                // mutate a copy so readers and a failed append never see a half-applied change
+                Order copy = order.copy();
+                mutation.accept(copy);
+                seq[0] = append(OrderCodec.encode(copy));
+                return copy;
+            });
+        } finally {
+            publishing.readLock().unlock();
+        }
+        if (updated != null)
+            awaitDurable(seq[0]);
+        return Optional.ofNullable(updated);
+    }
+
+    /** Number of segment files currently on disk, including the active one. */
+    public int segmentCount() {
+        try {
+            return segmentNumbers().size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Rewrites all sealed segments into one that holds only the latest record per
+     * order. The active segment is never touched, so writers are not blocked.
+     */
+    public void compact() {
+        synchronized (compactionMonitor) {
+            long activeNo;
+            lock.lock();
+            try {
+                ensureWritable();
+                activeNo = activeNumber;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                List<Long> sealed = new ArrayList<>();
+                for (long n : segmentNumbers()) {
+                    if (n < activeNo)
+                        sealed.add(n);
+                }
+                if (sealed.size() < 2)
+                    return;
+
+                Map<Long, ByteBuffer> latest = new LinkedHashMap<>();
+                for (long n : sealed) {
+                    Path path = segmentPath(n);
+                    ByteBuffer data = readFully(path);
+                    if (scan(data, p -> latest.put(OrderCodec.orderId(p), p)) != data.limit())
+                        throw new IllegalStateException("corrupt record in sealed segment " + path);
+                }
+
+                long target = sealed.get(sealed.size() - 1);
+                Path tmp = dir.resolve(segmentName(target) + COMPACT_SUFFIX);
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    for (ByteBuffer payload : latest.values()) {
+                        writeRecord(out, payload);
+                    }
+                    out.force(true);
+                }
+                Files.move(tmp, segmentPath(target), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+                for (long n : sealed) {
+                    if (n != target)
+                        Files.delete(segmentPath(n));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Checkpoints every order into a new memory-mapped snapshot and deletes the log
+     * segments it covers. The active segment is rolled first, so the snapshot boundary
+     * is a segment boundary. Writers are paused for that roll and while the set of
+     * indexed ids is copied, so every order appended before the boundary is captured.
+     */
+    public void snapshot() {
+        synchronized (compactionMonitor) {
+            long replayFrom;
+            List<Long> ids;
+            // no record may sit in a sealed segment without its order being in the index
+            publishing.writeLock().lock();
+            lock.lock();
+            try {
+                ensureWritable();
+                if (activeSize > 0)
+                    roll();
+                replayFrom = activeNumber;
+            } catch (IOException e) {
+                failure = e;
+                throw new UncheckedIOException(e);
+            } finally {
+                lock.unlock();
+            }
+            try {
+                ids = new ArrayList<>(index.keySet());
+            } finally {
+                publishing.writeLock().unlock();
+            }
+            try {
+                SortedMap<Long, ByteBuffer> payloads = new TreeMap<>();
+                OrderSnapshot previous = snapshot;
+                if (previous != null)
+                    previous.forEach(payloads::put);
+                for (Long id : ids) {
+                    index.computeIfPresent(id, (k, order) -> {
+                        payloads.put(k, ByteBuffer.wrap(OrderCodec.encode(order)));
+                        return order;
+                    });
+                }
+                Path file = dir.resolve(SNAPSHOT_FILE);
+                OrderSnapshot.write(file, replayFrom, payloads);
+                snapshot = OrderSnapshot.open(file);
+                for (long n : segmentNumbers()) {
+                    if (n < replayFrom)
+                        Files.delete(segmentPath(n));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /** Number of orders held in the current snapshot, or 0 if none has been taken. */
+    public int snapshotSize() {
+        OrderSnapshot snap = snapshot;
+        return snap == null ? 0 : snap.size();
+    }
+
+    /** Background compactions and snapshots that have failed since the repository was opened. */
+    public long maintenanceFailures() {
+        return maintenanceFailures.get();
+    }
+
+    /** The most recent background compaction or snapshot failure, or empty if none has failed. */
+    public Optional<RuntimeException> lastMaintenanceFailure() {
+        return Optional.ofNullable(lastMaintenanceFailure);
+    }
+
+    private void runQuietly(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            if (!isClosed()) {
+                lastMaintenanceFailure = e;
+                maintenanceFailures.incrementAndGet();
+            }
+        }
+    }
+
+    private boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        maintenance.shutdown();
+        lock.lock();
+        try {
+            if (closed)
+                return;
+            closed = true;
+            try {
+                if (failure == null) {
+                    active.force(false);
+                    durable = written;
+                }
+                active.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                pending.signalAll();
+                flushed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            maintenance.awaitTermination(10, TimeUnit.SECONDS);
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long append(byte[] payload) {
+        lock.lock();
+        try {
+            ensureWritable();
+            long recordBytes = HEADER_BYTES + payload.length;
+            if (activeSize > 0 && activeSize + recordBytes > segmentBytes)
+                roll();
+            writeRecord(active, ByteBuffer.wrap(payload));
+            activeSize += recordBytes;
+            written++;
+            pending.signal();
+            return written;
+        } catch (IOException e) {
+            failure = e;
+            flushed.signalAll();
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitDurable(long seq) {
+        lock.lock();
+        try {
+            while (durable < seq) {
+                if (failure != null)
+                    throw new UncheckedIOException("order log is unusable", failure);
+                if (closed)
+                    throw new IllegalStateException("repository closed");
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        lock.lock();
+        try {
+            while (true) {
+                while (durable == written && !closed && failure == null)
+                    pending.awaitUninterruptibly();
+                if (closed || failure != null)
+                    return;
+                long target = written;
+                FileChannel channel = active;
+                IOException error = null;
+                lock.unlock();
+                try {
+                    channel.force(false);
+                } catch (ClosedChannelException e) {
+                    // rolled or closed meanwhile; both force the channel before closing it
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                }
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durable = Math.max(durable, target);
+                }
+                flushed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureWritable() {
+        if (closed)
+            throw new IllegalStateException("repository closed");
+        if (failure != null)
+            throw new UncheckedIOException("order log is unusable", failure);
+    }
+
+    private void roll() throws IOException {
+        active.force(false);
+        active.close();
+        durable = written;
+        flushed.signalAll();
+        openSegment(activeNumber + 1);
+    }
+
+    private void openSegment(long number) throws IOException {
+        active = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        activeNumber = number;
+        activeSize = active.size();
+        active.position(activeSize);
+    }
+
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                String name = p.getFileName().toString();
+                if (name.endsWith(COMPACT_SUFFIX) || name.endsWith(".tmp"))
+                    Files.delete(p);
+            }
+        }
+        snapshot = OrderSnapshot.open(dir.resolve(SNAPSHOT_FILE));
+        long replayFrom = snapshot == null ? 1 : snapshot.replayFrom();
+        List<Long> numbers = new ArrayList<>();
+        for (long n : segmentNumbers()) {
+            if (n < replayFrom) {
+                Files.delete(segmentPath(n));
+            } else {
+                numbers.add(n);
+            }
+        }
+        for (int i = 0; i < numbers.size(); i++) {
+            Path path = segmentPath(numbers.get(i));
+            ByteBuffer data = readFully(path);
+            int valid = scan(data, p -> {
+                Order order = OrderCodec.decode(p);
+                index.put(order.id(), order);
+            });
+            if (valid == data.limit())
+                continue;
+            if (i < numbers.size() - 1)
+                throw new IllegalStateException("corrupt record in sealed segment " + path);
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                ch.truncate(valid);
+                ch.force(true);
+            }
+        }
+        openSegment(numbers.isEmpty() ? replayFrom : numbers.get(numbers.size() - 1));
+    }
+
+    /** Feeds each intact record to {@code sink} and returns the offset just past the last one. */
+    private static int scan(ByteBuffer data, Consumer<ByteBuffer> sink) {
+        int valid = 0;
+        while (data.limit() - valid >= HEADER_BYTES) {
+            int length = data.getInt(valid);
+            int crc = data.getInt(valid + Integer.BYTES);
+            int start = valid + HEADER_BYTES;
+            if (length < MIN_PAYLOAD_BYTES || length > data.limit() - start)
+                break;
+            ByteBuffer payload = data.slice(start, length);
+            if (crc(payload) != crc)
+                break;
+            sink.accept(payload);
+            valid = start + length;
+        }
+        return valid;
+    }
+
+    private static void writeRecord(FileChannel channel, ByteBuffer payload) throws IOException {
+        ByteBuffer body = payload.duplicate();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(body.remaining())
+                .putInt(crc(body))
+                .flip();
+        ByteBuffer[] record = {header, body};
+        while (body.hasRemaining())
+            channel.write(record);
+    }
+
+    private static int crc(ByteBuffer payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private static ByteBuffer readFully(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IllegalStateException("segment too large: " + path);
+            ByteBuffer buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining() && ch.read(buf) >= 0) {
+                // keep reading
+            }
+            return buf.flip();
+        }
+    }
+
+    private List<Long> segmentNumbers() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                String name = p.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    numbers.add(Long.parseLong(name, SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length(), 10));
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    private Path segmentPath(long number) {
+        return dir.resolve(segmentName(number));
+    }
+
+    private static String segmentName(long number) {
+        return String.format("%s%012d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX);
+    }
+}
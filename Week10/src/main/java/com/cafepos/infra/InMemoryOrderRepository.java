@@ -2,18 +2,52 @@ package com.cafepos.infra;
 
 import com.cafepos.domain.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
+/**
+ * Thread-safe in-memory store shared by several tills. Reads never block; updates
+ * lock only the bin holding the order being changed and replace the order with an
+ * updated copy, so a stored order is never modified once readers can see it.
+ * {@link #save} stores a copy too, so the caller's order stays its own.
+ */
 public final class InMemoryOrderRepository implements OrderRepository {
-    private final Map<Long, Order> store = new HashMap<>();
+    private final ConcurrentHashMap<Long, Order> store;
+
+    public InMemoryOrderRepository() {
+        this(64);
+    }
+
+    public InMemoryOrderRepository(int expectedOrders) {
+        this.store = new ConcurrentHashMap<>(expectedOrders);
+    }
 
     @Override
     public void save(Order order) {
-        store.put(order.id(), order);
+        if (order == null)
+            throw new IllegalArgumentException("order cannot be null");
+        Order copy = order.copy();
+        store.compute(order.id(), (id, previous) -> {
+            // a replacement continues the stored version, so cached prices for it go stale
+            if (previous != null && previous.version() >= copy.version())
+                copy.restoreVersion(previous.version() + 1);
+            return copy;
+        });
     }
 
     @Override
     public Optional<Order> findById(long id) {
         return Optional.ofNullable(store.get(id));
     }
-}
 
+    @Override
+    public Optional<Order> update(long id, Consumer<? super Order> mutation) {
+        if (mutation == null)
+            throw new IllegalArgumentException("mutation cannot be null");
+        return Optional.ofNullable(store.computeIfPresent(id, (k, order) -> {
+            Order updated = order.copy();
+            mutation.accept(updated);
+            return updated;
+        }));
+    }
+}
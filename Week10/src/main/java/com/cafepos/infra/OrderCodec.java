@@ -0,0 +1,81 @@
+package com.cafepos.infra;
+
+import com.cafepos.catalog.Product;
+import com.cafepos.catalog.SimpleProduct;
+import com.cafepos.common.Money;
+import com.cafepos.decorator.CompiledProduct;
+import com.cafepos.decorator.Priced;
+import com.cafepos.domain.LineItem;
+import com.cafepos.domain.Order;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Binary form of an {@link Order}: the id, then per line the product's id, name,
+ * base price, unit price (-1 when not {@link Priced}), add-on mask and quantity, then
+ * the order's {@link Order#version()}. Records written before the version was added
+ * end after the last line and decode with the version their lines give them.
+ */
+final class OrderCodec {
+    private OrderCodec() {}
+
+    static byte[] encode(Order order) {
+        List<LineItem> items = order.items();
+        byte[][] strings = new byte[items.size() * 2][];
+        int size = Long.BYTES + Integer.BYTES + Long.BYTES;
+        for (int i = 0; i < items.size(); i++) {
+            Product p = items.get(i).product();
+            strings[2 * i] = p.id().getBytes(StandardCharsets.UTF_8);
+            strings[2 * i + 1] = p.name().getBytes(StandardCharsets.UTF_8);
+            size += 2 * Integer.BYTES + strings[2 * i].length + strings[2 * i + 1].length
+                    + 2 * Long.BYTES + 2 * Integer.BYTES;
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putLong(order.id()).putInt(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            LineItem li = items.get(i);
+            Product p = li.product();
+            buf.putInt(strings[2 * i].length).put(strings[2 * i]);
+            buf.putInt(strings[2 * i + 1].length).put(strings[2 * i + 1]);
+            buf.putLong(p.basePrice().cents());
+            buf.putLong(p instanceof Priced priced ? priced.price().cents() : -1L);
+            buf.putInt(p instanceof CompiledProduct c ? c.addOns() : 0);
+            buf.putInt(li.quantity());
+        }
+        buf.putLong(order.version());
+        return buf.array();
+    }
+
+    static long orderId(ByteBuffer payload) {
+        return payload.getLong(payload.position());
+    }
+
+    static Order decode(ByteBuffer payload) {
+        ByteBuffer buf = payload.duplicate();
+        Order order = new Order(buf.getLong());
+        int lines = buf.getInt();
+        for (int i = 0; i < lines; i++) {
+            String id = readString(buf);
+            String name = readString(buf);
+            Money basePrice = Money.ofCents(buf.getLong());
+            long priceCents = buf.getLong();
+            int addOns = buf.getInt();
+            Product product = priceCents < 0
+                    ? new SimpleProduct(id, name, basePrice)
+                    : CompiledProduct.of(id, name, basePrice, Money.ofCents(priceCents), addOns);
+            order.addItem(new LineItem(product, buf.getInt()));
+        }
+        if (buf.remaining() >= Long.BYTES)
+            order.restoreVersion(buf.getLong());
+        return order;
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
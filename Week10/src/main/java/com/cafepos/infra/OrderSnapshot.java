@@ -0,0 +1,158 @@
+package com.cafepos.infra;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Read-only, memory-mapped image of every order at a log checkpoint.
+ * <p>
+ * Layout (big-endian): a header {@code [magic][version][replayFrom][count][crc32c]},
+ * then {@code count} index entries {@code [orderId][dataOffset][length]} sorted by id,
+ * then the {@link OrderCodec} payloads. The CRC covers everything after the header and
+ * is checked when the file is opened; lookups binary-search the mapped index.
+ */
+final class OrderSnapshot {
+    static final int MAGIC = 0x43504F53;
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 2 * Integer.BYTES + Long.BYTES + 2 * Integer.BYTES;
+    private static final int ENTRY_BYTES = 2 * Long.BYTES + Integer.BYTES;
+
+    private final MappedByteBuffer map;
+    private final long replayFrom;
+    private final int count;
+    private final int dataStart;
+
+    private OrderSnapshot(MappedByteBuffer map, long replayFrom, int count) {
+        this.map = map;
+        this.replayFrom = replayFrom;
+        this.count = count;
+        this.dataStart = HEADER_BYTES + count * ENTRY_BYTES;
+    }
+
+    /** Maps and verifies {@code file}; returns null when it does not exist. */
+    static OrderSnapshot open(Path file) throws IOException {
+        if (!Files.exists(file))
+            return null;
+        MappedByteBuffer map;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE)
+                throw new IllegalStateException("snapshot has invalid size " + size + ": " + file);
+            map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        if (map.getInt(0) != MAGIC)
+            throw new IllegalStateException("not an order snapshot: " + file);
+        int version = map.getInt(Integer.BYTES);
+        if (version != VERSION)
+            throw new IllegalStateException("unsupported snapshot version " + version + ": " + file);
+        long replayFrom = map.getLong(2 * Integer.BYTES);
+        int count = map.getInt(2 * Integer.BYTES + Long.BYTES);
+        int crc = map.getInt(3 * Integer.BYTES + Long.BYTES);
+        if (count < 0 || HEADER_BYTES + (long) count * ENTRY_BYTES > map.limit())
+            throw new IllegalStateException("snapshot index out of bounds: " + file);
+        CRC32C check = new CRC32C();
+        check.update(map.slice(HEADER_BYTES, map.limit() - HEADER_BYTES));
+        if ((int) check.getValue() != crc)
+            throw new IllegalStateException("snapshot checksum mismatch: " + file);
+        return new OrderSnapshot(map, replayFrom, count);
+    }
+
+    /**
+     * Writes {@code payloads} (keyed and sorted by order id) to a temporary file, forces
+     * it to disk and atomically renames it to {@code file}.
+     */
+    static void write(Path file, long replayFrom, SortedMap<Long, ByteBuffer> payloads) throws IOException {
+        int count = payloads.size();
+        ByteBuffer index = ByteBuffer.allocate(count * ENTRY_BYTES);
+        long offset = 0;
+        for (Map.Entry<Long, ByteBuffer> e : payloads.entrySet()) {
+            int length = e.getValue().remaining();
+            index.putLong(e.getKey()).putLong(offset).putInt(length);
+            offset += length;
+        }
+        if (HEADER_BYTES + index.capacity() + offset > Integer.MAX_VALUE)
+            throw new IllegalStateException("snapshot would exceed 2 GB");
+        index.flip();
+
+        CRC32C crc = new CRC32C();
+        crc.update(index.duplicate());
+        for (ByteBuffer payload : payloads.values()) {
+            crc.update(payload.duplicate());
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putLong(replayFrom)
+                .putInt(count)
+                .putInt((int) crc.getValue())
+                .flip();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(out, header);
+            writeFully(out, index);
+            for (ByteBuffer payload : payloads.values()) {
+                writeFully(out, payload.duplicate());
+            }
+            out.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** First log segment not covered by this snapshot. */
+    long replayFrom() {
+        return replayFrom;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /** The encoded order, as a view into the mapping, or null when the id is absent. */
+    ByteBuffer payload(long orderId) {
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long id = map.getLong(HEADER_BYTES + mid * ENTRY_BYTES);
+            if (id < orderId) {
+                lo = mid + 1;
+            } else if (id > orderId) {
+                hi = mid - 1;
+            } else {
+                return entry(mid);
+            }
+        }
+        return null;
+    }
+
+    void forEach(BiConsumer<Long, ByteBuffer> sink) {
+        for (int i = 0; i < count; i++) {
+            sink.accept(map.getLong(HEADER_BYTES + i * ENTRY_BYTES), entry(i));
+        }
+    }
+
+    private ByteBuffer entry(int i) {
+        int at = HEADER_BYTES + i * ENTRY_BYTES;
+        long offset = map.getLong(at + Long.BYTES);
+        int length = map.getInt(at + 2 * Long.BYTES);
+        return map.slice(dataStart + (int) offset, length);
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining())
+            out.write(buf);
+    }
+}
@@ -8,7 +8,15 @@ public final class Wiring {
     public static record Components(OrderRepository repo, PricingService pricing, CheckoutService checkout) {}
 
     public static Components createDefault() {
-        OrderRepository repo = new InMemoryOrderRepository();
+        return create(new InMemoryOrderRepository());
+    }
+
+    /** Orders survive restarts; close the returned repository on shutdown. */
+    public static Components createPersistent(java.nio.file.Path dataDir) {
+        return create(new FileOrderRepository(dataDir));
+    }
+
+    private static Components create(OrderRepository repo) {
         PricingService pricing = new PricingService(
             new LoyaltyPercentDiscount(5),
             new FixedRateTaxPolicy(10)
@@ -4,5 +4,12 @@ import com.cafepos.common.Money;
 
 public interface DiscountPolicy {
     Money discountOf(Money subtotal);
-}
 
+    /**
+     * {@link #discountOf} in cents, used by {@link PricingService#priceAll}. Overrides must
+     * return exactly what {@code discountOf} would; the default simply calls it.
+     */
+    default long discountCents(long subtotalCents) {
+        return discountOf(Money.ofCents(subtotalCents)).cents();
+    }
+}
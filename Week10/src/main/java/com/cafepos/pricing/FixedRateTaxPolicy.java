@@ -16,5 +16,23 @@ public final class FixedRateTaxPolicy implements TaxPolicy {
                 .divide(java.math.BigDecimal.valueOf(100));
         return Money.of(t);
     }
-}
 
+    /** Integer form of {@link #taxOn}: amount x percent / 100, rounded half-up. */
+    @Override
+    public long taxCents(long amountCents) {
+        if (percent != 0 && amountCents > (Long.MAX_VALUE - 50) / percent)
+            return TaxPolicy.super.taxCents(amountCents);
+        return (amountCents * percent + 50) / 100;
+    }
+
+    /** Equal when the rates are, so {@link PricingService#priceLines} taxes their lines together. */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof FixedRateTaxPolicy other && percent == other.percent;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(percent);
+    }
+}
@@ -0,0 +1,15 @@
+package com.cafepos.pricing;
+
+import com.cafepos.catalog.Product;
+
+/** Item-specific discount, applied to each order line before the order-level {@link DiscountPolicy}. */
+@FunctionalInterface
+public interface LineDiscountPolicy {
+    LineDiscountPolicy NONE = (product, quantity, lineCents) -> 0;
+
+    /**
+     * Discount in cents on a line of {@code quantity} x {@code product} costing
+     * {@code lineCents}; anything above {@code lineCents} is ignored.
+     */
+    long discountCents(Product product, int quantity, long lineCents);
+}
@@ -0,0 +1,9 @@
+package com.cafepos.pricing;
+
+import com.cafepos.catalog.Product;
+
+/** Chooses the {@link TaxPolicy} each product is taxed under, e.g. a lower rate for food. */
+@FunctionalInterface
+public interface LineTaxPolicy {
+    TaxPolicy taxPolicyFor(Product product);
+}
@@ -16,5 +16,12 @@ public final class LoyaltyPercentDiscount implements DiscountPolicy {
                 .divide(java.math.BigDecimal.valueOf(100));
         return Money.of(d);
     }
-}
 
+    /** {@code percent}% of the amount rounded half-up to the cent, as the BigDecimal path does. */
+    @Override
+    public long discountCents(long subtotalCents) {
+        if (percent != 0 && subtotalCents > (Long.MAX_VALUE - 50) / percent)
+            return DiscountPolicy.super.discountCents(subtotalCents);
+        return (subtotalCents * percent + 50) / 100;
+    }
+}
@@ -0,0 +1,108 @@
+package com.cafepos.pricing;
+
+import com.cafepos.domain.Order;
+import com.cafepos.pricing.PricingService.PricingResult;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of {@link PricingResult}s keyed by (order id, {@link Order#version()},
+ * {@link PricingService#fingerprint()}), so reprinting a receipt or refreshing a total
+ * for an unchanged order skips pricing.
+ * <p>
+ * The cache is a fixed array of slots, one entry each, picked by order id and pricing
+ * service; it never grows and never locks. A newer version of an order replaces its old
+ * entry in place. When two orders share a slot, the later one evicts the other, which
+ * {@link #evictions()} counts.
+ */
+public final class PricingCache {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private record Entry(long orderId, long version, long fingerprint, PricingResult result) {}
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public PricingCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /** @param capacity number of slots, rounded up to a power of two */
+    public PricingCache(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30)
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /** {@code pricing.price(order.subtotal())}, from the cache while the order is unchanged. */
+    public PricingResult price(PricingService pricing, Order order) {
+        long version = order.version();
+        PricingResult pr = get(order.id(), version, pricing.fingerprint());
+        if (pr != null)
+            return pr;
+        pr = pricing.price(order.subtotal());
+        // an order changed while it was being priced must not be cached under the old version
+        if (order.version() == version)
+            put(order.id(), version, pricing.fingerprint(), pr);
+        return pr;
+    }
+
+    /** The cached result, or {@code null}. */
+    public PricingResult get(long orderId, long version, long fingerprint) {
+        Entry e = slots.get(slot(orderId, fingerprint));
+        if (e != null && e.orderId == orderId && e.version == version && e.fingerprint == fingerprint) {
+            hits.increment();
+            return e.result;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /** Caches {@code result}, unless a newer version of the same order is already cached. */
+    public void put(long orderId, long version, long fingerprint, PricingResult result) {
+        if (result == null)
+            throw new IllegalArgumentException("result required");
+        int i = slot(orderId, fingerprint);
+        Entry fresh = new Entry(orderId, version, fingerprint, result);
+        while (true) {
+            Entry old = slots.get(i);
+            boolean sameOrder = old != null && old.orderId == orderId && old.fingerprint == fingerprint;
+            if (sameOrder && old.version >= version)
+                return;
+            if (slots.compareAndSet(i, old, fresh)) {
+                if (old != null && !sameOrder)
+                    evictions.increment();
+                return;
+            }
+        }
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /** Entries displaced by a different order or pricing service landing in their slot. */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private int slot(long orderId, long fingerprint) {
+        long h = (orderId ^ fingerprint * 0xC2B2AE3D27D4EB4FL) * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+}
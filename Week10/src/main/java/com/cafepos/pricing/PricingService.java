@@ -1,14 +1,51 @@
 package com.cafepos.pricing;
 
 import com.cafepos.common.Money;
+import com.cafepos.domain.LineItem;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class PricingService {
+    /** Subtotals priced per fork/join leaf task; smaller batches run on the caller. */
+    static final int BULK_CHUNK = 16_384;
+    private static final AtomicLong FINGERPRINTS = new AtomicLong();
+
     private final DiscountPolicy discountPolicy;
     private final TaxPolicy taxPolicy;
+    private final LineDiscountPolicy lineDiscountPolicy;
+    private final LineTaxPolicy lineTaxPolicy;
+    private final long fingerprint = FINGERPRINTS.incrementAndGet();
 
     public PricingService(DiscountPolicy discountPolicy, TaxPolicy taxPolicy) {
+        this(discountPolicy, taxPolicy, LineDiscountPolicy.NONE, null);
+    }
+
+    /**
+     * @param lineDiscountPolicy item-specific discounts for {@link #priceLines}
+     * @param lineTaxPolicy      tax policy per product for {@link #priceLines}; {@code null}
+     *                           taxes every line under {@code taxPolicy}
+     */
+    public PricingService(DiscountPolicy discountPolicy, TaxPolicy taxPolicy,
+                          LineDiscountPolicy lineDiscountPolicy, LineTaxPolicy lineTaxPolicy) {
+        if (lineDiscountPolicy == null)
+            throw new IllegalArgumentException("line discount policy required (use LineDiscountPolicy.NONE)");
         this.discountPolicy = discountPolicy;
         this.taxPolicy = taxPolicy;
+        this.lineDiscountPolicy = lineDiscountPolicy;
+        this.lineTaxPolicy = lineTaxPolicy;
+    }
+
+    /**
+     * Identifies this service's policies in {@link PricingCache} keys. Policies are fixed
+     * at construction and compared by identity, so every service gets its own value.
+     */
+    public long fingerprint() {
+        return fingerprint;
     }
 
     public PricingResult price(Money subtotal) {
@@ -21,5 +58,202 @@ public final class PricingService {
     }
 
     public static record PricingResult(Money subtotal, Money discount, Money tax, Money total) {}
-}
 
+    /**
+     * Columnar output of {@link #priceLines}; index {@code i} is order line {@code i}:
+     * its total before discounts, its share of all discounts and its share of the tax.
+     * Each column adds up to the matching amount in {@code totals}.
+     */
+    public static record LinePricing(long[] lineCents, long[] discountCents, long[] taxCents, PricingResult totals) {}
+
+    /**
+     * Prices an order line by line. Each line first gets its {@link LineDiscountPolicy}
+     * discount; the order-level {@link DiscountPolicy} then applies to what is left and is
+     * spread over the lines in proportion to their remaining amounts. Lines are taxed per
+     * {@link TaxPolicy} from the {@link LineTaxPolicy}: lines whose policies are
+     * {@code equals} (for {@link FixedRateTaxPolicy}, the same rate) are taxed together
+     * on their combined amount once and that tax is spread the same way, so with no line
+     * policies the totals equal {@link #price}{@code (subtotal)}. Three passes over the
+     * lines: line discounts and tax groups, then the order discount, then the tax.
+     * Spreading rounds down on a running total, so every column sums exactly; all
+     * columns are plain {@code long}s and no {@code Money} is created per line.
+     *
+     * @throws IllegalArgumentException if a policy returns a negative amount, or the order
+     *                                  discount exceeds what is left after line discounts
+     *                                  ({@link #price} rejects a discount above the subtotal too)
+     */
+    public LinePricing priceLines(List<LineItem> items) {
+        if (items == null)
+            throw new IllegalArgumentException("items required");
+        int n = items.size();
+        long[] lineCents = new long[n];
+        long[] discountCents = new long[n];
+        long[] taxCents = new long[n];
+        // lines taxed under the same policy form a group; without a LineTaxPolicy there is one
+        TaxPolicy[] policies = lineTaxPolicy == null ? new TaxPolicy[] {taxPolicy} : new TaxPolicy[n];
+        Map<TaxPolicy, Integer> groupOf = lineTaxPolicy == null ? null : new HashMap<>();
+        int groups = lineTaxPolicy == null ? 1 : 0;
+        int[] group = new int[n];
+
+        long subtotal = 0, lineDiscounts = 0;
+        for (int i = 0; i < n; i++) {
+            LineItem li = items.get(i);
+            long cents = li.lineTotal().cents();
+            long d = lineDiscountPolicy.discountCents(li.product(), li.quantity(), cents);
+            if (d < 0)
+                throw new IllegalArgumentException("line discount cannot be negative");
+            lineCents[i] = cents;
+            discountCents[i] = Math.min(d, cents);
+            subtotal = Math.addExact(subtotal, cents);
+            lineDiscounts += discountCents[i];
+            if (lineTaxPolicy != null) {
+                TaxPolicy tp = lineTaxPolicy.taxPolicyFor(li.product());
+                if (tp == null)
+                    throw new IllegalArgumentException("no tax policy for " + li.product().id());
+                Integer g = groupOf.putIfAbsent(tp, groups);
+                if (g == null) {
+                    policies[groups] = tp;
+                    g = groups++;
+                }
+                group[i] = g;
+            }
+        }
+
+        long remaining = subtotal - lineDiscounts;
+        long orderDiscount = discountPolicy.discountCents(remaining);
+        if (orderDiscount < 0)
+            throw new IllegalArgumentException("order discount cannot be negative");
+        if (orderDiscount > remaining)
+            throw new IllegalArgumentException("order discount exceeds remaining amount");
+        long[] groupNet = new long[groups];
+        long running = 0, spread = 0;
+        for (int i = 0; i < n; i++) {
+            running += lineCents[i] - discountCents[i];
+            long upTo = share(orderDiscount, running, remaining);
+            discountCents[i] += upTo - spread;
+            spread = upTo;
+            groupNet[group[i]] += lineCents[i] - discountCents[i];
+        }
+
+        long[] groupTax = new long[groups];
+        long tax = 0;
+        for (int g = 0; g < groups; g++) {
+            groupTax[g] = policies[g].taxCents(groupNet[g]);
+            if (groupTax[g] < 0)
+                throw new IllegalArgumentException("tax cannot be negative");
+            tax = Math.addExact(tax, groupTax[g]);
+        }
+        long[] groupRunning = new long[groups];
+        long[] groupSpread = new long[groups];
+        for (int i = 0; i < n; i++) {
+            int g = group[i];
+            groupRunning[g] += lineCents[i] - discountCents[i];
+            long upTo = share(groupTax[g], groupRunning[g], groupNet[g]);
+            taxCents[i] = upTo - groupSpread[g];
+            groupSpread[g] = upTo;
+        }
+
+        long discount = lineDiscounts + orderDiscount;
+        PricingResult totals = new PricingResult(Money.ofCents(subtotal), Money.ofCents(discount),
+                Money.ofCents(tax), Money.ofCents(Math.addExact(subtotal - discount, tax)));
+        return new LinePricing(lineCents, discountCents, taxCents, totals);
+    }
+
+    /** {@code amount * part / whole} rounded down, for {@code 0 <= part <= whole}; 0 if whole is 0. */
+    private static long share(long amount, long part, long whole) {
+        if (whole == 0)
+            return 0;
+        long product = amount * part;
+        if (Math.multiplyHigh(amount, part) == 0 && product >= 0)
+            return product / whole;
+        return BigInteger.valueOf(amount).multiply(BigInteger.valueOf(part))
+                .divide(BigInteger.valueOf(whole)).longValueExact();
+    }
+
+    /** Columnar output of {@link #priceAll(long[])}; index {@code i} prices subtotal {@code i}. */
+    public static record BulkPricing(long[] discountCents, long[] taxCents, long[] totalCents) {}
+
+    /** Prices every subtotal (in cents) into new arrays; see {@link #priceAll(long[], long[], long[], long[])}. */
+    public BulkPricing priceAll(long[] subtotalCents) {
+        if (subtotalCents == null)
+            throw new IllegalArgumentException("subtotals required");
+        int n = subtotalCents.length;
+        BulkPricing out = new BulkPricing(new long[n], new long[n], new long[n]);
+        priceAll(subtotalCents, out.discountCents(), out.taxCents(), out.totalCents());
+        return out;
+    }
+
+    /**
+     * Prices a batch of subtotals, in cents, into the caller's arrays, producing exactly
+     * the cents {@link #price} would for each. Works on primitives throughout: policies
+     * that override {@link DiscountPolicy#discountCents}/{@link TaxPolicy#taxCents} never
+     * touch {@code Money}, others are called through their {@code Money} methods. Batches
+     * larger than one chunk are split across the common fork/join pool, so the policies
+     * must be safe to call from several threads.
+     *
+     * @throws IllegalArgumentException if the arrays differ in length, or as {@code price}
+     *                                  would for a subtotal (e.g. a negative amount)
+     */
+    public void priceAll(long[] subtotalCents, long[] discountCents, long[] taxCents, long[] totalCents) {
+        if (subtotalCents == null || discountCents == null || taxCents == null || totalCents == null)
+            throw new IllegalArgumentException("subtotal and result arrays required");
+        int n = subtotalCents.length;
+        if (discountCents.length != n || taxCents.length != n || totalCents.length != n)
+            throw new IllegalArgumentException("result arrays must match the subtotals' length");
+        BulkTask task = new BulkTask(discountPolicy, taxPolicy, subtotalCents, discountCents, taxCents, totalCents, 0, n);
+        if (n <= BULK_CHUNK) {
+            task.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+    }
+
+    private static void priceRange(DiscountPolicy dp, TaxPolicy tp, long[] subtotals, long[] discounts,
+                                   long[] taxes, long[] totals, int from, int to) {
+        for (int i = from; i < to; i++) {
+            long subtotal = subtotals[i];
+            if (subtotal < 0)
+                throw new IllegalArgumentException("amount cannot be negative");
+            long discount = dp.discountCents(subtotal);
+            long discounted = subtotal - discount;
+            if (discounted < 0)
+                throw new IllegalArgumentException("amount cannot be negative");
+            long tax = tp.taxCents(discounted);
+            discounts[i] = discount;
+            taxes[i] = tax;
+            totals[i] = Math.addExact(discounted, tax);
+        }
+    }
+
+    private static final class BulkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient DiscountPolicy discountPolicy;
+        private final transient TaxPolicy taxPolicy;
+        private final long[] subtotals, discounts, taxes, totals;
+        private final int from, to;
+
+        BulkTask(DiscountPolicy discountPolicy, TaxPolicy taxPolicy,
+                 long[] subtotals, long[] discounts, long[] taxes, long[] totals, int from, int to) {
+            this.discountPolicy = discountPolicy;
+            this.taxPolicy = taxPolicy;
+            this.subtotals = subtotals;
+            this.discounts = discounts;
+            this.taxes = taxes;
+            this.totals = totals;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BULK_CHUNK) {
+                priceRange(discountPolicy, taxPolicy, subtotals, discounts, taxes, totals, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BulkTask(discountPolicy, taxPolicy, subtotals, discounts, taxes, totals, from, mid),
+                      new BulkTask(discountPolicy, taxPolicy, subtotals, discounts, taxes, totals, mid, to));
+        }
+    }
+}
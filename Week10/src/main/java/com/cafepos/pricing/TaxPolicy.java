@@ -4,5 +4,12 @@ import com.cafepos.common.Money;
 
 public interface TaxPolicy {
     Money taxOn(Money amount);
-}
 
+    /**
+     * {@link #taxOn} in cents, used by {@link PricingService#priceAll}. Overrides must
+     * return exactly what {@code taxOn} would; the default simply calls it.
+     */
+    default long taxCents(long amountCents) {
+        return taxOn(Money.ofCents(amountCents)).cents();
+    }
+}
@@ -20,9 +20,8 @@ public final class OrderController {
     }
 
     public void addItem(long orderId, String recipe, int qty) {
-        Order order = repo.findById(orderId).orElseThrow();
-        order.addItem(new LineItem(factory.create(recipe), qty));
-        repo.save(order);
+        var item = new LineItem(factory.create(recipe), qty);
+        repo.update(orderId, order -> order.addItem(item)).orElseThrow();
     }
 
     public String checkout(long orderId, int taxPercent) {
@@ -75,5 +75,71 @@ class CheckoutServiceTest {
             checkout.checkout(9999L, 10);
         });
     }
-}
 
+    @Test
+    void testByteCheckoutMatchesStringReceipt() {
+        var order = new Order(5004L);
+        order.addItem(new LineItem(
+            new com.cafepos.catalog.SimpleProduct("LAT", "Latte", Money.of(3.20)),
+            3
+        ));
+        repo.save(order);
+        byte[] expected = checkout.checkout(5004L, 10).getBytes(java.nio.charset.StandardCharsets.UTF_8);
+
+        var rendered = checkout.checkoutBytes(5004L, 10);
+        byte[] actual = new byte[rendered.remaining()];
+        rendered.get(actual);
+        assertArrayEquals(expected, actual);
+
+        var out = java.nio.ByteBuffer.allocate(256);
+        assertEquals(expected.length, checkout.checkout(5004L, 10, out));
+    }
+
+    @Test
+    void testItemizedCheckoutPrintsLineBreakdown() {
+        var order = new Order(5005L);
+        order.addItem(new LineItem(
+            new com.cafepos.catalog.SimpleProduct("LAT", "Latte", Money.of(3.20)),
+            2
+        ));
+        order.addItem(new LineItem(
+            new com.cafepos.catalog.SimpleProduct("ESP", "Espresso", Money.of(2.50)),
+            1
+        ));
+        repo.save(order);
+
+        String receipt = checkout.checkoutItemized(5005L, 10);
+
+        assertEquals(String.join("\n",
+            "Order #5005",
+            " - Latte x2 = 6.40",
+            "     discount -0.32, tax 0.61",
+            " - Espresso x1 = 2.50",
+            "     discount -0.13, tax 0.24",
+            "Subtotal: 8.90",
+            "Discount: -0.45",
+            "Tax (10%): 0.85",
+            "Total: 9.30"), receipt);
+        // same totals as the plain receipt
+        assertTrue(checkout.checkout(5005L, 10).endsWith("Tax (10%): 0.85\nTotal: 9.30"));
+    }
+
+    @Test
+    void testRepeatCheckoutReusesPricingUntilOrderChanges() {
+        var order = new Order(5006L);
+        var latte = new com.cafepos.catalog.SimpleProduct("LAT", "Latte", Money.of(3.20));
+        order.addItem(new LineItem(latte, 1));
+        repo.save(order);
+        var cache = checkout.pricingCache();
+
+        String first = checkout.checkout(5006L, 10);
+        assertEquals(first, checkout.checkout(5006L, 10));
+        assertEquals(1, cache.misses());
+        assertEquals(1, cache.hits());
+
+        repo.update(5006L, o -> o.addItem(new LineItem(latte, 1)));
+        String second = checkout.checkout(5006L, 10);
+        assertTrue(second.contains("Subtotal: 6.40"), second);
+        assertEquals(2, cache.misses());
+    }
+}
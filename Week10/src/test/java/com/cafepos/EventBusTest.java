@@ -5,6 +5,12 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -81,6 +87,248 @@ class EventBusTest {
         assertEquals(1, paidIds.size());
         assertEquals(5002L, paidIds.get(0));
     }
-}
 
+    @Test
+    void testDefaultBusIsSynchronous() {
+        EventBus bus = new EventBus();
+        List<Thread> threads = new ArrayList<>();
+        bus.on(OrderCreated.class, e -> threads.add(Thread.currentThread()));
+
+        bus.emit(new OrderCreated(6001L));
+
+        assertFalse(bus.isAsync());
+        assertEquals(List.of(Thread.currentThread()), threads);
+    }
+
+    @Test
+    void testAsyncDeliversInOrderOffTheEmittingThread() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            EventBus bus = EventBus.async(pool, 16, EventBus.OverflowPolicy.BLOCK);
+            List<Long> ids = new CopyOnWriteArrayList<>();
+            List<Thread> threads = new CopyOnWriteArrayList<>();
+            CountDownLatch done = new CountDownLatch(100);
+            bus.on(OrderPaid.class, e -> {
+                ids.add(e.orderId());
+                threads.add(Thread.currentThread());
+                done.countDown();
+            });
+
+            for (long id = 0; id < 100; id++) {
+                bus.emit(new OrderPaid(id));
+            }
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, ids.get(i));
+            }
+            assertFalse(threads.contains(Thread.currentThread()));
+            assertEquals(100, bus.metrics().get(0).delivered());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testSlowHandlerDoesNotStallOtherSubscribersOrEmitter() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            EventBus bus = EventBus.async(pool, 4, EventBus.OverflowPolicy.DROP_NEWEST);
+            Semaphore fast = new Semaphore(0);
+            CountDownLatch started = new CountDownLatch(1);
+            bus.on(OrderCreated.class, e -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            bus.on(OrderCreated.class, e -> fast.release());
+
+            bus.emit(new OrderCreated(0L));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertTrue(fast.tryAcquire(5, TimeUnit.SECONDS));
+            for (long id = 1; id < 10; id++) {
+                bus.emit(new OrderCreated(id));
+                assertTrue(fast.tryAcquire(5, TimeUnit.SECONDS));
+            }
+
+            SubscriberMetrics slow = bus.metrics().get(0);
+            assertEquals(4, slow.queueDepth());
+            assertEquals(5, slow.dropped());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testDropOldestKeepsMostRecentEvents() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            EventBus bus = EventBus.async(pool, 3, EventBus.OverflowPolicy.DROP_OLDEST);
+            List<Long> ids = new CopyOnWriteArrayList<>();
+            CountDownLatch started = new CountDownLatch(1);
+            bus.on(OrderPaid.class, e -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                ids.add(e.orderId());
+            });
+
+            bus.emit(new OrderPaid(0L));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (long id = 1; id <= 6; id++) {
+                bus.emit(new OrderPaid(id));
+            }
+            release.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+            assertEquals(List.of(0L, 4L, 5L, 6L), ids);
+            assertEquals(3, bus.metrics().get(0).dropped());
+            assertTrue(bus.metrics().get(0).maxLagNanos() > 0);
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testSupertypeHandlerReceivesAllOrderEvents() {
+        EventBus bus = new EventBus();
+        List<String> events = new ArrayList<>();
+
+        bus.on(OrderEvent.class, e -> events.add("any:" + e));
+        bus.on(OrderPaid.class, e -> events.add("paid:" + e.orderId()));
+
+        bus.emit(new OrderCreated(7001L));
+        bus.emit(new OrderPaid(7001L));
+
+        assertEquals(List.of("any:OrderCreated[orderId=7001]",
+                "any:OrderPaid[orderId=7001]", "paid:7001"), events);
+    }
+
+    @Test
+    void testUnsubscribeStopsDelivery() {
+        EventBus bus = new EventBus();
+        List<Long> ids = new ArrayList<>();
+        Subscription sub = bus.on(OrderCreated.class, e -> ids.add(e.orderId()));
 
+        bus.emit(new OrderCreated(1L));
+        sub.unsubscribe();
+        bus.emit(new OrderCreated(2L));
+        sub.close();
+
+        assertEquals(List.of(1L), ids);
+        assertTrue(bus.metrics().isEmpty());
+    }
+
+    @Test
+    void testRegisteringWhileEmittingIsSafe() throws Exception {
+        EventBus bus = new EventBus();
+        int registrars = 4;
+        int perRegistrar = 250;
+        ExecutorService pool = Executors.newFixedThreadPool(registrars + 1);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            var emitter = pool.submit(() -> {
+                start.await();
+                for (long id = 0; id < 10_000; id++) {
+                    bus.emit(new OrderCreated(id));
+                }
+                return null;
+            });
+            List<java.util.concurrent.Future<?>> registrations = new ArrayList<>();
+            for (int r = 0; r < registrars; r++) {
+                registrations.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perRegistrar; i++) {
+                        bus.on(OrderEvent.class, e -> { });
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            emitter.get(30, TimeUnit.SECONDS);
+            for (var f : registrations) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(registrars * perRegistrar, bus.metrics().size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testEmitAllDeliversEachEventToPerEventHandlers() {
+        EventBus bus = new EventBus();
+        List<String> events = new ArrayList<>();
+        bus.on(OrderCreated.class, e -> events.add("created:" + e.orderId()));
+        bus.on(OrderPaid.class, e -> events.add("paid:" + e.orderId()));
+
+        bus.emitAll(List.of(new OrderCreated(1L), new OrderPaid(1L), new OrderCreated(2L)));
+
+        assertEquals(List.of("created:1", "paid:1", "created:2"), events);
+    }
+
+    @Test
+    void testBatchHandlerReceivesOneChunkPerEmitAll() {
+        EventBus bus = new EventBus();
+        List<List<OrderEvent>> chunks = new ArrayList<>();
+        List<List<OrderPaid>> paidChunks = new ArrayList<>();
+        bus.onBatch(OrderEvent.class, chunks::add);
+        bus.onBatch(OrderPaid.class, paidChunks::add);
+
+        bus.emitAll(List.of(new OrderCreated(1L), new OrderPaid(1L), new OrderCreated(2L)));
+        bus.emit(new OrderPaid(2L));
+
+        assertEquals(List.of(
+                List.of(new OrderCreated(1L), new OrderPaid(1L), new OrderCreated(2L)),
+                List.of(new OrderPaid(2L))), chunks);
+        assertEquals(List.of(List.of(new OrderPaid(1L)), List.of(new OrderPaid(2L))), paidChunks);
+    }
+
+    @Test
+    void testEmptyEmitAllDoesNotCallBatchHandlers() {
+        EventBus bus = new EventBus();
+        List<List<OrderEvent>> chunks = new ArrayList<>();
+        bus.onBatch(OrderEvent.class, chunks::add);
+
+        bus.emitAll(List.of());
+        bus.emitAll(List.of(new OrderCreated(1L)));
+
+        assertEquals(1, chunks.size());
+    }
+
+    @Test
+    void testAsyncBatchIsQueuedAsOneItem() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            EventBus bus = EventBus.async(pool, 1, EventBus.OverflowPolicy.BLOCK);
+            List<Integer> sizes = new CopyOnWriteArrayList<>();
+            bus.onBatch(OrderCreated.class, chunk -> sizes.add(chunk.size()));
+
+            List<OrderCreated> events = new ArrayList<>();
+            for (long id = 0; id < 1000; id++) {
+                events.add(new OrderCreated(id));
+            }
+            bus.emitAll(events);
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+            assertEquals(List.of(1000), sizes);
+            assertEquals(1, bus.metrics().get(0).delivered());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
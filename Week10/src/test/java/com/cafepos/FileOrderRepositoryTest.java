@@ -0,0 +1,351 @@
+package com.cafepos;
+
+import com.cafepos.catalog.SimpleProduct;
+import com.cafepos.common.Money;
+import com.cafepos.decorator.Priced;
+import com.cafepos.domain.*;
+import com.cafepos.factory.ProductFactory;
+import com.cafepos.infra.FileOrderRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileOrderRepositoryTest {
+    private static final SimpleProduct ESPRESSO = new SimpleProduct("ESP", "Espresso", Money.of(2.50));
+    private static final Duration NEVER = Duration.ofDays(1);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testOrdersSurviveRestart() {
+        var factory = new ProductFactory();
+        try (var repo = new FileOrderRepository(dir)) {
+            var order = new Order(8001L);
+            order.addItem(new LineItem(factory.create("ESP+SHOT+OAT"), 1));
+            order.addItem(new LineItem(factory.create("LAT+L"), 2));
+            repo.save(order);
+            repo.save(new Order(8002L));
+            repo.update(8002L, o -> o.addItem(new LineItem(ESPRESSO, 3)));
+        }
+
+        try (var repo = new FileOrderRepository(dir)) {
+            Order restored = repo.findById(8001L).orElseThrow();
+            assertEquals(2, restored.items().size());
+            var decorated = restored.items().get(0).product();
+            assertEquals("Espresso + Extra Shot + Oat Milk", decorated.name());
+            assertEquals(((Priced) factory.create("ESP+SHOT+OAT")).price(), ((Priced) decorated).price());
+            assertEquals(factory.create("LAT+L").name(), restored.items().get(1).product().name());
+            assertEquals(Money.of(7.50), repo.findById(8002L).orElseThrow().subtotal());
+        }
+    }
+
+    @Test
+    void testRecoveryTruncatesTornRecord() throws Exception {
+        try (var repo = new FileOrderRepository(dir)) {
+            for (long id = 1; id <= 3; id++) {
+                var order = new Order(id);
+                order.addItem(new LineItem(ESPRESSO, (int) id));
+                repo.save(order);
+            }
+        }
+        Path segment = onlySegment();
+        long fullSize = Files.size(segment);
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ch.truncate(fullSize - 5);
+        }
+
+        try (var repo = new FileOrderRepository(dir)) {
+            assertTrue(repo.findById(1L).isPresent());
+            assertTrue(repo.findById(2L).isPresent());
+            assertTrue(repo.findById(3L).isEmpty());
+            assertTrue(Files.size(segment) < fullSize - 5);
+            repo.save(new Order(4L));
+        }
+
+        try (var repo = new FileOrderRepository(dir)) {
+            assertTrue(repo.findById(2L).isPresent());
+            assertTrue(repo.findById(4L).isPresent());
+        }
+    }
+
+    @Test
+    void testRecoveryDropsRecordWithBadChecksum() throws Exception {
+        try (var repo = new FileOrderRepository(dir)) {
+            repo.save(new Order(1L));
+            repo.save(new Order(2L));
+        }
+        Path segment = onlySegment();
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 0x7f;
+        Files.write(segment, bytes);
+
+        try (var repo = new FileOrderRepository(dir)) {
+            assertTrue(repo.findById(1L).isPresent());
+            assertTrue(repo.findById(2L).isEmpty());
+        }
+    }
+
+    @Test
+    void testCompactionKeepsLatestVersionOfEachOrder() {
+        try (var repo = new FileOrderRepository(dir, 256, NEVER)) {
+            for (long id = 1; id <= 5; id++) {
+                repo.save(new Order(id));
+            }
+            for (int i = 0; i < 20; i++) {
+                repo.update(1L + i % 5, o -> o.addItem(new LineItem(ESPRESSO, 1)));
+            }
+            int before = repo.segmentCount();
+            assertTrue(before > 2, "expected several segments, got " + before);
+
+            repo.compact();
+
+            assertTrue(repo.segmentCount() < before);
+            repo.save(new Order(6L));
+        }
+
+        try (var repo = new FileOrderRepository(dir, 256, NEVER)) {
+            for (long id = 1; id <= 5; id++) {
+                assertEquals(4, repo.findById(id).orElseThrow().items().size());
+            }
+            assertTrue(repo.findById(6L).isPresent());
+        }
+    }
+
+    @Test
+    void testConcurrentSavesShareFsync() throws Exception {
+        int threads = 8;
+        int perThread = 100;
+        try (var repo = new FileOrderRepository(dir)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final long base = t * 1000L;
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        repo.save(new Order(base + i));
+                    }
+                }));
+            }
+            for (Future<?> f : results) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+        }
+
+        try (var repo = new FileOrderRepository(dir)) {
+            for (int t = 0; t < threads; t++) {
+                for (int i = 0; i < perThread; i++) {
+                    assertTrue(repo.findById(t * 1000L + i).isPresent());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testClosedRepositoryRejectsWrites() {
+        var repo = new FileOrderRepository(dir);
+        repo.close();
+        assertThrows(IllegalStateException.class, () -> repo.save(new Order(1L)));
+    }
+
+    @Test
+    void testUpdateLeavesOrdersAlreadyReadUntouched() {
+        try (var repo = new FileOrderRepository(dir)) {
+            repo.save(new Order(1L));
+            Order before = repo.findById(1L).orElseThrow();
+
+            Order after = repo.update(1L, o -> o.addItem(new LineItem(ESPRESSO, 2))).orElseThrow();
+
+            assertTrue(before.items().isEmpty());
+            assertEquals(1, after.items().size());
+            assertSame(after, repo.findById(1L).orElseThrow());
+            assertThrows(IllegalStateException.class, () -> repo.update(1L, o -> {
+                o.addItem(new LineItem(ESPRESSO, 1));
+                throw new IllegalStateException("rejected");
+            }));
+            assertEquals(1, repo.findById(1L).orElseThrow().items().size());
+        }
+    }
+
+    @Test
+    void testSaveKeepsACopyOfTheCallersOrder() {
+        var order = new Order(1L);
+        try (var repo = new FileOrderRepository(dir)) {
+            order.addItem(new LineItem(ESPRESSO, 1));
+            repo.saveAll(List.of(order));
+            order.addItem(new LineItem(ESPRESSO, 2));
+
+            assertNotSame(order, repo.findById(1L).orElseThrow());
+            assertEquals(1, repo.findById(1L).orElseThrow().items().size());
+        }
+        try (var repo = new FileOrderRepository(dir)) {
+            assertEquals(Money.of(2.50), repo.findById(1L).orElseThrow().subtotal());
+        }
+    }
+
+    @Test
+    void testVersionSurvivesRestartAndSnapshot() {
+        long version;
+        try (var repo = new FileOrderRepository(dir, FileOrderRepository.DEFAULT_SEGMENT_BYTES, NEVER, NEVER)) {
+            var order = new Order(1L);
+            order.addItem(new LineItem(ESPRESSO, 1));
+            order.addItem(new LineItem(ESPRESSO, 1));
+            order.removeLastItem();
+            repo.save(order);
+            repo.save(new Order(1L));
+            version = repo.update(1L, o -> o.addItem(new LineItem(ESPRESSO, 1))).orElseThrow().version();
+            assertTrue(version > 3);
+            repo.save(new Order(2L));
+        }
+        try (var repo = new FileOrderRepository(dir, FileOrderRepository.DEFAULT_SEGMENT_BYTES, NEVER, NEVER)) {
+            assertEquals(version, repo.findById(1L).orElseThrow().version());
+            repo.snapshot();
+        }
+        try (var repo = new FileOrderRepository(dir, FileOrderRepository.DEFAULT_SEGMENT_BYTES, NEVER, NEVER)) {
+            assertEquals(version, repo.findById(1L).orElseThrow().version());
+            assertEquals(0, repo.findById(2L).orElseThrow().version());
+        }
+    }
+
+    @Test
+    void testFailedBackgroundSnapshotIsRecorded() throws Exception {
+        try (var repo = new FileOrderRepository(dir,
+                FileOrderRepository.DEFAULT_SEGMENT_BYTES, NEVER, Duration.ofMillis(20))) {
+            repo.save(new Order(1L));
+            // a directory where the snapshot's temporary file goes makes every snapshot fail
+            Files.createDirectory(dir.resolve("snapshot.bin.tmp"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (repo.maintenanceFailures() == 0 && System.nanoTime() < deadline)
+                Thread.sleep(10);
+
+            assertTrue(repo.maintenanceFailures() > 0);
+            assertTrue(repo.lastMaintenanceFailure().isPresent());
+            repo.save(new Order(2L));
+            assertTrue(repo.findById(2L).isPresent());
+        }
+    }
+
+    @Test
+    void testSnapshotServesOrdersAfterRestart() {
+        try (var repo = new FileOrderRepository(dir, 512, NEVER, NEVER)) {
+            List<Order> orders = new ArrayList<>();
+            for (long id = 1; id <= 50; id++) {
+                var order = new Order(id);
+                order.addItem(new LineItem(ESPRESSO, (int) id));
+                orders.add(order);
+            }
+            repo.saveAll(orders);
+            repo.snapshot();
+            assertEquals(50, repo.snapshotSize());
+            assertEquals(1, repo.segmentCount());
+            repo.update(7L, o -> o.addItem(new LineItem(ESPRESSO, 1)));
+            repo.save(new Order(51L));
+        }
+
+        try (var repo = new FileOrderRepository(dir, 512, NEVER, NEVER)) {
+            assertEquals(Money.of(2.50).multiply(20), repo.findById(20L).orElseThrow().subtotal());
+            assertEquals(Money.of(2.50).multiply(8), repo.findById(7L).orElseThrow().subtotal());
+            assertTrue(repo.findById(51L).isPresent());
+            assertTrue(repo.findById(52L).isEmpty());
+            assertSame(repo.findById(20L).orElseThrow(), repo.findById(20L).orElseThrow());
+
+            repo.update(30L, o -> o.addItem(new LineItem(ESPRESSO, 1)));
+            repo.snapshot();
+            assertEquals(51, repo.snapshotSize());
+        }
+
+        try (var repo = new FileOrderRepository(dir, 512, NEVER, NEVER)) {
+            assertEquals(31, repo.findById(30L).orElseThrow().items().stream().mapToInt(LineItem::quantity).sum());
+            assertEquals(Money.of(2.50).multiply(8), repo.findById(7L).orElseThrow().subtotal());
+        }
+    }
+
+    @Test
+    void testSnapshotDuringSavesLosesNothing() throws Exception {
+        int threads = 4;
+        int perThread = 300;
+        try (var repo = new FileOrderRepository(dir, 1024, NEVER, NEVER)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final long base = t * 1000L;
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        repo.save(new Order(base + i));
+                    }
+                }));
+            }
+            Future<?> snapshots = pool.submit(() -> {
+                while (!writers.stream().allMatch(Future::isDone)) {
+                    repo.snapshot();
+                }
+            });
+            for (Future<?> f : writers) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+            snapshots.get(60, TimeUnit.SECONDS);
+            pool.shutdown();
+        }
+
+        try (var repo = new FileOrderRepository(dir, 1024, NEVER, NEVER)) {
+            for (int t = 0; t < threads; t++) {
+                for (int i = 0; i < perThread; i++) {
+                    assertTrue(repo.findById(t * 1000L + i).isPresent(), "lost order " + (t * 1000L + i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testCorruptSnapshotIsRejected() throws Exception {
+        try (var repo = new FileOrderRepository(dir)) {
+            repo.save(new Order(1L));
+            repo.snapshot();
+        }
+        Path snapshot = dir.resolve("snapshot.bin");
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(snapshot, bytes);
+
+        var e = assertThrows(IllegalStateException.class, () -> new FileOrderRepository(dir));
+        assertTrue(e.getMessage().contains("checksum"));
+    }
+
+    @Test
+    void testSnapshotWithUnknownVersionIsRejected() throws Exception {
+        try (var repo = new FileOrderRepository(dir)) {
+            repo.save(new Order(1L));
+            repo.snapshot();
+        }
+        Path snapshot = dir.resolve("snapshot.bin");
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[7] = 99;
+        Files.write(snapshot, bytes);
+
+        var e = assertThrows(IllegalStateException.class, () -> new FileOrderRepository(dir));
+        assertTrue(e.getMessage().contains("version"));
+    }
+
+    private Path onlySegment() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> segments = files.toList();
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+}
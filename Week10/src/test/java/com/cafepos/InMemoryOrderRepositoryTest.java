@@ -0,0 +1,143 @@
+package com.cafepos;
+
+import com.cafepos.catalog.SimpleProduct;
+import com.cafepos.common.Money;
+import com.cafepos.domain.*;
+import com.cafepos.infra.InMemoryOrderRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryOrderRepositoryTest {
+    private static final SimpleProduct ESPRESSO = new SimpleProduct("ESP", "Espresso", Money.of(2.50));
+
+    @Test
+    void testUpdateMissingOrderReturnsEmpty() {
+        var repo = new InMemoryOrderRepository();
+        assertTrue(repo.update(1L, o -> fail("must not be called")).isEmpty());
+    }
+
+    @Test
+    void testUpdateMutatesStoredOrder() {
+        var repo = new InMemoryOrderRepository();
+        repo.save(new Order(7001L));
+
+        var updated = repo.update(7001L, o -> o.addItem(new LineItem(ESPRESSO, 2)));
+
+        assertTrue(updated.isPresent());
+        assertEquals(Money.of(5.00), repo.findById(7001L).orElseThrow().subtotal());
+    }
+
+    @Test
+    void testSaveKeepsACopyOfTheCallersOrder() {
+        var repo = new InMemoryOrderRepository();
+        var order = new Order(7003L);
+        order.addItem(new LineItem(ESPRESSO, 1));
+        repo.save(order);
+
+        order.addItem(new LineItem(ESPRESSO, 2));
+
+        Order stored = repo.findById(7003L).orElseThrow();
+        assertNotSame(order, stored);
+        assertEquals(1, stored.items().size());
+        assertEquals(Money.of(2.50), stored.subtotal());
+    }
+
+    @Test
+    void testReplacingAnOrderMovesItsVersionOn() {
+        var repo = new InMemoryOrderRepository();
+        var order = new Order(7004L);
+        order.addItem(new LineItem(ESPRESSO, 1));
+        repo.save(order);
+        long version = repo.findById(7004L).orElseThrow().version();
+
+        var replacement = new Order(7004L);
+        replacement.addItem(new LineItem(ESPRESSO, 3));
+        repo.save(replacement);
+
+        assertTrue(repo.findById(7004L).orElseThrow().version() > version);
+    }
+
+    @Test
+    void testConcurrentTillsDoNotLoseUpdates() throws Exception {
+        var repo = new InMemoryOrderRepository();
+        int threads = 16;
+        int ordersPerThread = 200;
+        int sharedOrders = 8;
+        int updatesPerThread = 512;
+        for (long id = 0; id < sharedOrders; id++) {
+            repo.save(new Order(id, true));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int till = t;
+            results.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ordersPerThread; i++) {
+                    repo.save(new Order(1_000_000L * (till + 1) + i));
+                }
+                for (int i = 0; i < updatesPerThread; i++) {
+                    repo.update(i % sharedOrders, o -> o.addItem(new LineItem(ESPRESSO, 1)));
+                    assertTrue(repo.findById(1_000_000L * (till + 1) + i % ordersPerThread).isPresent());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : results) {
+            f.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int expectedItems = threads * updatesPerThread / sharedOrders;
+        for (long id = 0; id < sharedOrders; id++) {
+            Order order = repo.findById(id).orElseThrow();
+            assertEquals(expectedItems, order.items().size());
+            assertEquals(Money.of(2.50).multiply(expectedItems), order.subtotal());
+        }
+    }
+
+    @Test
+    void testReadersNeverSeeAnOrderChangeUnderThem() throws Exception {
+        var repo = new InMemoryOrderRepository();
+        repo.save(new Order(7002L));
+        Order before = repo.findById(7002L).orElseThrow();
+        long version = before.version();
+
+        repo.update(7002L, o -> o.addItem(new LineItem(ESPRESSO, 1)));
+
+        assertTrue(before.items().isEmpty());
+        assertEquals(Money.zero(), before.subtotal());
+        assertEquals(version, before.version());
+        Order after = repo.findById(7002L).orElseThrow();
+        assertNotSame(before, after);
+        assertTrue(after.version() > version);
+
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 5_000; i++)
+                repo.update(7002L, o -> o.addItem(new LineItem(ESPRESSO, 1)));
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            Order o = repo.findById(7002L).orElseThrow();
+            long v = o.version();
+            Money subtotal = o.subtotal();
+            List<LineItem> items = o.items();
+            assertEquals(Money.of(2.50).multiply(items.size()), subtotal);
+            assertEquals(v, o.version());
+        }
+        writer.join();
+        assertEquals(5_001, repo.findById(7002L).orElseThrow().items().size());
+    }
+}
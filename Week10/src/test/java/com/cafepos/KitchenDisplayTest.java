@@ -0,0 +1,137 @@
+package com.cafepos;
+
+import com.cafepos.app.KitchenDisplay;
+import com.cafepos.app.KitchenDisplay.Ticket;
+import com.cafepos.app.OrderLifecycleEngine;
+import com.cafepos.app.events.EventBus;
+import com.cafepos.app.events.OrderCreated;
+import com.cafepos.app.events.OrderPaid;
+import com.cafepos.app.events.OrderStatusChanged;
+import com.cafepos.domain.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KitchenDisplayTest {
+
+    private static List<Long> ids(List<Ticket> tickets) {
+        return tickets.stream().map(Ticket::orderId).toList();
+    }
+
+    @Test
+    void testQueuesFollowLifecycleOldestFirst() {
+        var bus = new EventBus();
+        var display = new KitchenDisplay();
+        display.attach(bus);
+        var engine = new OrderLifecycleEngine(bus);
+        for (long id = 1; id <= 4; id++) {
+            engine.register(id);
+            bus.emit(new OrderCreated(id));
+        }
+
+        engine.pay(3L);
+        engine.pay(1L);
+        engine.pay(2L);
+        engine.markReady(1L);
+        engine.cancel(2L);
+
+        assertEquals(List.of(4L), ids(display.queue(OrderStatus.NEW)));
+        assertEquals(List.of(3L), ids(display.queue(OrderStatus.PREPARING)));
+        assertEquals(List.of(1L), ids(display.queue(OrderStatus.READY)));
+        assertEquals(List.of(), display.queue(OrderStatus.CANCELLED));
+
+        engine.deliver(1L);
+        assertEquals(0, display.count(OrderStatus.READY));
+        assertEquals(1, display.count(OrderStatus.PREPARING));
+    }
+
+    @Test
+    void testTimeInStateResetsOnMove() {
+        AtomicLong clock = new AtomicLong();
+        var display = new KitchenDisplay(clock::get);
+        display.moved(7L, OrderStatus.NEW);
+        clock.set(5_000_000_000L);
+        display.moved(7L, OrderStatus.PREPARING);
+        clock.addAndGet(2_000_000_000L);
+
+        Ticket t = display.queue(OrderStatus.PREPARING).get(0);
+        assertEquals(OrderStatus.PREPARING, t.status());
+        assertEquals(Duration.ofSeconds(2), t.timeInState());
+    }
+
+    @Test
+    void testLateAndRepeatedEventsAreIgnored() {
+        AtomicLong clock = new AtomicLong();
+        var display = new KitchenDisplay(clock::get);
+        display.applyAll(List.of(
+                new OrderCreated(1L),
+                new OrderCreated(2L),
+                new OrderPaid(1L),
+                new OrderStatusChanged(1L, OrderStatus.NEW, OrderStatus.PREPARING),
+                new OrderStatusChanged(2L, OrderStatus.NEW, OrderStatus.PREPARING),
+                new OrderCreated(2L)));
+
+        assertEquals(List.of(1L, 2L), ids(display.queue(OrderStatus.PREPARING)));
+        assertEquals(0, display.count(OrderStatus.NEW));
+    }
+
+    @Test
+    void testEventsAfterDeliveryDoNotBringTheOrderBack() {
+        var display = new KitchenDisplay(() -> 0L, 2);
+        display.applyAll(List.of(
+                new OrderCreated(1L),
+                new OrderPaid(1L),
+                new OrderStatusChanged(1L, OrderStatus.PREPARING, OrderStatus.READY),
+                new OrderStatusChanged(1L, OrderStatus.READY, OrderStatus.DELIVERED),
+                new OrderStatusChanged(2L, OrderStatus.NEW, OrderStatus.CANCELLED)));
+
+        display.applyAll(List.of(
+                new OrderStatusChanged(1L, OrderStatus.PREPARING, OrderStatus.READY),
+                new OrderPaid(1L),
+                new OrderCreated(2L)));
+
+        assertTrue(display.snapshot().values().stream().allMatch(List::isEmpty));
+
+        // only the last two finished orders are remembered
+        display.moved(3L, OrderStatus.DELIVERED);
+        display.moved(4L, OrderStatus.DELIVERED);
+        display.moved(1L, OrderStatus.READY);
+        display.moved(4L, OrderStatus.READY);
+        assertEquals(List.of(1L), ids(display.queue(OrderStatus.READY)));
+    }
+
+    @Test
+    void testSnapshotIsConsistentWhileWritersMove() throws Exception {
+        var display = new KitchenDisplay();
+        int orders = 200;
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int round = 0; round < 200; round++) {
+                for (long id = 0; id < orders; id++) {
+                    display.moved(round * (long) orders + id, OrderStatus.NEW);
+                }
+                for (long id = 0; id < orders; id++) {
+                    display.moved(round * (long) orders + id, OrderStatus.DELIVERED);
+                }
+            }
+            done.set(true);
+        });
+        writer.start();
+        while (!done.get()) {
+            Map<OrderStatus, List<Ticket>> snap = display.snapshot();
+            List<Ticket> fresh = snap.get(OrderStatus.NEW);
+            assertTrue(fresh.size() <= orders);
+            for (Ticket t : fresh) {
+                assertEquals(OrderStatus.NEW, t.status());
+            }
+        }
+        writer.join();
+        assertTrue(display.snapshot().values().stream().allMatch(List::isEmpty));
+    }
+}
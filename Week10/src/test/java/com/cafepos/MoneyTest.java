@@ -0,0 +1,76 @@
+package com.cafepos;
+
+import com.cafepos.common.Money;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+    @Test
+    void testRoundingMatchesBigDecimalHalfUp() {
+        double[] values = {0.0, 0.005, 0.015, 1.005, 2.675, 2.50, 3.20, 0.1 + 0.2, 19.999, 1234567.891};
+        for (double v : values) {
+            BigDecimal expected = BigDecimal.valueOf(v).setScale(2, RoundingMode.HALF_UP);
+            assertEquals(expected, Money.of(v).asBigDecimal(), "value " + v);
+            assertEquals(expected.toString(), Money.of(v).toString(), "value " + v);
+        }
+    }
+
+    @Test
+    void testOfBigDecimalRoundsHalfUp() {
+        assertEquals(Money.of(0.13), Money.of(new BigDecimal("0.125")));
+        assertEquals(Money.of(0.12), Money.of(new BigDecimal("0.1249")));
+    }
+
+    @Test
+    void testToStringAlwaysHasTwoDecimals() {
+        assertEquals("0.00", Money.zero().toString());
+        assertEquals("0.05", Money.of(0.05).toString());
+        assertEquals("2.50", Money.of(2.5).toString());
+        assertEquals("100.00", Money.of(100).toString());
+    }
+
+    @Test
+    void testArithmetic() {
+        assertEquals(Money.of(5.70), Money.of(2.50).add(Money.of(3.20)));
+        assertEquals(Money.of(9.60), Money.of(3.20).multiply(3));
+        assertEquals(Money.zero(), Money.of(3.20).multiply(0));
+        assertEquals(0, Money.of(1.10).compareTo(Money.ofCents(110)));
+        assertTrue(Money.of(1.10).compareTo(Money.of(1.09)) > 0);
+    }
+
+    @Test
+    void testCommonValuesAreInterned() {
+        assertSame(Money.zero(), Money.of(0.0));
+        assertSame(Money.of(2.50), Money.of(new BigDecimal("2.5")));
+        assertSame(Money.of(3.20), Money.ofCents(320));
+    }
+
+    @Test
+    void testEqualsAndHashCode() {
+        Money a = Money.ofCents(123_456_789L);
+        Money b = Money.of(new BigDecimal("1234567.89"));
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(Money.of(1.00), Money.of(1.01));
+    }
+
+    @Test
+    void testNegativeAmountsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Money.of(-0.01));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("-1")));
+        assertThrows(IllegalArgumentException.class, () -> Money.ofCents(-1));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(1.00).multiply(-1));
+    }
+
+    @Test
+    void testOverflowIsDetected() {
+        Money big = Money.ofCents(Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> big.add(Money.of(0.01)));
+        assertThrows(ArithmeticException.class, () -> big.multiply(2));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1e30")));
+    }
+}
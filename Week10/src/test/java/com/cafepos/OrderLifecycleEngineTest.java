@@ -0,0 +1,158 @@
+package com.cafepos;
+
+import com.cafepos.app.OrderLifecycleEngine;
+import com.cafepos.app.events.EventBus;
+import com.cafepos.app.events.OrderStatusChanged;
+import com.cafepos.domain.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderLifecycleEngineTest {
+
+    @Test
+    void testHappyPathPublishesEachTransition() {
+        var bus = new EventBus();
+        List<OrderStatusChanged> events = new ArrayList<>();
+        bus.on(OrderStatusChanged.class, events::add);
+        var engine = new OrderLifecycleEngine(bus);
+
+        assertTrue(engine.register(4201L));
+        assertEquals(OrderStatus.NEW, engine.status(4201L).orElseThrow());
+        assertTrue(engine.pay(4201L));
+        assertTrue(engine.markReady(4201L));
+        assertTrue(engine.deliver(4201L));
+
+        assertEquals(OrderStatus.DELIVERED, engine.status(4201L).orElseThrow());
+        assertEquals(List.of(
+                new OrderStatusChanged(4201L, OrderStatus.NEW, OrderStatus.PREPARING),
+                new OrderStatusChanged(4201L, OrderStatus.PREPARING, OrderStatus.READY),
+                new OrderStatusChanged(4201L, OrderStatus.READY, OrderStatus.DELIVERED)), events);
+    }
+
+    @Test
+    void testRejectedTransitionsPublishNothing() {
+        var bus = new EventBus();
+        AtomicInteger events = new AtomicInteger();
+        bus.on(OrderStatusChanged.class, e -> events.incrementAndGet());
+        var engine = new OrderLifecycleEngine(bus);
+        engine.register(1L);
+
+        assertFalse(engine.prepare(1L));
+        assertFalse(engine.markReady(1L));
+        assertFalse(engine.deliver(1L));
+        assertFalse(engine.pay(99L));
+        assertTrue(engine.cancel(1L));
+        assertFalse(engine.pay(1L));
+        assertFalse(engine.cancel(1L));
+
+        assertEquals(OrderStatus.CANCELLED, engine.status(1L).orElseThrow());
+        assertEquals(1, events.get());
+    }
+
+    @Test
+    void testRegisterAndRemove() {
+        var engine = new OrderLifecycleEngine(new EventBus());
+        assertTrue(engine.register(-5L));
+        assertFalse(engine.register(-5L));
+        engine.pay(-5L);
+        assertTrue(engine.remove(-5L));
+        assertFalse(engine.remove(-5L));
+        assertTrue(engine.status(-5L).isEmpty());
+        assertFalse(engine.markReady(-5L));
+
+        assertTrue(engine.register(-5L));
+        assertEquals(OrderStatus.NEW, engine.status(-5L).orElseThrow());
+        assertEquals(1, engine.size());
+    }
+
+    @Test
+    void testGrowsAndDropsTombstones() {
+        var engine = new OrderLifecycleEngine(new EventBus(), 0);
+        for (long id = 0; id < 20_000; id++) {
+            assertTrue(engine.register(id));
+            if (id % 2 == 0)
+                engine.pay(id);
+        }
+        for (long id = 0; id < 20_000; id += 4) {
+            assertTrue(engine.remove(id));
+        }
+        for (long id = 20_000; id < 40_000; id++) {
+            engine.register(id);
+        }
+        assertEquals(35_000, engine.size());
+        assertTrue(engine.status(0L).isEmpty());
+        assertEquals(OrderStatus.PREPARING, engine.status(2L).orElseThrow());
+        assertEquals(OrderStatus.NEW, engine.status(3L).orElseThrow());
+        assertEquals(OrderStatus.NEW, engine.status(39_999L).orElseThrow());
+    }
+
+    @Test
+    void testSteppedIdsDoNotPileUpInOneProbeChain() {
+        // ids sharing their low 20 bits once all landed on the same slot of each segment
+        var engine = new OrderLifecycleEngine(new EventBus(), 0);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (long i = 0; i < 200_000; i++) {
+                assertTrue(engine.register(i << 20));
+            }
+            for (long i = 0; i < 200_000; i++) {
+                assertEquals(OrderStatus.NEW, engine.status(i << 20).orElseThrow());
+            }
+        });
+        assertEquals(200_000, engine.size());
+    }
+
+    @Test
+    void testRacingTillsPayEachOrderOnce() throws Exception {
+        var bus = new EventBus();
+        AtomicInteger published = new AtomicInteger();
+        bus.on(OrderStatusChanged.class, e -> published.incrementAndGet());
+        var engine = new OrderLifecycleEngine(bus, 16);
+        int orders = 2_000;
+        int threads = 8;
+        AtomicInteger paid = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int till = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (long id = 0; id < orders; id++) {
+                    // registering while others transition forces rehashes mid-race
+                    engine.register(id);
+                    if (engine.pay(id))
+                        paid.incrementAndGet();
+                    if (till == 0 && engine.cancel(id))
+                        cancelled.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(orders, engine.size());
+        assertTrue(paid.get() <= orders);
+        for (long id = 0; id < orders; id++) {
+            OrderStatus s = engine.status(id).orElseThrow();
+            assertTrue(s == OrderStatus.PREPARING || s == OrderStatus.CANCELLED, s.toString());
+        }
+        assertEquals(paid.get() + cancelled.get(), published.get());
+    }
+}
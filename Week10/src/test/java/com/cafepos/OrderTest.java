@@ -91,6 +91,57 @@ class OrderTest {
             order.addItem(new LineItem(product, 0));
         });
     }
-}
 
+    @Test
+    void testSubtotalTracksAddAndRemove() {
+        Order order = new Order(6009L, true);
+        var espresso = new com.cafepos.catalog.SimpleProduct("ESP", "Espresso", Money.of(2.50));
+        var latte = new com.cafepos.catalog.SimpleProduct("LAT", "Latte", Money.of(3.20));
+
+        assertEquals(Money.zero(), order.subtotal());
+        order.addItem(new LineItem(espresso, 2));
+        order.addItem(new LineItem(latte, 3));
+        assertEquals(Money.of(14.60), order.subtotal());
+
+        order.removeLastItem();
+        assertEquals(Money.of(5.00), order.subtotal());
+        order.removeLastItem();
+        order.removeLastItem();
+        assertEquals(Money.zero(), order.subtotal());
+    }
+
+    @Test
+    void testTaxAndTotalUseRunningSubtotal() {
+        Order order = new Order(6010L, true);
+        var product = new com.cafepos.catalog.SimpleProduct("LAT", "Latte", Money.of(3.20));
+        order.addItem(new LineItem(product, 5));
+
+        assertEquals(Money.of(1.60), order.taxAtPercent(10));
+        assertEquals(Money.of(17.60), order.totalWithTax(10));
+        assertThrows(IllegalArgumentException.class, () -> order.totalWithTax(-1));
+    }
+
+    @Test
+    void testVersionChangesWithContent() {
+        Order order = new Order(6010L);
+        var product = new com.cafepos.catalog.SimpleProduct("ESP", "Espresso", Money.of(2.50));
+        long v0 = order.version();
+        order.addItem(new LineItem(product, 1));
+        long v1 = order.version();
+        assertTrue(v1 > v0);
+        assertEquals(v1, order.version());
+        order.removeLastItem();
+        assertTrue(order.version() > v1);
+
+        long v2 = order.version();
+        order.removeLastItem(); // nothing to remove
+        assertEquals(v2, order.version());
 
+        Order copy = order.copy();
+        assertEquals(v2, copy.version());
+        copy.addItem(new LineItem(product, 1));
+        assertEquals(v2, order.version());
+        assertTrue(copy.version() > v2);
+        assertThrows(IllegalArgumentException.class, () -> copy.restoreVersion(v2));
+    }
+}
@@ -0,0 +1,93 @@
+package com.cafepos;
+
+import com.cafepos.catalog.SimpleProduct;
+import com.cafepos.common.Money;
+import com.cafepos.domain.LineItem;
+import com.cafepos.domain.Order;
+import com.cafepos.pricing.DiscountPolicy;
+import com.cafepos.pricing.FixedRateTaxPolicy;
+import com.cafepos.pricing.LoyaltyPercentDiscount;
+import com.cafepos.pricing.PricingCache;
+import com.cafepos.pricing.PricingService;
+import com.cafepos.pricing.PricingService.PricingResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingCacheTest {
+    private static final PricingResult RESULT = new PricingResult(Money.of(1.00), Money.zero(), Money.zero(), Money.of(1.00));
+
+    private static Order order(long id, double price) {
+        Order order = new Order(id);
+        order.addItem(new LineItem(new SimpleProduct("P", "Item", Money.of(price)), 1));
+        return order;
+    }
+
+    @Test
+    void testUnchangedOrderIsPricedOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        DiscountPolicy counting = s -> {
+            calls.incrementAndGet();
+            return Money.zero();
+        };
+        var pricing = new PricingService(counting, new FixedRateTaxPolicy(10));
+        var cache = new PricingCache();
+        Order order = order(1L, 2.00);
+
+        PricingResult first = cache.price(pricing, order);
+        assertSame(first, cache.price(pricing, order));
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+
+        order.addItem(new LineItem(new SimpleProduct("Q", "Other", Money.of(1.00)), 1));
+        assertEquals(Money.of(3.30), cache.price(pricing, order).total());
+        assertEquals(2, calls.get());
+        // the new version replaced the old one in place
+        assertEquals(0, cache.evictions());
+    }
+
+    @Test
+    void testDifferentPricingServicesDoNotShareResults() {
+        var cache = new PricingCache();
+        Order order = order(2L, 10.00);
+        var plain = new PricingService(new LoyaltyPercentDiscount(0), new FixedRateTaxPolicy(10));
+        var loyal = new PricingService(new LoyaltyPercentDiscount(5), new FixedRateTaxPolicy(10));
+        assertNotEquals(plain.fingerprint(), loyal.fingerprint());
+
+        assertEquals(Money.of(11.00), cache.price(plain, order).total());
+        assertEquals(Money.of(10.45), cache.price(loyal, order).total());
+        assertEquals(Money.of(11.00), cache.price(plain, order).total());
+    }
+
+    @Test
+    void testFullCacheEvictsAndCountsIt() {
+        var cache = new PricingCache(3);
+        assertEquals(4, cache.capacity());
+        for (long id = 0; id < 100; id++)
+            cache.put(id, 1, 7, RESULT);
+        assertTrue(cache.evictions() >= 96, "evictions " + cache.evictions());
+        int cached = 0;
+        for (long id = 0; id < 100; id++) {
+            if (cache.get(id, 1, 7) != null)
+                cached++;
+        }
+        assertTrue(cached <= 4);
+        assertEquals(cached, cache.hits());
+        assertEquals(100 - cached, cache.misses());
+    }
+
+    @Test
+    void testOlderVersionNeverReplacesNewer() {
+        var cache = new PricingCache(16);
+        var newer = new PricingResult(Money.of(2.00), Money.zero(), Money.zero(), Money.of(2.00));
+        cache.put(9L, 5, 1, newer);
+        cache.put(9L, 4, 1, RESULT);
+        assertSame(newer, cache.get(9L, 5, 1));
+        assertNull(cache.get(9L, 4, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PricingCache(0));
+        assertThrows(IllegalArgumentException.class, () -> cache.put(9L, 6, 1, null));
+    }
+}
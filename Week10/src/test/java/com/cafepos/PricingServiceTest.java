@@ -0,0 +1,184 @@
+package com.cafepos;
+
+import com.cafepos.catalog.SimpleProduct;
+import com.cafepos.common.Money;
+import com.cafepos.domain.LineItem;
+import com.cafepos.pricing.*;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingServiceTest {
+
+    private static long[] randomSubtotals(int n, long seed) {
+        Random rnd = new Random(seed);
+        long[] subtotals = new long[n];
+        for (int i = 0; i < n; i++) {
+            subtotals[i] = i % 50 == 0 ? i : rnd.nextInt(1_000_000);
+        }
+        return subtotals;
+    }
+
+    private static void assertMatchesScalar(PricingService pricing, long[] subtotals) {
+        var bulk = pricing.priceAll(subtotals);
+        for (int i = 0; i < subtotals.length; i++) {
+            var pr = pricing.price(Money.ofCents(subtotals[i]));
+            assertEquals(pr.discount().cents(), bulk.discountCents()[i], "discount of " + subtotals[i]);
+            assertEquals(pr.tax().cents(), bulk.taxCents()[i], "tax of " + subtotals[i]);
+            assertEquals(pr.total().cents(), bulk.totalCents()[i], "total of " + subtotals[i]);
+        }
+    }
+
+    @Test
+    void testBulkMatchesScalarForPercentPolicies() {
+        long[] subtotals = randomSubtotals(5_000, 42);
+        for (int discount : new int[] {0, 5, 13, 100}) {
+            for (int tax : new int[] {0, 10, 23}) {
+                assertMatchesScalar(new PricingService(new LoyaltyPercentDiscount(discount),
+                        new FixedRateTaxPolicy(tax)), subtotals);
+            }
+        }
+    }
+
+    @Test
+    void testBulkMatchesScalarForPlainPolicies() {
+        DiscountPolicy couponOfTwo = s -> s.cents() < 200 ? s : Money.ofCents(200);
+        TaxPolicy roundedUp = a -> Money.of(a.asBigDecimal().multiply(new BigDecimal("0.135")));
+        assertMatchesScalar(new PricingService(couponOfTwo, roundedUp), randomSubtotals(5_000, 7));
+    }
+
+    @Test
+    void testLargeBatchIsSplitAndStillExact() {
+        long[] subtotals = randomSubtotals(200_000, 99);
+        assertMatchesScalar(new PricingService(new LoyaltyPercentDiscount(5), new FixedRateTaxPolicy(10)), subtotals);
+    }
+
+    @Test
+    void testBulkRejectsWhatScalarRejects() {
+        DiscountPolicy tooMuch = s -> s.add(Money.ofCents(1));
+        var pricing = new PricingService(tooMuch, new FixedRateTaxPolicy(10));
+        assertThrows(IllegalArgumentException.class, () -> pricing.price(Money.ofCents(500)));
+        assertThrows(IllegalArgumentException.class, () -> pricing.priceAll(new long[] {500}));
+
+        var plain = new PricingService(new LoyaltyPercentDiscount(5), new FixedRateTaxPolicy(10));
+        assertThrows(IllegalArgumentException.class, () -> plain.priceAll(new long[] {-1}));
+        assertThrows(IllegalArgumentException.class,
+                () -> plain.priceAll(new long[2], new long[2], new long[1], new long[2]));
+    }
+
+    @Test
+    void testPercentCentsFallBackNearOverflow() {
+        var policy = new LoyaltyPercentDiscount(50);
+        long huge = Long.MAX_VALUE / 10;
+        assertEquals(policy.discountOf(Money.ofCents(huge)).cents(), policy.discountCents(huge));
+    }
+
+    private static List<LineItem> randomLines(Random rnd, int n) {
+        List<LineItem> items = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            String id = i % 3 == 0 ? "FOOD-" + i : "DRINK-" + i;
+            items.add(new LineItem(new SimpleProduct(id, id, Money.ofCents(rnd.nextInt(2_000))), 1 + rnd.nextInt(4)));
+        }
+        return items;
+    }
+
+    @Test
+    void testPriceLinesMatchesPriceWithoutLinePolicies() {
+        Random rnd = new Random(5);
+        var pricing = new PricingService(new LoyaltyPercentDiscount(13), new FixedRateTaxPolicy(23));
+        for (int n : new int[] {0, 1, 2, 7, 50}) {
+            List<LineItem> items = randomLines(rnd, n);
+            Money subtotal = items.stream().map(LineItem::lineTotal).reduce(Money.zero(), Money::add);
+
+            var lines = pricing.priceLines(items);
+
+            assertEquals(pricing.price(subtotal), lines.totals());
+            assertEquals(subtotal.cents(), Arrays.stream(lines.lineCents()).sum());
+            assertEquals(lines.totals().discount().cents(), Arrays.stream(lines.discountCents()).sum());
+            assertEquals(lines.totals().tax().cents(), Arrays.stream(lines.taxCents()).sum());
+        }
+    }
+
+    @Test
+    void testPriceLinesAppliesItemDiscountsAndTaxRates() {
+        TaxPolicy food = new FixedRateTaxPolicy(0);
+        TaxPolicy drinks = new FixedRateTaxPolicy(20);
+        LineDiscountPolicy halfPriceCake = (p, qty, cents) -> p.id().equals("CAKE") ? cents / 2 : 0;
+        var pricing = new PricingService(new LoyaltyPercentDiscount(10), drinks, halfPriceCake,
+                p -> p.id().equals("CAKE") ? food : drinks);
+        List<LineItem> items = List.of(
+                new LineItem(new SimpleProduct("LAT", "Latte", Money.of(3.00)), 2),
+                new LineItem(new SimpleProduct("CAKE", "Cake", Money.of(4.00)), 1));
+
+        var lines = pricing.priceLines(items);
+
+        // cake 4.00 -> 2.00 after its own discount; 10% of the remaining 8.00 is spread 6:2
+        assertArrayEquals(new long[] {600, 400}, lines.lineCents());
+        assertArrayEquals(new long[] {60, 220}, lines.discountCents());
+        // only the latte (5.40 after discounts) is taxed
+        assertArrayEquals(new long[] {108, 0}, lines.taxCents());
+        assertEquals(new PricingService.PricingResult(Money.of(10.00), Money.of(2.80), Money.of(1.08), Money.of(8.28)),
+                lines.totals());
+    }
+
+    @Test
+    void testPriceLinesTaxesLinesAtTheSameRateTogether() {
+        // a new policy per product, as a product catalog lookup would return
+        var pricing = new PricingService(new LoyaltyPercentDiscount(0), new FixedRateTaxPolicy(10),
+                LineDiscountPolicy.NONE, p -> new FixedRateTaxPolicy(10));
+        var mint = new SimpleProduct("MINT", "Mint", Money.of(0.05));
+        List<LineItem> items = List.of(new LineItem(mint, 1), new LineItem(mint, 1), new LineItem(mint, 1));
+
+        var lines = pricing.priceLines(items);
+
+        // 10% of 0.15 rounds once to 0.02, not three times to 0.01
+        assertEquals(Money.of(0.02), lines.totals().tax());
+        assertEquals(pricing.price(Money.of(0.15)), lines.totals());
+    }
+
+    @Test
+    void testPriceLinesSpreadsRoundingExactly() {
+        var pricing = new PricingService(s -> Money.ofCents(100), new FixedRateTaxPolicy(10));
+        List<LineItem> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            items.add(new LineItem(new SimpleProduct("P" + i, "Item", Money.of(1.00)), 1));
+
+        var lines = pricing.priceLines(items);
+
+        assertArrayEquals(new long[] {33, 33, 34}, lines.discountCents());
+        assertEquals(20, Arrays.stream(lines.taxCents()).sum());
+    }
+
+    @Test
+    void testPriceLinesRejectsOrderDiscountBeyondWhatIsLeft() {
+        var oversized = new PricingService(s -> s.add(Money.ofCents(1)), new FixedRateTaxPolicy(10));
+        List<LineItem> items = List.of(
+                new LineItem(new SimpleProduct("ESP", "Espresso", Money.of(2.50)), 1),
+                new LineItem(new SimpleProduct("LAT", "Latte", Money.of(3.20)), 2));
+
+        var e = assertThrows(IllegalArgumentException.class, () -> oversized.priceLines(items));
+        assertEquals("order discount exceeds remaining amount", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> oversized.price(Money.of(8.90)));
+
+        DiscountPolicy negative = new DiscountPolicy() {
+            @Override
+            public Money discountOf(Money subtotal) {
+                return Money.zero();
+            }
+
+            @Override
+            public long discountCents(long subtotalCents) {
+                return -1;
+            }
+        };
+        e = assertThrows(IllegalArgumentException.class,
+                () -> new PricingService(negative, new FixedRateTaxPolicy(10)).priceLines(items));
+        assertEquals("order discount cannot be negative", e.getMessage());
+    }
+}
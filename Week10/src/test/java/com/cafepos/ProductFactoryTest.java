@@ -0,0 +1,105 @@
+package com.cafepos;
+
+import com.cafepos.catalog.Product;
+import com.cafepos.catalog.SimpleProduct;
+import com.cafepos.common.Money;
+import com.cafepos.decorator.*;
+import com.cafepos.domain.LineItem;
+import com.cafepos.factory.ProductFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductFactoryTest {
+    private final ProductFactory factory = new ProductFactory();
+
+    @Test
+    void testPlainRecipeIsNotCompiled() {
+        Product p = factory.create("ESP");
+        assertInstanceOf(SimpleProduct.class, p);
+        assertFalse(p instanceof Priced);
+    }
+
+    @Test
+    void testCompiledProductMatchesDecoratorChain() {
+        Product base = new SimpleProduct("P-LAT", "Latte", Money.of(3.20));
+        Product[] chains = {
+            new ExtraShot(base),
+            new SizeLarge(base),
+            new OatMilk(new ExtraShot(base)),
+            new SizeLarge(new OatMilk(new ExtraShot(base))),
+            new ExtraShot(new ExtraShot(base))
+        };
+        for (Product chain : chains) {
+            Product flat = CompiledProduct.compile(chain);
+            assertInstanceOf(CompiledProduct.class, flat);
+            assertEquals(chain.id(), flat.id());
+            assertEquals(chain.name(), flat.name());
+            assertEquals(chain.basePrice(), flat.basePrice());
+            assertEquals(((Priced) chain).price(), ((Priced) flat).price());
+            assertEquals(new LineItem(chain, 3).lineTotal(), new LineItem(flat, 3).lineTotal());
+        }
+    }
+
+    @Test
+    void testFactoryCompilesDecoratedRecipes() {
+        Product p = factory.create("esp + shot + oat");
+        var flat = assertInstanceOf(CompiledProduct.class, p);
+        assertEquals("Espresso + Extra Shot + Oat Milk", p.name());
+        assertTrue(flat.hasAddOn(CompiledProduct.EXTRA_SHOT));
+        assertTrue(flat.hasAddOn(CompiledProduct.OAT_MILK));
+        assertFalse(flat.hasAddOn(CompiledProduct.SIZE_LARGE));
+        assertSame(p, CompiledProduct.compile(p));
+    }
+
+    @Test
+    void testUnknownTokensRejected() {
+        assertThrows(IllegalArgumentException.class, () -> factory.create("TEA"));
+        assertThrows(IllegalArgumentException.class, () -> factory.create("ESP+FOAM"));
+        assertThrows(IllegalArgumentException.class, () -> factory.create(" "));
+    }
+
+    @Test
+    void testTokenizerHandlesCaseAndWhitespace() {
+        assertEquals("Latte (Large)", factory.create("  lat +L ").name());
+        assertEquals("Americano", factory.create("AME+").name());
+        var e = assertThrows(IllegalArgumentException.class, () -> factory.create("ESP++SHOT"));
+        assertEquals("Unknown addon: ", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> factory.create("esp+foam"));
+        assertEquals("Unknown addon: FOAM", e.getMessage());
+    }
+
+    @Test
+    void testRepeatedRecipesServedFromCache() {
+        var f = new ProductFactory();
+        Product first = f.create("LAT+L");
+        Product second = f.create("LAT+L");
+        assertSame(first, second);
+        assertEquals(1, f.cacheMisses());
+        assertEquals(1, f.cacheHits());
+        assertEquals(1, f.cacheSize());
+    }
+
+    @Test
+    void testCacheIsBoundedAndFollowsNewRecipes() {
+        var f = new ProductFactory(3);
+        assertEquals(4, f.cacheCapacity());
+        for (int shots = 0; shots < 100; shots++) {
+            f.create("ESP" + "+SHOT".repeat(shots));
+        }
+        assertTrue(f.cacheSize() <= 4);
+
+        // a recipe first seen once the cache is full is still cached
+        Product large = f.create("CAP+L");
+        assertSame(large, f.create("CAP+L"));
+        assertEquals(Money.of(3.70), ((Priced) large).price());
+    }
+
+    @Test
+    void testZeroCapacityDisablesCache() {
+        var f = new ProductFactory(0);
+        assertNotSame(f.create("CAP+L"), f.create("CAP+L"));
+        assertEquals(0, f.cacheSize());
+        assertEquals(0, f.cacheHits());
+    }
+}
@@ -0,0 +1,161 @@
+package com.cafepos;
+
+import com.cafepos.app.ReceiptFormatter;
+import com.cafepos.app.ReceiptTemplate;
+import com.cafepos.app.ReceiptWriter;
+import com.cafepos.catalog.SimpleProduct;
+import com.cafepos.common.Money;
+import com.cafepos.domain.LineItem;
+import com.cafepos.factory.ProductFactory;
+import com.cafepos.pricing.PricingService.PricingResult;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptWriterTest {
+    private final ReceiptWriter writer = new ReceiptWriter();
+    private final PricingResult noDiscount = new PricingResult(Money.of(7.80), Money.zero(), Money.of(0.78), Money.of(8.58));
+    private final PricingResult discounted = new PricingResult(Money.of(1234.05), Money.of(61.70), Money.of(117.24), Money.of(1289.59));
+
+    /** The StringBuilder rendering ReceiptFormatter used before ReceiptWriter. */
+    private static String reference(long id, List<LineItem> items, PricingResult pr, int taxPercent) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Order #").append(id).append("\n");
+        for (LineItem li : items) {
+            sb.append(" - ").append(li.product().name())
+              .append(" x").append(li.quantity())
+              .append(" = ").append(li.lineTotal()).append("\n");
+        }
+        sb.append("Subtotal: ").append(pr.subtotal()).append("\n");
+        if (pr.discount().asBigDecimal().signum() > 0) {
+            sb.append("Discount: -").append(pr.discount()).append("\n");
+        }
+        sb.append("Tax (").append(taxPercent).append("%): ").append(pr.tax()).append("\n");
+        sb.append("Total: ").append(pr.total());
+        return sb.toString();
+    }
+
+    private static List<LineItem> items() {
+        ProductFactory factory = new ProductFactory();
+        List<LineItem> items = new ArrayList<>();
+        items.add(new LineItem(factory.create("LAT+L"), 2));
+        items.add(new LineItem(factory.create("ESP+SHOT+OAT"), 1));
+        items.add(new LineItem(new SimpleProduct("P-CRO", "Croissant au beurre é €", Money.of(0.05)), 13));
+        items.add(new LineItem(new SimpleProduct("P-EMO", "Cake 🍰 \ud800", Money.of(100)), 7));
+        return items;
+    }
+
+    @Test
+    void testAppendableMatchesReference() {
+        for (PricingResult pr : List.of(noDiscount, discounted)) {
+            StringBuilder sb = new StringBuilder();
+            writer.write(4201L, items(), pr, 10, sb);
+            assertEquals(reference(4201L, items(), pr, 10), sb.toString());
+        }
+    }
+
+    @Test
+    void testBytesMatchUtf8OfReference() {
+        for (PricingResult pr : List.of(noDiscount, discounted)) {
+            byte[] expected = reference(-7L, items(), pr, 0).getBytes(StandardCharsets.UTF_8);
+            ByteBuffer out = ByteBuffer.allocate(expected.length + 8);
+            out.position(3);
+
+            int written = writer.write(-7L, items(), pr, 0, out);
+
+            assertEquals(expected.length, written);
+            byte[] actual = new byte[written];
+            out.flip().position(3);
+            out.get(actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void testFormatterIsUnchanged() {
+        assertEquals(reference(1L, items(), discounted, 10), new ReceiptFormatter().format(1L, items(), discounted, 10));
+        assertEquals(reference(2L, List.of(), noDiscount, 5), new ReceiptFormatter().format(2L, List.of(), noDiscount, 5));
+    }
+
+    @Test
+    void testTooSmallBufferOverflows() {
+        assertThrows(BufferOverflowException.class,
+                () -> writer.write(1L, items(), noDiscount, 10, ByteBuffer.allocate(16)));
+    }
+
+    @Test
+    void testRenderGrowsThreadBuffer() {
+        List<LineItem> many = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            many.addAll(items());
+        }
+        byte[] expected = reference(9L, many, discounted, 10).getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer rendered = writer.render(9L, many, discounted, 10);
+
+        byte[] actual = new byte[rendered.remaining()];
+        rendered.get(actual);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void testRepeatedLinesComeFromTheCache() {
+        ReceiptTemplate template = ReceiptTemplate.builder().build();
+        ReceiptWriter cached = new ReceiptWriter(template);
+
+        cached.write(1L, items(), noDiscount, 10, new StringBuilder());
+        StringBuilder second = new StringBuilder();
+        cached.write(1L, items(), noDiscount, 10, second);
+
+        assertEquals(4, template.lineCacheMisses());
+        assertEquals(4, template.lineCacheHits());
+        assertEquals(reference(1L, items(), noDiscount, 10), second.toString());
+    }
+
+    @Test
+    void testLineCacheIsBounded() {
+        ReceiptTemplate template = ReceiptTemplate.builder().lineCacheCapacity(2).build();
+        StringBuilder sb = new StringBuilder();
+
+        new ReceiptWriter(template).write(1L, items(), discounted, 10, sb);
+
+        assertEquals(2, template.lineCacheSize());
+        assertEquals(reference(1L, items(), discounted, 10), sb.toString());
+    }
+
+    @Test
+    void testCustomLayout() {
+        ReceiptTemplate template = ReceiptTemplate.builder()
+                .header("Receipt {id} ({taxPercent}% VAT)")
+                .line("{qty} x {name} @ {unitPrice}: {lineTotal}")
+                .discount("Loyalty: {discount}")
+                .tax("VAT: {tax}")
+                .total("TOTAL {total}")
+                .build();
+        List<LineItem> lines = List.of(new LineItem(new SimpleProduct("P-LAT", "Latte", Money.of(3.20)), 3));
+
+        String receipt = new ReceiptFormatter(template).format(7L, lines, discounted, 10);
+
+        assertEquals("Receipt 7 (10% VAT)\n"
+                + "3 x Latte @ 3.20: 9.60\n"
+                + "Subtotal: 1234.05\n"
+                + "Loyalty: 61.70\n"
+                + "VAT: 117.24\n"
+                + "TOTAL 1289.59", receipt);
+    }
+
+    @Test
+    void testInvalidLayoutsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ReceiptTemplate.builder().header("Order {nope}").build());
+        assertThrows(IllegalArgumentException.class, () -> ReceiptTemplate.builder().line("{name} of order {id}").build());
+        assertThrows(IllegalArgumentException.class, () -> ReceiptTemplate.builder().total("Total: {lineTotal}").build());
+        assertThrows(IllegalArgumentException.class, () -> ReceiptTemplate.builder().tax("Tax {tax").build());
+        assertThrows(IllegalArgumentException.class, () -> ReceiptTemplate.builder().header("a\nb").build());
+    }
+}